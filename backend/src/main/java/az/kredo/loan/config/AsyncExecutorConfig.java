@@ -0,0 +1,53 @@
+package az.kredo.loan.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Named, bounded executors whose tasks keep the submitting request's MDC and security context.
+ * Spring Boot binds executor.active, executor.queued and the pool size gauges for each of them,
+ * tagged with the bean name; {@link ContextPropagatingTaskDecorator} adds task latency under
+ * the same name.
+ */
+@Configuration
+public class AsyncExecutorConfig {
+
+    public static final String APPLICATION_EXECUTOR = "applicationTaskExecutor";
+    public static final String CRM_EXECUTOR = "crmExecutor";
+
+    /**
+     * Runs @Async methods. Replaces Spring Boot's default applicationTaskExecutor, which is
+     * unbounded and does not carry the MDC.
+     */
+    @Bean(name = {APPLICATION_EXECUTOR, "taskExecutor"})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(AsyncExecutorProperties properties,
+            MeterRegistry meterRegistry) {
+        return executor(APPLICATION_EXECUTOR, "async-", properties.getApplication(), meterRegistry);
+    }
+
+    /**
+     * Runs CRM calls and the callbacks on their results.
+     */
+    @Bean(name = CRM_EXECUTOR)
+    public ThreadPoolTaskExecutor crmExecutor(AsyncExecutorProperties properties, MeterRegistry meterRegistry) {
+        return executor(CRM_EXECUTOR, "crm-", properties.getCrm(), meterRegistry);
+    }
+
+    private static ThreadPoolTaskExecutor executor(String name, String threadNamePrefix,
+            AsyncExecutorProperties.Pool pool, MeterRegistry meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pool.getCoreSize());
+        executor.setMaxPoolSize(pool.getMaxSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator(name, meterRegistry));
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
@@ -0,0 +1,36 @@
+package az.kredo.loan.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded thread pools from kredo.async: one for @Async methods, one for CRM calls. A task
+ * submitted to a full pool runs on the submitting thread instead, which slows the caller down
+ * rather than dropping the work.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "kredo.async")
+public class AsyncExecutorProperties {
+
+    private Pool application = new Pool(4, 16, 500);
+    private Pool crm = new Pool(8, 32, 1000);
+
+    @Data
+    public static class Pool {
+        private int coreSize;
+        private int maxSize;
+        /** Tasks waiting for a thread; more threads than coreSize start only once it is full. */
+        private int queueCapacity;
+
+        public Pool() {
+        }
+
+        public Pool(int coreSize, int maxSize, int queueCapacity) {
+            this.coreSize = coreSize;
+            this.maxSize = maxSize;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package az.kredo.loan.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request wrapper that reads the first bytes of the body up front (so a filter can look at it)
+ * and replays them to the rest of the chain, followed by anything left unread.
+ */
+class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final byte[] head;
+    private ServletInputStream stream;
+
+    BufferedBodyRequest(HttpServletRequest request, int maxBytes) throws IOException {
+        super(request);
+        this.head = request.getInputStream().readNBytes(maxBytes);
+    }
+
+    /**
+     * Value of a top-level string field of the JSON object body, read the way Jackson binds it:
+     * escapes decoded, nested objects and string contents ignored, the last of duplicate keys
+     * winning. Null when the field is missing or not a string, or when the object does not end
+     * within the buffered head, since a later duplicate could then override what was read.
+     */
+    String topLevelStringField(String field) {
+        try (JsonParser parser = JSON.createParser(head)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            String value = null;
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                boolean match = field.equals(parser.currentName());
+                JsonToken valueToken = parser.nextToken();
+                if (match) {
+                    value = valueToken == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+            return token == JsonToken.END_OBJECT ? value : null;
+        } catch (IOException e) {
+            // Malformed, or cut off at the end of the head
+            return null;
+        }
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (stream == null) {
+            stream = new ReplayInputStream(new ByteArrayInputStream(head), super.getInputStream());
+        }
+        return stream;
+    }
+
+    /**
+     * Serves the buffered head, then the container's stream. Non-blocking reads are handed to
+     * the container's stream, which decides whether they are allowed; the head is always ready.
+     */
+    private static final class ReplayInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream head;
+        private final ServletInputStream body;
+        private boolean nonBlocking;
+
+        ReplayInputStream(ByteArrayInputStream head, ServletInputStream body) {
+            this.head = head;
+            this.body = body;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return head.available() > 0 ? head.read() : body.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            return head.available() > 0 ? head.read(buffer, off, len) : body.read(buffer, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return head.available() == 0 && body.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            // Only asked of the container in non-blocking mode, where it also arms the next callback
+            return head.available() > 0 || !nonBlocking || body.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            body.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    readListener.onDataAvailable();
+                }
+
+                @Override
+                public void onAllDataRead() throws IOException {
+                    // The container's stream may end before the head was read, e.g. a body that fit in it
+                    if (head.available() > 0) {
+                        readListener.onDataAvailable();
+                    }
+                    readListener.onAllDataRead();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    readListener.onError(t);
+                }
+            });
+            nonBlocking = true;
+        }
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+        return new BufferedReader(new InputStreamReader(getInputStream(), encoding));
+    }
+}
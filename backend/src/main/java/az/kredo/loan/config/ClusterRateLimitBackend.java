@@ -0,0 +1,26 @@
+package az.kredo.loan.config;
+
+/**
+ * Shared hit counters behind {@link ClusterRateLimiter}, one per (bucket key, window start).
+ * Selected with kredo.rate-limit.cluster.backend: "jdbc" (rate_limit_counters table, default)
+ * or "local" (in-process stand-in for single-node runs and tests).
+ */
+public interface ClusterRateLimitBackend {
+
+    /**
+     * Atomically add deltas[i] to the counter for (keys[i], windowStarts[i]) for i in [0, count)
+     * and write each counter's new cluster-wide total to totals[i]. Each (key, window start)
+     * pair appears at most once per call.
+     *
+     * @throws RuntimeException if the backend is unreachable; no totals are written then
+     */
+    void increment(int count, long[] keys, long[] windowStarts, long[] deltas, long[] totals);
+
+    /**
+     * Drop counters for windows that started before cutoffMs.
+     */
+    void purgeBefore(long cutoffMs);
+
+    record BucketWindow(long key, long windowStart) {
+    }
+}
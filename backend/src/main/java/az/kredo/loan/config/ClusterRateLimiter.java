@@ -0,0 +1,271 @@
+package az.kredo.loan.config;
+
+import az.kredo.loan.support.LongKeyBucketStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster-wide check applied after a policy's local bucket has let a request through, so N
+ * replicas together admit at most the policy's limit per period instead of N times that.
+ *
+ * Each node counts hits locally in a weighted two-window counter per bucket and never calls the
+ * backend on the request path. Every sync-interval-ms the pending counts are pushed to the
+ * {@link ClusterRateLimitBackend} in one batch, which answers with the cluster totals; requests
+ * are judged on the last known totals plus this node's unsynced hits. The limit can therefore
+ * be overshot by the other nodes' hits from one sync interval.
+ *
+ * If a sync fails, the cluster check is switched off for retry-after-failure-ms and the local
+ * policies alone apply; hits counted in the meantime are not replayed.
+ *
+ * Syncs run on this limiter's own thread, not on the shared Spring scheduler: one runs every
+ * 20 ms, so sharing would let a long batch job stall the cluster totals, and the syncs would
+ * delay every other job.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kredo.rate-limit.cluster.enabled", havingValue = "true")
+public class ClusterRateLimiter {
+
+    private static final int STATE_WIDTH = 7;
+
+    private static final int WINDOW_START = 0;
+    /** Local hits in the current window not yet sent. */
+    private static final int PENDING = 1;
+    /** Local hits in the current window sent in the sync that is under way. */
+    private static final int IN_FLIGHT = 2;
+    /** Cluster total for the current window as of the last sync, including this node's hits. */
+    private static final int CLUSTER_CURRENT = 3;
+    private static final int CLUSTER_PREVIOUS = 4;
+    /** Local hits in the previous window not yet sent. */
+    private static final int PENDING_PREVIOUS = 5;
+    private static final int PERIOD = 6;
+
+    private final ClusterRateLimitBackend backend;
+    private final LongKeyBucketStore windows;
+    private final long retryAfterFailureMs;
+    private final long idleTimeoutMs;
+    private final long retentionMs;
+    private final long[] batchKeys;
+    private final long[] batchWindowStarts;
+    private final long[] batchDeltas;
+    private final long[] batchTotals;
+    private final Counter syncFailures;
+    private final long syncIntervalMs;
+    private ScheduledExecutorService syncThread;
+
+    private volatile long unavailableUntil;
+    private int batchSize;
+
+    public ClusterRateLimiter(ClusterRateLimitBackend backend, MeterRegistry meterRegistry,
+            @Value("${kredo.rate-limit.cluster.max-buckets:50000}") int maxBuckets,
+            @Value("${kredo.rate-limit.store.stripes:64}") int stripes,
+            @Value("${kredo.rate-limit.cluster.max-batch:2000}") int maxBatch,
+            @Value("${kredo.rate-limit.cluster.retry-after-failure-ms:5000}") long retryAfterFailureMs,
+            @Value("${kredo.rate-limit.store.idle-timeout-seconds:120}") long idleTimeoutSeconds,
+            @Value("${kredo.rate-limit.cluster.retention-minutes:60}") long retentionMinutes,
+            @Value("${kredo.rate-limit.cluster.sync-interval-ms:20}") long syncIntervalMs) {
+        this.backend = backend;
+        this.windows = new LongKeyBucketStore(maxBuckets, stripes, STATE_WIDTH);
+        this.retryAfterFailureMs = retryAfterFailureMs;
+        this.idleTimeoutMs = idleTimeoutSeconds * 1000;
+        this.retentionMs = retentionMinutes * 60_000;
+        this.syncIntervalMs = syncIntervalMs;
+        this.batchKeys = new long[maxBatch];
+        this.batchWindowStarts = new long[maxBatch];
+        this.batchDeltas = new long[maxBatch];
+        this.batchTotals = new long[maxBatch];
+
+        Gauge.builder("kredo.ratelimit.cluster.available", this, limiter -> limiter.isAvailable() ? 1 : 0)
+                .description("1 while cluster-wide rate limits are enforced, 0 while falling back to local limits")
+                .register(meterRegistry);
+        syncFailures = Counter.builder("kredo.ratelimit.cluster.sync.failures")
+                .description("Failed syncs with the cluster rate limit backend")
+                .register(meterRegistry);
+        log.info("Cluster-wide rate limiting enabled ({})", backend.getClass().getSimpleName());
+    }
+
+    @PostConstruct
+    public void start() {
+        syncThread = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cluster-rate-limit-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncThread.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (RuntimeException e) {
+                // An escaped exception would cancel every later sync
+                log.error("Cluster rate limit sync failed unexpectedly", e);
+            }
+        }, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (syncThread != null) {
+            syncThread.shutdownNow();
+        }
+    }
+
+    /**
+     * Precompute the window update for a policy, so the request path allocates nothing.
+     */
+    Window window(RateLimitRule rule) {
+        return new Window(rule.limit, rule.periodMs);
+    }
+
+    /**
+     * Count a hit against the cluster-wide window for key and decide whether it passes.
+     * Always passes while the backend is unavailable.
+     */
+    boolean tryAcquire(long key, long nowMs, Window window) {
+        if (nowMs < unavailableUntil) {
+            return true;
+        }
+        return windows.tryAcquire(key, nowMs, window);
+    }
+
+    boolean isAvailable() {
+        return System.currentTimeMillis() >= unavailableUntil;
+    }
+
+    /**
+     * Push pending hits to the backend and pull back the cluster totals. Buckets without new hits
+     * are not synced: their next request is judged on slightly stale totals and then synced.
+     */
+    public synchronized void sync() {
+        long now = System.currentTimeMillis();
+        if (now < unavailableUntil) {
+            return;
+        }
+
+        batchSize = 0;
+        windows.forEach(this::collect);
+        if (batchSize == 0) {
+            return;
+        }
+
+        try {
+            backend.increment(batchSize, batchKeys, batchWindowStarts, batchDeltas, batchTotals);
+        } catch (RuntimeException e) {
+            syncFailures.increment();
+            unavailableUntil = now + retryAfterFailureMs;
+            windows.forEach((key, state, offset) -> state[offset + IN_FLIGHT] = 0);
+            log.warn("Cluster rate limit sync failed, using local limits for {} ms: {}",
+                    retryAfterFailureMs, e.getMessage());
+            return;
+        }
+
+        for (int i = 0; i < batchSize; i++) {
+            long windowStart = batchWindowStarts[i];
+            long total = batchTotals[i];
+            windows.updateIfPresent(batchKeys[i], now, (state, offset, fresh, nowMs) -> {
+                if (state[offset + WINDOW_START] == windowStart) {
+                    state[offset + CLUSTER_CURRENT] = Math.max(state[offset + CLUSTER_CURRENT], total);
+                    state[offset + IN_FLIGHT] = 0;
+                } else if (state[offset + WINDOW_START] - state[offset + PERIOD] == windowStart) {
+                    state[offset + CLUSTER_PREVIOUS] = Math.max(state[offset + CLUSTER_PREVIOUS], total);
+                }
+                return true;
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${kredo.rate-limit.cluster.purge-interval-ms:60000}")
+    public void purge() {
+        long now = System.currentTimeMillis();
+        windows.evictIdle(now, idleTimeoutMs);
+        try {
+            backend.purgeBefore(now - retentionMs);
+        } catch (RuntimeException e) {
+            log.warn("Could not purge cluster rate limit counters: {}", e.getMessage());
+        }
+    }
+
+    private void collect(long key, long[] state, int offset) {
+        if (batchSize + 2 > batchKeys.length) {
+            return;
+        }
+        long pendingPrevious = state[offset + PENDING_PREVIOUS];
+        if (pendingPrevious > 0) {
+            add(key, state[offset + WINDOW_START] - state[offset + PERIOD], pendingPrevious);
+            state[offset + PENDING_PREVIOUS] = 0;
+        }
+        long pending = state[offset + PENDING];
+        if (pending > 0) {
+            add(key, state[offset + WINDOW_START], pending);
+            state[offset + IN_FLIGHT] += pending;
+            state[offset + PENDING] = 0;
+        }
+    }
+
+    private void add(long key, long windowStart, long delta) {
+        batchKeys[batchSize] = key;
+        batchWindowStarts[batchSize] = windowStart;
+        batchDeltas[batchSize] = delta;
+        batchSize++;
+    }
+
+    /**
+     * Weighted two-window counter over cluster totals, for one policy's limit and period.
+     */
+    static final class Window implements LongKeyBucketStore.BucketUpdate {
+
+        private final int limit;
+        private final long periodMs;
+
+        private Window(int limit, long periodMs) {
+            this.limit = limit;
+            this.periodMs = periodMs;
+        }
+
+        @Override
+        public boolean apply(long[] state, int offset, boolean fresh, long nowMs) {
+            if (fresh) {
+                state[offset + WINDOW_START] = nowMs - Math.floorMod(nowMs, periodMs);
+                state[offset + PERIOD] = periodMs;
+            }
+            long elapsedWindows = (nowMs - state[offset + WINDOW_START]) / periodMs;
+            if (elapsedWindows >= 1) {
+                long unsent = state[offset + PENDING];
+                state[offset + CLUSTER_PREVIOUS] = elapsedWindows == 1
+                        ? state[offset + CLUSTER_CURRENT] + state[offset + IN_FLIGHT] + unsent
+                        : 0;
+                // Hits of a window two or more periods back no longer matter to anyone
+                state[offset + PENDING_PREVIOUS] = elapsedWindows == 1 ? unsent : 0;
+                state[offset + PENDING] = 0;
+                state[offset + IN_FLIGHT] = 0;
+                state[offset + CLUSTER_CURRENT] = 0;
+                state[offset + WINDOW_START] += elapsedWindows * periodMs;
+            }
+
+            long windowStart = state[offset + WINDOW_START];
+            long current = state[offset + CLUSTER_CURRENT] + state[offset + IN_FLIGHT] + state[offset + PENDING];
+            long previous = state[offset + CLUSTER_PREVIOUS];
+            double weight = 1.0 - (double) (nowMs - windowStart) / periodMs;
+            double estimate = previous * weight + current;
+
+            boolean allowed = estimate + 1 <= limit;
+            if (allowed) {
+                state[offset + PENDING]++;
+                estimate += 1;
+            }
+            RateLimitRule.recordSlidingWindow(limit, periodMs, windowStart, current, previous, estimate, nowMs,
+                    allowed);
+            return allowed;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package az.kredo.loan.config;
+
+import az.kredo.loan.config.ConcurrencyLimitProperties.Priority;
+import az.kredo.loan.support.GradientConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load shedding: caps in-flight requests per endpoint group (kredo.concurrency.groups) with a
+ * {@link GradientConcurrencyLimit} that adapts to measured latency, and answers the excess with
+ * an immediate 503 and Retry-After instead of letting it queue in Tomcat, hold DB connections
+ * and push latency up for everyone.
+ *
+ * Priority classes share the limit unevenly: steps of an application already in progress
+ * (HIGH) may fill all of it, while new OTP sessions (LOW) are turned away first. Runs ahead of
+ * the security chain, so a shed request costs no JWT parsing.
+ */
+@Slf4j
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "kredo.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter implements Filter {
+
+    private static final String OVERLOADED_BODY =
+            "{\"errorCode\":\"SERVICE_OVERLOADED\",\"message\":\"Service is busy. Please try again shortly.\"}";
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrencyLimitProperties properties;
+
+    private String[] prefixes;
+    private GradientConcurrencyLimit[] limits;
+    private Counter[][] rejections;
+    private String[] highSuffixes;
+    private String[] lowSuffixes;
+    private double[] shares;
+
+    @PostConstruct
+    public void init() {
+        List<ConcurrencyLimitProperties.Group> groups = properties.getGroups();
+        prefixes = new String[groups.size()];
+        limits = new GradientConcurrencyLimit[groups.size()];
+        rejections = new Counter[groups.size()][Priority.values().length];
+        long now = System.nanoTime();
+        for (int i = 0; i < groups.size(); i++) {
+            ConcurrencyLimitProperties.Group group = groups.get(i);
+            prefixes[i] = group.getPathPrefix();
+            limits[i] = new GradientConcurrencyLimit(group.getInitialLimit(), group.getMinLimit(),
+                    group.getMaxLimit(), properties.getTolerance(), properties.getSmoothing(),
+                    TimeUnit.MILLISECONDS.toNanos(properties.getWindowMs()), properties.getMinWindowSamples(), now);
+            Gauge.builder("kredo.concurrency.limit", limits[i], GradientConcurrencyLimit::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("group", group.getName())
+                    .register(meterRegistry);
+            Gauge.builder("kredo.concurrency.in-flight", limits[i], GradientConcurrencyLimit::getInFlight)
+                    .description("Requests in flight")
+                    .tag("group", group.getName())
+                    .register(meterRegistry);
+            for (Priority priority : Priority.values()) {
+                rejections[i][priority.ordinal()] = Counter.builder("kredo.concurrency.rejections")
+                        .description("Requests shed with 503 by the concurrency limiter")
+                        .tag("group", group.getName())
+                        .tag("priority", priority.name().toLowerCase())
+                        .register(meterRegistry);
+            }
+        }
+
+        ConcurrencyLimitProperties.Priorities priorities = properties.getPriorities();
+        highSuffixes = priorities.getHigh().toArray(String[]::new);
+        lowSuffixes = priorities.getLow().toArray(String[]::new);
+        shares = new double[Priority.values().length];
+        shares[Priority.HIGH.ordinal()] = 1.0;
+        shares[Priority.NORMAL.ordinal()] = priorities.getNormalShare();
+        shares[Priority.LOW.ordinal()] = priorities.getLowShare();
+        log.info("Adaptive concurrency limiting for {} endpoint groups", prefixes.length);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        String path = ((HttpServletRequest) request).getRequestURI();
+        int group = groupOf(path);
+        if (group < 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        GradientConcurrencyLimit limit = limits[group];
+        Priority priority = priorityOf(path);
+        if (!limit.tryAcquire(shares[priority.ordinal()])) {
+            rejections[group][priority.ordinal()].increment();
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            httpResponse.setIntHeader("Retry-After", properties.getRetryAfterSeconds());
+            httpResponse.setContentType("application/json");
+            httpResponse.getWriter().write(OVERLOADED_BODY);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (((HttpServletResponse) response).getStatus() == 429) {
+                // Rate limited before doing any work; its latency would drag the baseline down
+                limit.release();
+            } else {
+                limit.release(start, System.nanoTime());
+            }
+        }
+    }
+
+    private int groupOf(String path) {
+        for (int i = 0; i < prefixes.length; i++) {
+            if (path.startsWith(prefixes[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Priority priorityOf(String path) {
+        for (String suffix : highSuffixes) {
+            if (path.endsWith(suffix)) {
+                return Priority.HIGH;
+            }
+        }
+        for (String suffix : lowSuffixes) {
+            if (path.endsWith(suffix)) {
+                return Priority.LOW;
+            }
+        }
+        return Priority.NORMAL;
+    }
+}
@@ -0,0 +1,57 @@
+package az.kredo.loan.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adaptive concurrency limits from kredo.concurrency. Each group is a path prefix with its own
+ * limit; a request's priority class decides how much of that limit it may fill.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "kredo.concurrency")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+    /** Latency samples are folded into the limit once per window. */
+    private long windowMs = 250;
+    private int minWindowSamples = 10;
+    /** How far short-term latency may exceed the long-term baseline before the limit shrinks. */
+    private double tolerance = 1.5;
+    /** Weight of each new limit estimate. */
+    private double smoothing = 0.2;
+    private int retryAfterSeconds = 1;
+    private List<Group> groups = new ArrayList<>();
+    private Priorities priorities = new Priorities();
+
+    public enum Priority {
+        HIGH,
+        NORMAL,
+        LOW
+    }
+
+    @Data
+    public static class Group {
+        private String name;
+        private String pathPrefix;
+        private int initialLimit = 50;
+        private int minLimit = 10;
+        private int maxLimit = 500;
+    }
+
+    @Data
+    public static class Priorities {
+        /** Path suffixes of HIGH requests, which may fill the whole limit. */
+        private List<String> high = new ArrayList<>();
+        /** Path suffixes of LOW requests. Everything else is NORMAL. */
+        private List<String> low = new ArrayList<>();
+        /** Fraction of the limit NORMAL requests may fill. */
+        private double normalShare = 0.9;
+        /** Fraction of the limit LOW requests may fill. */
+        private double lowShare = 0.6;
+    }
+}
@@ -0,0 +1,66 @@
+package az.kredo.loan.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carries the submitting thread's MDC (requestId) and security context into a pooled task and
+ * restores the worker's own afterwards. Also times each task: executor.idle for the wait in the
+ * queue and executor for the run, tagged with the executor's bean name like the executor.*
+ * gauges Spring Boot binds for every ThreadPoolTaskExecutor bean.
+ */
+public class ContextPropagatingTaskDecorator implements TaskDecorator {
+
+    private final Timer idleTimer;
+    private final Timer executionTimer;
+
+    public ContextPropagatingTaskDecorator(String name, MeterRegistry meterRegistry) {
+        this.idleTimer = Timer.builder("executor.idle")
+                .description("Time tasks wait in the queue before running")
+                .tag("name", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.executionTimer = Timer.builder("executor")
+                .description("Task run time")
+                .tag("name", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Runnable decorate(Runnable task) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        long submittedAt = System.nanoTime();
+        return () -> {
+            long startedAt = System.nanoTime();
+            idleTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+            setMdc(mdc);
+            SecurityContextHolder.setContext(securityContext);
+            try {
+                task.run();
+            } finally {
+                setMdc(previousMdc);
+                SecurityContextHolder.setContext(previousSecurityContext);
+                executionTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    private static void setMdc(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package az.kredo.loan.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Field encryption keys from kredo.security.encryption. Data keys are generated per version and
+ * stored wrapped under a master key (data_encryption_keys); only the master keys and the blind
+ * index key live in configuration.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "kredo.security.encryption")
+public class EncryptionProperties {
+
+    /** Key of values written before key versioning (version 0); blank if there are none. */
+    private String keyBase64;
+    /** Data key version new values are written with. Raising it starts a re-encryption. */
+    private int activeVersion = 1;
+    /** Master key that wraps data keys; the others are kept to unwrap older ones. */
+    private String activeMasterKey;
+    private Map<String, String> masterKeys = new LinkedHashMap<>();
+    private BatchJob reencrypt = new BatchJob();
+    private BlindIndex blindIndex = new BlindIndex();
+
+    /**
+     * Keyed HMAC lookup columns (fin_index, address_index) for finding rows without decrypting.
+     */
+    @Data
+    public static class BlindIndex {
+        /** HMAC key; changing it invalidates every stored index. */
+        private String keyBase64;
+        private BatchJob backfill = new BatchJob();
+    }
+
+    @Data
+    public static class BatchJob {
+        private boolean enabled = true;
+        private int batchSize = 500;
+        /** One batch per interval, so batch-size / interval-ms caps the rewrite rate. */
+        private long intervalMs = 1000;
+        private int parallelism = 2;
+    }
+}
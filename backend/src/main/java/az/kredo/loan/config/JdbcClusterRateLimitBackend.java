@@ -0,0 +1,62 @@
+package az.kredo.loan.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shared counters in the rate_limit_counters table (Flyway V4). A whole sync batch is one
+ * INSERT ... ON CONFLICT DO UPDATE ... RETURNING over unnested arrays, so every node adds its
+ * deltas and reads back the cluster totals in a single round trip.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("${kredo.rate-limit.cluster.enabled:false} and '${kredo.rate-limit.cluster.backend:jdbc}' == 'jdbc'")
+public class JdbcClusterRateLimitBackend implements ClusterRateLimitBackend {
+
+    private static final String UPSERT = "INSERT INTO rate_limit_counters AS c (bucket_key, window_start, hits) " +
+            "SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::bigint[]) " +
+            "ON CONFLICT (bucket_key, window_start) DO UPDATE SET hits = c.hits + EXCLUDED.hits " +
+            "RETURNING c.bucket_key, c.window_start, c.hits";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void increment(int count, long[] keys, long[] windowStarts, long[] deltas, long[] totals) {
+        Map<BucketWindow, Long> returned = new HashMap<>(count * 2);
+        jdbcTemplate.query(UPSERT,
+                ps -> {
+                    Connection connection = ps.getConnection();
+                    ps.setArray(1, bigintArray(connection, keys, count));
+                    ps.setArray(2, bigintArray(connection, windowStarts, count));
+                    ps.setArray(3, bigintArray(connection, deltas, count));
+                },
+                rs -> {
+                    returned.put(new BucketWindow(rs.getLong(1), rs.getLong(2)), rs.getLong(3));
+                });
+        // RETURNING order is unspecified; every input row comes back exactly once
+        for (int i = 0; i < count; i++) {
+            totals[i] = returned.get(new BucketWindow(keys[i], windowStarts[i]));
+        }
+    }
+
+    @Override
+    public void purgeBefore(long cutoffMs) {
+        jdbcTemplate.update("DELETE FROM rate_limit_counters WHERE window_start < ?", cutoffMs);
+    }
+
+    private static Array bigintArray(Connection connection, long[] values, int count) throws SQLException {
+        Long[] boxed = new Long[count];
+        for (int i = 0; i < count; i++) {
+            boxed[i] = values[i];
+        }
+        return connection.createArrayOf("bigint", boxed);
+    }
+}
@@ -0,0 +1,37 @@
+package az.kredo.loan.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-process stand-in for the shared counters: exercises the cluster sync path on a single node
+ * and in tests without a database. Instances sharing one of these behave like replicas sharing
+ * the rate_limit_counters table.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${kredo.rate-limit.cluster.enabled:false} and '${kredo.rate-limit.cluster.backend:jdbc}' == 'local'")
+public class LocalClusterRateLimitBackend implements ClusterRateLimitBackend {
+
+    private final Map<BucketWindow, Long> counters = new HashMap<>();
+
+    public LocalClusterRateLimitBackend() {
+        log.info("Cluster rate limiting uses the local stand-in backend; limits are not shared between nodes");
+    }
+
+    @Override
+    public synchronized void increment(int count, long[] keys, long[] windowStarts, long[] deltas, long[] totals) {
+        for (int i = 0; i < count; i++) {
+            totals[i] = counters.merge(new BucketWindow(keys[i], windowStarts[i]), deltas[i], Long::sum);
+        }
+    }
+
+    @Override
+    public synchronized void purgeBefore(long cutoffMs) {
+        counters.keySet().removeIf(window -> window.windowStart() < cutoffMs);
+    }
+}
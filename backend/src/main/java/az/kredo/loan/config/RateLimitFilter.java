@@ -1,5 +1,12 @@
 package az.kredo.loan.config;
 
+import az.kredo.loan.config.RateLimitProperties.KeyType;
+import az.kredo.loan.support.LongKeyBucketStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -7,29 +14,89 @@ import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
 
 /**
- * Simple in-memory token bucket rate limiter for OTP endpoints.
- * Limits requests per IP address per minute.
+ * In-memory rate limiter driven by the policies in kredo.rate-limit.policies (see
+ * {@link RateLimitProperties}): continuous-refill token buckets or sliding-window counters,
+ * keyed by client IP, authenticated principal or phone number, per route prefix.
+ *
+ * Buckets live in a fixed-capacity {@link LongKeyBucketStore} keyed by a hash of policy, key and
+ * (optionally) path, so a flood of spoofed X-Forwarded-For values evicts old buckets instead of
+ * growing the heap. Limited responses carry RateLimit-Limit/Remaining/Reset headers, and 429s a
+ * Retry-After header. With kredo.rate-limit.cluster.enabled, requests a policy lets through
+ * locally are also checked against the cluster-wide count ({@link ClusterRateLimiter}).
  */
 @Slf4j
 @Component
 @Order(1)
+@RequiredArgsConstructor
 public class RateLimitFilter implements Filter {
 
-    @Value("${kredo.rate-limit.otp.requests-per-minute:10}")
-    private int requestsPerMinute;
-
-    private final Map<String, RateLimitBucket> buckets = new ConcurrentHashMap<>();
+    private static final int MAX_BUFFERED_BODY = 4096;
+    /** Same format as GenerateOtpRequest.phoneNumber is validated against. */
+    private static final Pattern PHONE_NUMBER = Pattern.compile("^\\+994[0-9]{9}$");
+
+    private final MeterRegistry meterRegistry;
+    private final RateLimitProperties properties;
+    private final ObjectProvider<ClusterRateLimiter> clusterRateLimiter;
+
+    @Value("${kredo.rate-limit.store.max-buckets:100000}")
+    private int maxBuckets;
+
+    @Value("${kredo.rate-limit.store.stripes:64}")
+    private int stripes;
+
+    @Value("${kredo.rate-limit.store.idle-timeout-seconds:120}")
+    private long idleTimeoutSeconds;
+
+    private LongKeyBucketStore buckets;
+    private RateLimitRule[] rules;
+    private Counter[] rejections;
+    private ClusterRateLimiter cluster;
+    private ClusterRateLimiter.Window[] clusterWindows;
+
+    @PostConstruct
+    public void init() {
+        buckets = new LongKeyBucketStore(maxBuckets, stripes, RateLimitRule.STATE_WIDTH);
+        Gauge.builder("kredo.ratelimit.buckets", buckets, LongKeyBucketStore::size)
+                .description("Rate limit buckets currently held")
+                .register(meterRegistry);
+        FunctionCounter.builder("kredo.ratelimit.evictions", buckets, LongKeyBucketStore::evictions)
+                .description("Rate limit buckets evicted for capacity or idleness")
+                .register(meterRegistry);
+
+        cluster = clusterRateLimiter.getIfAvailable();
+        List<RateLimitProperties.Policy> policies = properties.getPolicies();
+        rules = new RateLimitRule[policies.size()];
+        rejections = new Counter[policies.size()];
+        clusterWindows = new ClusterRateLimiter.Window[policies.size()];
+        for (int i = 0; i < policies.size(); i++) {
+            rules[i] = new RateLimitRule(policies.get(i), i);
+            if (cluster != null && rules[i].cluster) {
+                clusterWindows[i] = cluster.window(rules[i]);
+            }
+            rejections[i] = Counter.builder("kredo.ratelimit.rejections")
+                    .description("Requests rejected with 429 by the rate limiter")
+                    .tag("policy", rules[i].name)
+                    .register(meterRegistry);
+        }
+        log.info("Rate limiting with {} policies (cluster-wide: {})", rules.length, cluster != null);
+    }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
@@ -37,76 +104,100 @@ public class RateLimitFilter implements Filter {
 
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         String path = httpRequest.getRequestURI();
+        String method = httpRequest.getMethod();
 
-        // Only rate limit OTP endpoints
-        if (!path.contains("/otp-service/")) {
-            chain.doFilter(request, response);
-            return;
-        }
+        RateLimitRule.Outcome outcome = RateLimitRule.begin();
+        long now = System.currentTimeMillis();
+        String principal = null;
+        boolean principalResolved = false;
+
+        for (int i = 0; i < rules.length; i++) {
+            RateLimitRule rule = rules[i];
+            if (!rule.matches(path, method)) {
+                continue;
+            }
+
+            if (rule.keyType != KeyType.IP && !principalResolved) {
+                principal = currentPrincipal();
+                principalResolved = true;
+            }
+            String keyValue = switch (rule.keyType) {
+                case IP -> getClientIp(httpRequest);
+                case PRINCIPAL -> principal;
+                case PHONE -> {
+                    if (principal != null) {
+                        yield principal;
+                    }
+                    if (!(httpRequest instanceof BufferedBodyRequest)) {
+                        httpRequest = new BufferedBodyRequest(httpRequest, MAX_BUFFERED_BODY);
+                    }
+                    String phone = ((BufferedBodyRequest) httpRequest).topLevelStringField("phoneNumber");
+                    // No number the endpoint would accept: limit by address rather than not at all
+                    yield phone != null && PHONE_NUMBER.matcher(phone).matches()
+                            ? phone : "ip:" + getClientIp(httpRequest);
+                }
+            };
+            if (keyValue == null) {
+                continue;
+            }
 
-        String clientIp = getClientIp(httpRequest);
-        String bucketKey = clientIp + ":" + path;
+            long bucketKey = rule.bucketKey(keyValue, path);
+            boolean allowed = buckets.tryAcquire(bucketKey, now, rule)
+                    && (clusterWindows[i] == null || cluster.tryAcquire(bucketKey, now, clusterWindows[i]));
+            if (!allowed) {
+                rejections[i].increment();
+                log.warn("Rate limit {} exceeded on path: {}", rule.name, path);
+                // The request is refused, so it must not use up the remaining rules' allowance
+                break;
+            }
+        }
 
-        RateLimitBucket bucket = buckets.computeIfAbsent(bucketKey,
-                k -> new RateLimitBucket(requestsPerMinute));
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        if (outcome.evaluated) {
+            httpResponse.setIntHeader("RateLimit-Limit", outcome.limit);
+            httpResponse.setIntHeader("RateLimit-Remaining", outcome.remaining);
+            httpResponse.setIntHeader("RateLimit-Reset", ceilSeconds(outcome.resetMs));
+        }
 
-        if (bucket.tryConsume()) {
-            chain.doFilter(request, response);
-        } else {
-            log.warn("Rate limit exceeded for IP: [MASKED] on path: {}", path);
-            HttpServletResponse httpResponse = (HttpServletResponse) response;
+        if (outcome.rejected) {
             httpResponse.setStatus(429);
+            httpResponse.setIntHeader("Retry-After", ceilSeconds(outcome.retryAfterMs));
             httpResponse.setContentType("application/json");
             httpResponse.getWriter().write(
                     "{\"errorCode\":\"RATE_LIMIT_EXCEEDED\",\"message\":\"Too many requests. Please try again later.\"}");
+            return;
         }
+
+        chain.doFilter(httpRequest, response);
     }
 
-    private String getClientIp(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
+    @Scheduled(fixedDelayString = "${kredo.rate-limit.store.sweep-interval-ms:30000}")
+    public void evictIdleBuckets() {
+        int removed = buckets.evictIdle(System.currentTimeMillis(), Duration.ofSeconds(idleTimeoutSeconds).toMillis());
+        if (removed > 0) {
+            log.debug("Evicted {} idle rate limit buckets", removed);
         }
-        return request.getRemoteAddr();
     }
 
-    /**
-     * Simple token bucket implementation with per-minute refill.
-     */
-    private static class RateLimitBucket {
-        private final int maxTokens;
-        private final AtomicInteger tokens;
-        private volatile long lastRefillTime;
-
-        RateLimitBucket(int maxTokens) {
-            this.maxTokens = maxTokens;
-            this.tokens = new AtomicInteger(maxTokens);
-            this.lastRefillTime = System.currentTimeMillis();
-        }
+    private static int ceilSeconds(long millis) {
+        return (int) Math.max(0, (millis + 999) / 1000);
+    }
 
-        boolean tryConsume() {
-            refillIfNeeded();
-            int current = tokens.get();
-            while (current > 0) {
-                if (tokens.compareAndSet(current, current - 1)) {
-                    return true;
-                }
-                current = tokens.get();
-            }
-            return false;
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
         }
+        return authentication.getName();
+    }
 
-        private void refillIfNeeded() {
-            long now = System.currentTimeMillis();
-            // Refill every minute
-            if (now - lastRefillTime > 60_000) {
-                synchronized (this) {
-                    if (now - lastRefillTime > 60_000) {
-                        tokens.set(maxTokens);
-                        lastRefillTime = now;
-                    }
-                }
-            }
+    private String getClientIp(HttpServletRequest request) {
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            int comma = xForwardedFor.indexOf(',');
+            return (comma < 0 ? xForwardedFor : xForwardedFor.substring(0, comma)).trim();
         }
+        return request.getRemoteAddr();
     }
 }
@@ -0,0 +1,57 @@
+package az.kredo.loan.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limit policies from kredo.rate-limit.policies. Every policy whose path prefix (and
+ * method, if set) matches a request is applied; the request is rejected if any of them rejects.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "kredo.rate-limit")
+public class RateLimitProperties {
+
+    private List<Policy> policies = new ArrayList<>();
+
+    public enum KeyType {
+        /** Client IP (first X-Forwarded-For hop). */
+        IP,
+        /** Authenticated principal; requests without one are not limited by this policy. */
+        PRINCIPAL,
+        /**
+         * Phone number: the authenticated principal, else the top-level "phoneNumber" of the JSON
+         * body; requests without a valid one are limited by client IP instead.
+         */
+        PHONE
+    }
+
+    public enum Algorithm {
+        /** Continuous refill at limit/period, holding up to burst tokens. */
+        TOKEN_BUCKET,
+        /** Weighted two-window counter approximating a true sliding window of one period. */
+        SLIDING_WINDOW
+    }
+
+    @Data
+    public static class Policy {
+        private String name;
+        private String pathPrefix;
+        private String method;
+        private KeyType key = KeyType.IP;
+        private Algorithm algorithm = Algorithm.TOKEN_BUCKET;
+        private int limit;
+        private Duration period = Duration.ofMinutes(1);
+        /** Token bucket capacity; defaults to limit. */
+        private Integer burst;
+        /** Give every path under the prefix its own bucket. */
+        private boolean perPath;
+        /** Also enforce the limit across all nodes when kredo.rate-limit.cluster.enabled is set. */
+        private boolean cluster = true;
+    }
+}
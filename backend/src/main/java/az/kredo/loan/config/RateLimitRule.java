@@ -0,0 +1,195 @@
+package az.kredo.loan.config;
+
+import az.kredo.loan.config.RateLimitProperties.Algorithm;
+import az.kredo.loan.config.RateLimitProperties.KeyType;
+import az.kredo.loan.config.RateLimitProperties.Policy;
+import az.kredo.loan.support.LongKeyBucketStore;
+
+/**
+ * A compiled rate limit policy. Applied to its bucket under the store's stripe lock; the verdict
+ * and header values are merged into the calling thread's {@link Outcome}, so evaluating a rule
+ * allocates nothing.
+ */
+class RateLimitRule implements LongKeyBucketStore.BucketUpdate {
+
+    static final int STATE_WIDTH = 3;
+
+    private static final ThreadLocal<Outcome> OUTCOME = ThreadLocal.withInitial(Outcome::new);
+    private static final long MICROS = 1_000_000L;
+
+    // Token bucket state
+    private static final int TOKENS = 0;
+    private static final int LAST_REFILL = 1;
+    // Sliding window state
+    private static final int WINDOW_START = 0;
+    private static final int CURRENT = 1;
+    private static final int PREVIOUS = 2;
+
+    final String name;
+    final KeyType keyType;
+    private final String pathPrefix;
+    private final String method;
+    private final boolean perPath;
+    private final Algorithm algorithm;
+    final int limit;
+    final long periodMs;
+    final boolean cluster;
+    private final long capacityMicros;
+    private final long salt;
+
+    RateLimitRule(Policy policy, int index) {
+        if (policy.getLimit() <= 0 || policy.getPeriod().isZero() || policy.getPathPrefix() == null) {
+            throw new IllegalArgumentException("Invalid rate limit policy: " + policy.getName());
+        }
+        this.name = policy.getName();
+        this.keyType = policy.getKey();
+        this.pathPrefix = policy.getPathPrefix();
+        this.method = policy.getMethod();
+        this.perPath = policy.isPerPath();
+        this.algorithm = policy.getAlgorithm();
+        this.limit = policy.getLimit();
+        this.periodMs = policy.getPeriod().toMillis();
+        this.cluster = policy.isCluster();
+        int burst = policy.getBurst() != null ? policy.getBurst() : policy.getLimit();
+        this.capacityMicros = burst * MICROS;
+        this.salt = (index + 1) * 0x9e3779b97f4a7c15L;
+    }
+
+    boolean matches(String path, String requestMethod) {
+        return path.startsWith(pathPrefix) && (method == null || method.equalsIgnoreCase(requestMethod));
+    }
+
+    long bucketKey(CharSequence keyValue, String path) {
+        return LongKeyBucketStore.hash(keyValue, perPath ? path : "") ^ salt;
+    }
+
+    static Outcome begin() {
+        Outcome outcome = OUTCOME.get();
+        outcome.reset();
+        return outcome;
+    }
+
+    /**
+     * The calling thread's outcome, as last reset by {@link #begin()}.
+     */
+    static Outcome outcome() {
+        return OUTCOME.get();
+    }
+
+    @Override
+    public boolean apply(long[] state, int offset, boolean fresh, long nowMs) {
+        return algorithm == Algorithm.TOKEN_BUCKET
+                ? tokenBucket(state, offset, fresh, nowMs)
+                : slidingWindow(state, offset, fresh, nowMs);
+    }
+
+    private boolean tokenBucket(long[] state, int offset, boolean fresh, long nowMs) {
+        if (fresh) {
+            state[offset + TOKENS] = capacityMicros;
+            state[offset + LAST_REFILL] = nowMs;
+        }
+        long elapsed = Math.max(0, nowMs - state[offset + LAST_REFILL]);
+        double refill = (double) elapsed * limit * MICROS / periodMs;
+        long tokens = (long) Math.min(capacityMicros, state[offset + TOKENS] + refill);
+        state[offset + LAST_REFILL] = nowMs;
+
+        boolean allowed = tokens >= MICROS;
+        if (allowed) {
+            tokens -= MICROS;
+        }
+        state[offset + TOKENS] = tokens;
+
+        long resetMs = msToRefill(capacityMicros - tokens);
+        long retryAfterMs = allowed ? 0 : msToRefill(MICROS - tokens);
+        outcome().record(limit, (int) (tokens / MICROS), resetMs, retryAfterMs, allowed);
+        return allowed;
+    }
+
+    private long msToRefill(long micros) {
+        return (long) Math.ceil((double) micros * periodMs / ((double) limit * MICROS));
+    }
+
+    private boolean slidingWindow(long[] state, int offset, boolean fresh, long nowMs) {
+        if (fresh) {
+            state[offset + WINDOW_START] = nowMs - Math.floorMod(nowMs, periodMs);
+        }
+        long elapsedWindows = (nowMs - state[offset + WINDOW_START]) / periodMs;
+        if (elapsedWindows >= 1) {
+            state[offset + PREVIOUS] = elapsedWindows == 1 ? state[offset + CURRENT] : 0;
+            state[offset + CURRENT] = 0;
+            state[offset + WINDOW_START] += elapsedWindows * periodMs;
+        }
+
+        long windowStart = state[offset + WINDOW_START];
+        long current = state[offset + CURRENT];
+        long previous = state[offset + PREVIOUS];
+        double weight = 1.0 - (double) (nowMs - windowStart) / periodMs;
+        double estimate = previous * weight + current;
+
+        boolean allowed = estimate + 1 <= limit;
+        if (allowed) {
+            state[offset + CURRENT] = current + 1;
+            estimate += 1;
+        }
+        recordSlidingWindow(limit, periodMs, windowStart, current, previous, estimate, nowMs, allowed);
+        return allowed;
+    }
+
+    /**
+     * Record a weighted two-window decision (shared with the cluster-wide windows in
+     * {@link ClusterRateLimiter}).
+     *
+     * @param estimate weighted count, including this request if it was allowed
+     */
+    static void recordSlidingWindow(int limit, long periodMs, long windowStart, long current, long previous,
+            double estimate, long nowMs, boolean allowed) {
+        long resetMs = windowStart + periodMs - nowMs;
+        long retryAfterMs = 0;
+        if (!allowed) {
+            if (current + 1 > limit || previous == 0) {
+                retryAfterMs = resetMs;
+            } else {
+                // Wait until the previous window's weight has decayed enough for one more request
+                double maxWeight = (double) (limit - 1 - current) / previous;
+                retryAfterMs = (long) Math.ceil(windowStart + periodMs * (1.0 - maxWeight) - nowMs);
+            }
+            retryAfterMs = Math.max(retryAfterMs, 1);
+        }
+        outcome().record(limit, (int) Math.max(0, Math.floor(limit - estimate)), resetMs, retryAfterMs, allowed);
+    }
+
+    /**
+     * Combined verdict of every rule applied to one request: rejected if any rule rejected, with
+     * headers describing the most restrictive rule.
+     */
+    static final class Outcome {
+        boolean evaluated;
+        boolean rejected;
+        int limit;
+        int remaining;
+        long resetMs;
+        long retryAfterMs;
+
+        void reset() {
+            evaluated = false;
+            rejected = false;
+            limit = 0;
+            remaining = Integer.MAX_VALUE;
+            resetMs = 0;
+            retryAfterMs = 0;
+        }
+
+        void record(int ruleLimit, int ruleRemaining, long ruleResetMs, long ruleRetryAfterMs, boolean allowed) {
+            evaluated = true;
+            if (!allowed) {
+                rejected = true;
+                retryAfterMs = Math.max(retryAfterMs, ruleRetryAfterMs);
+            }
+            if (ruleRemaining < remaining || (ruleRemaining == remaining && ruleResetMs > resetMs)) {
+                limit = ruleLimit;
+                remaining = ruleRemaining;
+                resetMs = ruleResetMs;
+            }
+        }
+    }
+}
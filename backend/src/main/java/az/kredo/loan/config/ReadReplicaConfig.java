@@ -0,0 +1,110 @@
+package az.kredo.loan.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read replica routing. When enabled, the application DataSource becomes a lazy proxy over
+ * {@link ReplicaRoutingDataSource}: read-only transactions go to the replica pools, everything
+ * else (and Flyway) to the primary pool built from spring.datasource.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "kredo.datasource.read-replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Value("${kredo.datasource.read-replicas.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${kredo.datasource.read-replicas.read-your-writes-ms:5000}")
+    private long readYourWritesMs;
+
+    @Value("${kredo.datasource.read-replicas.max-lag-ms:2000}")
+    private long maxLagMs;
+
+    @Value("${kredo.datasource.read-replicas.max-tracked-principals:100000}")
+    private int maxTrackedPrincipals;
+
+    @Value("${kredo.datasource.read-replicas.lag-query}")
+    private String lagQuery;
+
+    private final List<HikariDataSource> replicaPools = new ArrayList<>();
+    private ReplicaRoutingDataSource routingDataSource;
+
+    /**
+     * Bound to spring.datasource.hikari like Boot's own pool, so its settings survive enabling
+     * replicas.
+     */
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Replica pools take spring.datasource.hikari, then kredo.datasource.read-replicas.hikari on
+     * top, so they are sized like the primary unless configured otherwise.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+            Environment environment) {
+        Binder binder = Binder.get(environment);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String name = "replica-" + (i + 1);
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(replicaUrls.get(i).trim())
+                    .build();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            binder.bind("kredo.datasource.read-replicas.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName(name);
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+            replicaPools.add(replica);
+        }
+
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas,
+                readYourWritesMs, maxLagMs, maxTrackedPrincipals, lagQuery);
+        log.info("Read replica routing enabled with {} replica(s)", replicas.size());
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @PreDestroy
+    public void closeReplicaPools() {
+        replicaPools.forEach(HikariDataSource::close);
+    }
+
+    @Scheduled(fixedDelayString = "${kredo.datasource.read-replicas.lag-check-interval-ms:1000}")
+    public void checkReplicaLag() {
+        if (routingDataSource != null) {
+            routingDataSource.checkReplicaLag();
+        }
+    }
+}
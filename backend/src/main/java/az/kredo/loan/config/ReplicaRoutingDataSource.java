@@ -0,0 +1,162 @@
+package az.kredo.loan.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions to healthy read replicas and everything else to the primary.
+ * A principal that wrote recently keeps reading from the primary for a short window so it
+ * always sees its own writes. Replicas whose lag exceeds the threshold are skipped.
+ *
+ * Must be wrapped in a LazyConnectionDataSourceProxy so the connection is fetched after the
+ * transaction's read-only flag has been set.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final List<Replica> replicas;
+    private final long readYourWritesNanos;
+    private final long maxLagMs;
+    private final int maxTrackedPrincipals;
+    private final String lagQuery;
+
+    private final Map<String, Long> lastWriteByPrincipal = new ConcurrentHashMap<>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicaDataSources,
+            long readYourWritesMillis, long maxLagMs, int maxTrackedPrincipals, String lagQuery) {
+        this.replicas = replicaDataSources.entrySet().stream()
+                .map(e -> new Replica(e.getKey(), e.getValue()))
+                .toList();
+        this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesMillis);
+        this.maxLagMs = maxLagMs;
+        this.maxTrackedPrincipals = maxTrackedPrincipals;
+        this.lagQuery = lagQuery;
+
+        Map<Object, Object> targets = new HashMap<>(replicaDataSources);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+
+        String principal = currentPrincipal();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWrite(principal);
+            return PRIMARY;
+        }
+
+        if (principal != null && wroteRecently(principal)) {
+            return PRIMARY;
+        }
+
+        int size = replicas.size();
+        int start = Math.floorMod(roundRobin.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * Probes every replica with the configured lag query and marks it unhealthy when it lags
+     * behind by more than the threshold or cannot be reached. Also prunes expired write markers.
+     */
+    public void checkReplicaLag() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.dataSource.getConnection();
+                    Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery(lagQuery)) {
+                long lagMs = rs.next() ? rs.getLong(1) : Long.MAX_VALUE;
+                replica.lagMs = lagMs;
+                replica.healthy = lagMs <= maxLagMs;
+            } catch (Exception e) {
+                replica.lagMs = Long.MAX_VALUE;
+                replica.healthy = false;
+                log.debug("Replica {} lag check failed: {}", replica.name, e.getMessage());
+            }
+            if (wasHealthy != replica.healthy) {
+                log.warn("Replica {} is now {} (lag: {} ms)", replica.name,
+                        replica.healthy ? "healthy" : "unhealthy", replica.lagMs);
+            }
+        }
+        pruneWriteMarkers();
+    }
+
+    public boolean isReplicaHealthy(String name) {
+        return replicas.stream().anyMatch(r -> r.name.equals(name) && r.healthy);
+    }
+
+    private void recordWrite(String principal) {
+        if (principal == null) {
+            return;
+        }
+        if (lastWriteByPrincipal.size() >= maxTrackedPrincipals) {
+            pruneWriteMarkers();
+        }
+        lastWriteByPrincipal.put(principal, System.nanoTime());
+    }
+
+    private boolean wroteRecently(String principal) {
+        Long lastWrite = lastWriteByPrincipal.get(principal);
+        return lastWrite != null && System.nanoTime() - lastWrite < readYourWritesNanos;
+    }
+
+    private void pruneWriteMarkers() {
+        long now = System.nanoTime();
+        lastWriteByPrincipal.values().removeIf(lastWrite -> now - lastWrite >= readYourWritesNanos);
+        if (lastWriteByPrincipal.size() >= maxTrackedPrincipals) {
+            // Still full of fresh markers: forget them rather than grow without bound.
+            // Worst case a principal reads one slightly stale row from a replica.
+            lastWriteByPrincipal.clear();
+        }
+    }
+
+    private String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long lagMs = Long.MAX_VALUE;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
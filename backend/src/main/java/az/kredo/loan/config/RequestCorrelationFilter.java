@@ -1,12 +1,16 @@
 package az.kredo.loan.config;
 
+import az.kredo.loan.support.ServerTiming;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -17,13 +21,34 @@ import java.util.UUID;
  * Filter that ensures every request has a correlation ID for tracing.
  * Reads X-Request-Id from incoming request or generates one if missing.
  * Adds the ID to MDC for logging and response header.
+ *
+ * With kredo.server-timing.enabled it also opens the request's {@link ServerTiming} ledger and
+ * reports it in one log line for requests slower than kredo.server-timing.slow-request-ms.
+ * kredo.server-timing.header-enabled also sends it in a Server-Timing header, written just before
+ * the response commits. The header reaches every caller, so it stays off outside development.
  */
+@Slf4j
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE)
 public class RequestCorrelationFilter extends OncePerRequestFilter {
 
     public static final String REQUEST_ID_HEADER = "X-Request-Id";
     public static final String MDC_REQUEST_ID = "requestId";
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final boolean serverTimingEnabled;
+    private final boolean headerEnabled;
+    private final long slowRequestNanos;
+
+    public RequestCorrelationFilter(
+            @Value("${kredo.server-timing.enabled:true}") boolean serverTimingEnabled,
+            @Value("${kredo.server-timing.header-enabled:false}") boolean headerEnabled,
+            @Value("${kredo.server-timing.slow-request-ms:1000}") long slowRequestMs) {
+        this.serverTimingEnabled = serverTimingEnabled;
+        this.headerEnabled = headerEnabled;
+        this.slowRequestNanos = slowRequestMs * 1_000_000;
+        ServerTiming.setEnabled(serverTimingEnabled);
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -42,9 +67,58 @@ public class RequestCorrelationFilter extends OncePerRequestFilter {
         response.setHeader(REQUEST_ID_HEADER, requestId);
 
         try {
-            filterChain.doFilter(request, response);
+            if (serverTimingEnabled) {
+                doFilterTimed(request, response, filterChain);
+            } else {
+                filterChain.doFilter(request, response);
+            }
         } finally {
             MDC.remove(MDC_REQUEST_ID);
         }
     }
+
+    private void doFilterTimed(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ServerTiming.Ledger ledger = ServerTiming.open();
+        ServerTimingResponse timedResponse = headerEnabled ? new ServerTimingResponse(response, ledger) : null;
+        try {
+            filterChain.doFilter(request, timedResponse != null ? timedResponse : response);
+        } finally {
+            if (timedResponse != null) {
+                timedResponse.writeHeader();
+            }
+            long totalNanos = ledger.elapsedNanos();
+            if (totalNanos >= slowRequestNanos) {
+                log.info("Slow request method={} uri={} status={} {}", request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), ledger.toLogFields(totalNanos));
+            }
+            ServerTiming.close(ledger);
+        }
+    }
+
+    /**
+     * Adds the Server-Timing header at the last moment headers can still change.
+     */
+    private static final class ServerTimingResponse extends OnCommittedResponseWrapper {
+
+        private final ServerTiming.Ledger ledger;
+        private boolean headerWritten;
+
+        ServerTimingResponse(HttpServletResponse response, ServerTiming.Ledger ledger) {
+            super(response);
+            this.ledger = ledger;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeader();
+        }
+
+        void writeHeader() {
+            if (!headerWritten && !isCommitted()) {
+                headerWritten = true;
+                setHeader(SERVER_TIMING_HEADER, ledger.toHeader());
+            }
+        }
+    }
 }
@@ -35,9 +35,12 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // Public endpoints
                         .requestMatchers("/api/v1/kredo-ms/otp-service/**").permitAll()
+                        .requestMatchers("/api/v1/kredo-ms/token/refresh").permitAll()
                         .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/api-docs/**", "/v3/api-docs/**")
                         .permitAll()
                         .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                        // Served only on management.server.port, which is not published
+                        .requestMatchers("/actuator/prometheus").permitAll()
                         // Protected endpoints
                         .requestMatchers("/api/v1/kredo-ms/loan-application/**").authenticated()
                         .anyRequest().authenticated())
@@ -41,7 +41,7 @@ public class LoanApplicationController {
                         Authentication authentication) {
 
                 String authenticatedPhone = (String) authentication.getPrincipal();
-                log.info("Loan application received");
+                log.debug("Loan application received");
 
                 ApplyToLoanResponse response = loanApplicationService.applyToLoan(request, authenticatedPhone);
                 return ResponseEntity.ok(response);
@@ -62,7 +62,7 @@ public class LoanApplicationController {
                         Authentication authentication) {
 
                 String authenticatedPhone = (String) authentication.getPrincipal();
-                log.info("Requested amount submission for application: {}", applicationId);
+                log.debug("Requested amount submission for application: {}", applicationId);
 
                 SubmitAmountResponse response = loanApplicationService.submitRequestedAmount(
                                 applicationId, request, authenticatedPhone);
@@ -111,7 +111,7 @@ public class LoanApplicationController {
                         Authentication authentication) {
 
                 String authenticatedPhone = (String) authentication.getPrincipal();
-                log.info("Result requested for application: {}", applicationId);
+                log.debug("Result requested for application: {}", applicationId);
 
                 LoanResultResponse response = loanApplicationService.getResult(applicationId, authenticatedPhone);
                 return ResponseEntity.ok(response);
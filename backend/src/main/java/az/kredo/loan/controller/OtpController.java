@@ -34,7 +34,7 @@ public class OtpController {
             @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
     })
     public ResponseEntity<GenerateOtpResponse> generateOtp(@Valid @RequestBody GenerateOtpRequest request) {
-        log.info("OTP generation requested for channel: {}", request.getChannel());
+        log.debug("OTP generation requested for channel: {}", request.getChannel());
         GenerateOtpResponse response = otpService.generateOtp(request);
         return ResponseEntity.ok(response);
     }
@@ -47,7 +47,7 @@ public class OtpController {
             @ApiResponse(responseCode = "429", description = "Too many attempts")
     })
     public ResponseEntity<VerifyOtpResponse> verifyOtp(@Valid @RequestBody VerifyOtpRequest request) {
-        log.info("OTP verification requested for requestId: {}", request.getRequestId());
+        log.debug("OTP verification requested for requestId: {}", request.getRequestId());
         VerifyOtpResponse response = otpService.verifyOtp(request);
         return ResponseEntity.ok(response);
     }
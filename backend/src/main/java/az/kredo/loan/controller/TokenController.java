@@ -0,0 +1,77 @@
+package az.kredo.loan.controller;
+
+import az.kredo.loan.dto.token.RefreshTokenRequest;
+import az.kredo.loan.dto.token.RefreshTokenResponse;
+import az.kredo.loan.security.TokenRevocationService;
+import az.kredo.loan.security.VerifiedToken;
+import az.kredo.loan.service.RefreshTokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/kredo-ms/token")
+@RequiredArgsConstructor
+@Tag(name = "Token Controller", description = "Access token renewal and revocation")
+public class TokenController {
+
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
+
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh tokens", description = "Exchange a refresh token for a new access token and refresh token")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Tokens refreshed", content = @Content(schema = @Schema(implementation = RefreshTokenResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Refresh token invalid, expired or already used"),
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
+    })
+    public ResponseEntity<RefreshTokenResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        RefreshTokenResponse response = refreshTokenService.refresh(request.getRefreshToken());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/logout")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Logout", description = "Revoke the access token sent with this request")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Access token revoked"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<Void> logout(Authentication authentication) {
+        VerifiedToken token = (VerifiedToken) authentication.getCredentials();
+        if (token.tokenId() != null) {
+            tokenRevocationService.revokeToken(token.tokenId(), token.expiresAt());
+        } else {
+            // Issued before tokens carried a jti: revoke by issue time instead
+            tokenRevocationService.revokePhone(token.phoneNumber(), token.issuedAt());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/logout-all")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Logout everywhere", description = "Revoke every access and refresh token issued to the authenticated phone number")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "All tokens revoked"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<Void> logoutAll(Authentication authentication) {
+        String authenticatedPhone = (String) authentication.getPrincipal();
+        log.info("Revoking all tokens for phone: [MASKED]");
+        tokenRevocationService.revokePhone(authenticatedPhone, Instant.now());
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,5 +1,6 @@
 package az.kredo.loan.dto.otp;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,12 +13,19 @@ import java.util.UUID;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Schema(description = "Response after OTP generation")
 public class GenerateOtpResponse {
 
     @Schema(description = "Request ID to use for verification", example = "123e4567-e89b-12d3-a456-426614174000")
     private UUID requestId;
 
+    @Schema(description = "Sealed request token to send back on verification (stateless OTP mode only)")
+    private String requestToken;
+
     @Schema(description = "Time-to-live for the OTP in seconds", example = "120")
     private int ttlSeconds;
+
+    @Schema(description = "Seconds until a new OTP can be sent to this phone", example = "30")
+    private Integer resendAvailableInSeconds;
 }
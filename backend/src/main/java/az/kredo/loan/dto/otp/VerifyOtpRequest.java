@@ -28,6 +28,10 @@ public class VerifyOtpRequest {
     @NotNull(message = "Request ID is required")
     private UUID requestId;
 
+    @Schema(description = "Request token from generate-otp response (stateless OTP mode only)")
+    @Size(max = 512, message = "Request token is too long")
+    private String requestToken;
+
     @Schema(description = "6-digit OTP code", example = "123456")
     @NotBlank(message = "OTP code is required")
     @Size(min = 6, max = 6, message = "OTP code must be exactly 6 digits")
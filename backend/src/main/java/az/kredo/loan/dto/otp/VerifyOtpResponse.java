@@ -22,6 +22,9 @@ public class VerifyOtpResponse {
     @Schema(description = "Token expiration time in seconds", example = "900")
     private int expiresInSeconds;
 
+    @Schema(description = "Refresh token for POST /token/refresh once the access token expires")
+    private String refreshToken;
+
     @Schema(description = "Personal data fetched from ASAN (IAMAS)")
     private PersonalDataDto personalData;
 }
@@ -0,0 +1,22 @@
+package az.kredo.loan.dto.token;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request to exchange a refresh token for new tokens")
+public class RefreshTokenRequest {
+
+    @Schema(description = "Refresh token from verify-otp or the previous refresh")
+    @NotBlank(message = "Refresh token is required")
+    @Size(max = 128, message = "Refresh token is too long")
+    private String refreshToken;
+}
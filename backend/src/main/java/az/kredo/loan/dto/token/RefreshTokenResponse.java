@@ -0,0 +1,24 @@
+package az.kredo.loan.dto.token;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "New token pair; the presented refresh token can no longer be used")
+public class RefreshTokenResponse {
+
+    @Schema(description = "JWT access token for authenticated requests", example = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9...")
+    private String accessToken;
+
+    @Schema(description = "Access token expiration time in seconds", example = "900")
+    private int expiresInSeconds;
+
+    @Schema(description = "Refresh token for the next refresh")
+    private String refreshToken;
+}
@@ -0,0 +1,40 @@
+package az.kredo.loan.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Progress of a resumable background job that walks a table in primary key order. The job
+ * restarts from the beginning whenever its target changes.
+ */
+@Entity
+@Table(name = "batch_job_checkpoints")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJobCheckpoint {
+
+    @Id
+    @Column(name = "job_name", length = 50)
+    private String jobName;
+
+    @Column(name = "target", length = 50)
+    private String target;
+
+    @Column(name = "last_id")
+    private UUID lastId;
+
+    @Column(name = "processed", nullable = false)
+    private long processed;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,32 @@
+package az.kredo.loan.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A field encryption data key, stored only wrapped (AES-GCM) under the named master key.
+ */
+@Entity
+@Table(name = "data_encryption_keys")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataEncryptionKey {
+
+    @Id
+    @Column(name = "version")
+    private Integer version;
+
+    @Column(name = "wrapped_key", nullable = false, length = 128)
+    private String wrappedKey;
+
+    @Column(name = "master_key_id", nullable = false, length = 50)
+    private String masterKeyId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
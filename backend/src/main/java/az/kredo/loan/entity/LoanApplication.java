@@ -1,5 +1,6 @@
 package az.kredo.loan.entity;
 
+import az.kredo.loan.security.BlindIndexer;
 import az.kredo.loan.security.FieldEncryptor;
 import jakarta.persistence.*;
 import lombok.*;
@@ -38,6 +39,10 @@ public class LoanApplication {
     @Column(name = "fin_encrypted", nullable = false)
     private String finEncrypted;
 
+    // Keyed HMAC of the normalized FIN, for lookups without decrypting
+    @Column(name = "fin_index", length = 64)
+    private String finIndex;
+
     @Column(name = "date_of_birth", nullable = false)
     private LocalDate dateOfBirth;
 
@@ -55,6 +60,9 @@ public class LoanApplication {
     @Column(name = "address_encrypted", nullable = false)
     private String addressEncrypted;
 
+    @Column(name = "address_index", length = 64)
+    private String addressIndex;
+
     @Column(name = "terms_accepted", nullable = false)
     @Builder.Default
     private Boolean termsAccepted = false;
@@ -79,6 +87,10 @@ public class LoanApplication {
     @Builder.Default
     private ApplicationStatus status = ApplicationStatus.INFO_SUBMITTED;
 
+    /** When the application entered its current status; null on rows older than V10. */
+    @Column(name = "status_changed_at")
+    private Instant statusChangedAt;
+
     @Column(name = "score")
     private Integer score;
 
@@ -110,6 +122,9 @@ public class LoanApplication {
         if (createdAt == null) {
             createdAt = now;
         }
+        if (statusChangedAt == null) {
+            statusChangedAt = createdAt;
+        }
         updatedAt = now;
     }
 
@@ -127,11 +142,12 @@ public class LoanApplication {
     private String address;
 
     /**
-     * Encrypts and stores the FIN
+     * Encrypts and stores the FIN along with its blind index
      */
-    public void setFin(String fin, FieldEncryptor encryptor) {
+    public void setFin(String fin, FieldEncryptor encryptor, BlindIndexer indexer) {
         this.fin = fin;
         this.finEncrypted = encryptor.encrypt(fin);
+        this.finIndex = indexer.finIndex(fin);
     }
 
     /**
@@ -145,11 +161,12 @@ public class LoanApplication {
     }
 
     /**
-     * Encrypts and stores the address
+     * Encrypts and stores the address along with its blind index
      */
-    public void setAddress(String address, FieldEncryptor encryptor) {
+    public void setAddress(String address, FieldEncryptor encryptor, BlindIndexer indexer) {
         this.address = address;
         this.addressEncrypted = encryptor.encrypt(address);
+        this.addressIndex = indexer.addressIndex(address);
     }
 
     /**
@@ -3,6 +3,7 @@ package az.kredo.loan.exception;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -35,6 +36,12 @@ public class GlobalExceptionHandler {
                 .build();
 
         HttpStatus status = determineStatus(ex.getErrorCode());
+        if (ex instanceof OtpException otpException && otpException.getRetryAfterSeconds() != null) {
+            error.setDetails(Map.of("retryAfterSeconds", otpException.getRetryAfterSeconds()));
+            return ResponseEntity.status(status)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(otpException.getRetryAfterSeconds()))
+                    .body(error);
+        }
         return ResponseEntity.status(status).body(error);
     }
 
@@ -150,10 +157,12 @@ public class GlobalExceptionHandler {
     private HttpStatus determineStatus(String errorCode) {
         return switch (errorCode) {
             case "APPLICATION_NOT_FOUND", "OTP_NOT_FOUND" -> HttpStatus.NOT_FOUND;
-            case "UNAUTHORIZED", "PHONE_NOT_VERIFIED" -> HttpStatus.UNAUTHORIZED;
+            case "UNAUTHORIZED", "PHONE_NOT_VERIFIED", "REFRESH_TOKEN_INVALID", "REFRESH_TOKEN_REUSED" ->
+                    HttpStatus.UNAUTHORIZED;
             case "ACCESS_DENIED" -> HttpStatus.FORBIDDEN;
-            case "OTP_LOCKED", "OTP_MAX_ATTEMPTS" -> HttpStatus.TOO_MANY_REQUESTS;
+            case "OTP_LOCKED", "OTP_MAX_ATTEMPTS", "OTP_RESEND_LIMIT" -> HttpStatus.TOO_MANY_REQUESTS;
             case "DUPLICATE_APPLICATION", "INVALID_STATUS" -> HttpStatus.CONFLICT;
+            case "OTP_STORE_FULL", "OTP_DELIVERY_UNAVAILABLE" -> HttpStatus.SERVICE_UNAVAILABLE;
             default -> HttpStatus.BAD_REQUEST;
         };
     }
@@ -1,8 +1,19 @@
 package az.kredo.loan.exception;
 
+import lombok.Getter;
+
+@Getter
 public class OtpException extends BusinessException {
+    /** Seconds until the request may be repeated, or null if waiting does not help. */
+    private final Integer retryAfterSeconds;
+
     public OtpException(String errorCode, String message) {
+        this(errorCode, message, null);
+    }
+
+    public OtpException(String errorCode, String message, Integer retryAfterSeconds) {
         super(errorCode, message);
+        this.retryAfterSeconds = retryAfterSeconds;
     }
 
     public static OtpException expired() {
@@ -22,6 +33,19 @@ public class OtpException extends BusinessException {
         return new OtpException("OTP_LOCKED", "Too many failed attempts. Please wait before trying again.");
     }
 
+    public static OtpException alreadyVerified() {
+        return new OtpException("OTP_ALREADY_VERIFIED", "This OTP has already been verified.");
+    }
+
+    public static OtpException resendLimited(int retryAfterSeconds) {
+        return new OtpException("OTP_RESEND_LIMIT",
+                "Too many OTP requests for this phone number. Please try again later.", retryAfterSeconds);
+    }
+
+    public static OtpException deliveryUnavailable() {
+        return new OtpException("OTP_DELIVERY_UNAVAILABLE", "OTP service is busy. Please try again shortly.");
+    }
+
     public static OtpException notFound() {
         return new OtpException("OTP_NOT_FOUND", "OTP request not found. Please request a new OTP.");
     }
@@ -0,0 +1,17 @@
+package az.kredo.loan.exception;
+
+public class TokenException extends BusinessException {
+    public TokenException(String errorCode, String message) {
+        super(errorCode, message);
+    }
+
+    public static TokenException invalidRefreshToken() {
+        return new TokenException("REFRESH_TOKEN_INVALID",
+                "Refresh token is invalid or has expired. Please verify your phone number again.");
+    }
+
+    public static TokenException refreshTokenReused() {
+        return new TokenException("REFRESH_TOKEN_REUSED",
+                "Refresh token has already been used. Please verify your phone number again.");
+    }
+}
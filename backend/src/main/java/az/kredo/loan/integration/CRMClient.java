@@ -6,6 +6,9 @@ import java.util.concurrent.CompletableFuture;
 /**
  * Interface for CRM integration.
  * Designed for async processing to avoid blocking the main request flow.
+ * Implementations should complete their futures on the crm executor
+ * ({@link az.kredo.loan.config.AsyncExecutorConfig#CRM_EXECUTOR}) rather than the common pool,
+ * so that calls are bounded, measured and keep the request's MDC.
  */
 public interface CRMClient {
 
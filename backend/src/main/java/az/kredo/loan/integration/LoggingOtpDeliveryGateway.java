@@ -0,0 +1,39 @@
+package az.kredo.loan.integration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Development gateway that "delivers" OTP codes to the application log.
+ * In production, replace this with a real SMS/e-mail provider integration.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kredo.otp.delivery.gateway", havingValue = "log", matchIfMissing = true)
+public class LoggingOtpDeliveryGateway implements OtpDeliveryGateway {
+
+    @Override
+    public boolean supports(String channel) {
+        return true;
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return 100;
+    }
+
+    @Override
+    public List<OtpMessage> send(List<OtpMessage> messages) {
+        for (OtpMessage message : messages) {
+            log.info("========================================");
+            log.info("  DEV MODE - OTP CODE: {}  ", message.code());
+            log.info("  {}: {}  ", message.channel(), message.recipient());
+            log.info("  Request ID: {}  ", message.requestId());
+            log.info("========================================");
+        }
+        return List.of();
+    }
+}
@@ -1,17 +1,21 @@
 package az.kredo.loan.integration;
 
+import az.kredo.loan.config.AsyncExecutorConfig;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Mock CRM client that simulates real CRM behavior with artificial delays.
  * In production, replace this with actual CRM integration.
+ * Calls run on the crm executor, so their log lines keep the request's requestId.
  */
 @Slf4j
 @Component
@@ -20,10 +24,16 @@ public class MockCRMClient implements CRMClient {
     private static final int MIN_DELAY_MS = 50;
     private static final int MAX_DELAY_MS = 150;
 
+    private final Executor crmExecutor;
+
+    public MockCRMClient(@Qualifier(AsyncExecutorConfig.CRM_EXECUTOR) Executor crmExecutor) {
+        this.crmExecutor = crmExecutor;
+    }
+
     @Override
     public CompletableFuture<PushResult> pushApplication(String applicationId, String phoneNumber,
             String firstName, String lastName) {
-        log.info("Mock CRM: Pushing application {} to CRM", applicationId);
+        log.debug("Mock CRM: Pushing application {} to CRM", applicationId);
 
         return CompletableFuture.supplyAsync(() -> {
             try {
@@ -34,7 +44,7 @@ public class MockCRMClient implements CRMClient {
                 // Generate a mock CRM reference ID
                 String crmReferenceId = "CRM-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
 
-                log.info("Mock CRM: Application {} pushed successfully, CRM ref: {}",
+                log.debug("Mock CRM: Application {} pushed successfully, CRM ref: {}",
                         applicationId, crmReferenceId);
 
                 return PushResult.success(crmReferenceId);
@@ -44,12 +54,12 @@ public class MockCRMClient implements CRMClient {
                 log.error("Mock CRM: Push interrupted for application {}", applicationId);
                 return PushResult.failure("CRM push interrupted");
             }
-        });
+        }, crmExecutor);
     }
 
     @Override
     public CompletableFuture<CustomerFlags> fetchCustomerFlags(String phoneNumber) {
-        log.info("Mock CRM: Fetching customer flags for phone [MASKED]");
+        log.debug("Mock CRM: Fetching customer flags for phone [MASKED]");
 
         return CompletableFuture.supplyAsync(() -> {
             try {
@@ -74,8 +84,11 @@ public class MockCRMClient implements CRMClient {
                     specialPrograms = List.of();
                 }
 
-                log.info("Mock CRM: Customer flags fetched - existing: {}, activeLoans: {}, tier: {}",
-                        existingCustomer, hasActiveLoans, creditTier);
+                if (log.isDebugEnabled()) {
+                    // Three arguments go through varargs and boxing; skip that unless it is logged
+                    log.debug("Mock CRM: Customer flags fetched - existing: {}, activeLoans: {}, tier: {}",
+                            existingCustomer, hasActiveLoans, creditTier);
+                }
 
                 return new CustomerFlags(existingCustomer, hasActiveLoans, hasDefaultHistory,
                         creditTier, specialPrograms);
@@ -85,6 +98,6 @@ public class MockCRMClient implements CRMClient {
                 log.error("Mock CRM: Fetch interrupted for phone [MASKED]");
                 return CustomerFlags.newCustomer();
             }
-        });
+        }, crmExecutor);
     }
 }
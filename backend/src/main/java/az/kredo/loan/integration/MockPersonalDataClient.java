@@ -0,0 +1,43 @@
+package az.kredo.loan.integration;
+
+import az.kredo.loan.dto.otp.PersonalDataDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mock ASAN/IAMAS client that returns fixed data after a simulated registry delay.
+ * In production, replace this with the actual registry integration.
+ */
+@Slf4j
+@Component
+public class MockPersonalDataClient implements PersonalDataClient {
+
+    private static final int MIN_DELAY_MS = 50;
+    private static final int MAX_DELAY_MS = 150;
+
+    @Override
+    public CompletableFuture<PersonalDataDto> fetchPersonalData(String phoneNumber) {
+        log.info("Mock ASAN: Fetching personal data for phone [MASKED]");
+
+        // Simulate network delay without parking a pool thread
+        int delay = ThreadLocalRandom.current().nextInt(MIN_DELAY_MS, MAX_DELAY_MS + 1);
+        Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS);
+
+        return CompletableFuture.supplyAsync(() -> PersonalDataDto.builder()
+                .firstName("Turan")
+                .lastName("Aliyev")
+                .fin("7ABC123")
+                .dateOfBirth(LocalDate.of(1990, 5, 10))
+                .address("Bakı, Nəsimi rayonu, mənzil 42")
+                .employmentStatus("EMPLOYED")
+                .monthlyIncome(3000.0)
+                .existingMonthlyDebt(100.0)
+                .build(), delayed);
+    }
+}
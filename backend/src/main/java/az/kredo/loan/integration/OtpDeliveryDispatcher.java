@@ -0,0 +1,225 @@
+package az.kredo.loan.integration;
+
+import az.kredo.loan.integration.OtpDeliveryGateway.OtpMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers OTP messages off the request path. generate-otp only enqueues; a small pool of worker
+ * threads drains the bounded queue, groups whatever has accumulated by gateway and sends it in
+ * batches of up to the gateway's maxBatchSize. Failed messages are retried with exponential
+ * backoff and jitter until max-retries or until the code expires, whichever comes first.
+ *
+ * When the queue is full, {@link #submit} refuses the message and the caller rejects the request
+ * instead of letting provider latency back up into the web threads.
+ */
+@Slf4j
+@Component
+public class OtpDeliveryDispatcher {
+
+    private static final List<String> CHANNELS = List.of("SMS", "EMAIL");
+    private static final int MAX_DRAIN = 500;
+
+    private final Map<String, OtpDeliveryGateway> gatewayByChannel = new HashMap<>();
+    private final BlockingQueue<Delivery> queue;
+    private final int workers;
+    private final int maxRetries;
+    private final long initialBackoffMs;
+
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "otp-delivery-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong abandoned = new AtomicLong();
+    private volatile boolean running;
+
+    public OtpDeliveryDispatcher(List<OtpDeliveryGateway> gateways,
+            @Value("${kredo.otp.delivery.queue-capacity:10000}") int queueCapacity,
+            @Value("${kredo.otp.delivery.workers:2}") int workers,
+            @Value("${kredo.otp.delivery.max-retries:3}") int maxRetries,
+            @Value("${kredo.otp.delivery.initial-backoff-ms:500}") long initialBackoffMs) {
+        for (String channel : CHANNELS) {
+            gateways.stream()
+                    .filter(gateway -> gateway.supports(channel))
+                    .findFirst()
+                    .ifPresent(gateway -> gatewayByChannel.put(channel, gateway));
+        }
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+        this.workers = Math.max(workers, 1);
+        this.maxRetries = maxRetries;
+        this.initialBackoffMs = initialBackoffMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::runWorker, "otp-delivery-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workerThreads.add(thread);
+        }
+        log.info("OTP delivery dispatcher started (workers: {}, queue capacity: {}, channels: {})",
+                workers, queue.remainingCapacity(), gatewayByChannel.keySet());
+    }
+
+    /**
+     * Whether a new message would currently be accepted. Checked before issuing an OTP so a
+     * saturated pipeline rejects the request before anything is stored.
+     */
+    public boolean hasCapacity(String channel) {
+        return running && gatewayByChannel.containsKey(channel) && queue.remainingCapacity() > 0;
+    }
+
+    /**
+     * Enqueue a message for delivery. Never blocks.
+     *
+     * @return false if the queue is full, the dispatcher is stopped or no gateway handles the channel
+     */
+    public boolean submit(OtpMessage message) {
+        if (!running || !gatewayByChannel.containsKey(message.channel())) {
+            return false;
+        }
+        return queue.offer(new Delivery(message, 0));
+    }
+
+    public int queueSize() {
+        return queue.size();
+    }
+
+    public long abandonedCount() {
+        return abandoned.get();
+    }
+
+    private void runWorker() {
+        List<Delivery> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Delivery first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_DRAIN - 1);
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("OTP delivery worker error", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void dispatch(List<Delivery> batch) {
+        Instant now = Instant.now();
+        Map<OtpDeliveryGateway, List<Delivery>> byGateway = new IdentityHashMap<>();
+        for (Delivery delivery : batch) {
+            if (!delivery.message().expiresAt().isAfter(now)) {
+                abandon(delivery, "expired before delivery");
+                continue;
+            }
+            byGateway.computeIfAbsent(gatewayByChannel.get(delivery.message().channel()), g -> new ArrayList<>())
+                    .add(delivery);
+        }
+
+        byGateway.forEach((gateway, deliveries) -> {
+            int chunkSize = Math.max(gateway.maxBatchSize(), 1);
+            for (int from = 0; from < deliveries.size(); from += chunkSize) {
+                send(gateway, deliveries.subList(from, Math.min(from + chunkSize, deliveries.size())));
+            }
+        });
+    }
+
+    private void send(OtpDeliveryGateway gateway, List<Delivery> chunk) {
+        List<OtpMessage> messages = chunk.stream().map(Delivery::message).toList();
+        List<OtpMessage> failed;
+        try {
+            failed = gateway.send(messages);
+        } catch (RuntimeException e) {
+            log.warn("OTP gateway {} failed for a batch of {}: {}",
+                    gateway.getClass().getSimpleName(), messages.size(), e.getMessage());
+            failed = messages;
+        }
+        if (failed == null || failed.isEmpty()) {
+            return;
+        }
+
+        Set<OtpMessage> failedSet = new HashSet<>(failed);
+        for (Delivery delivery : chunk) {
+            if (failedSet.contains(delivery.message())) {
+                retry(delivery);
+            }
+        }
+    }
+
+    private void retry(Delivery delivery) {
+        int attempt = delivery.attempt() + 1;
+        if (attempt > maxRetries) {
+            abandon(delivery, "retries exhausted");
+            return;
+        }
+
+        long backoffMs = initialBackoffMs << (attempt - 1);
+        long delayMs = backoffMs / 2 + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+        if (Instant.now().plusMillis(delayMs).isAfter(delivery.message().expiresAt())) {
+            abandon(delivery, "code expires before next retry");
+            return;
+        }
+
+        try {
+            retryScheduler.schedule(() -> {
+                if (!running || !queue.offer(new Delivery(delivery.message(), attempt))) {
+                    abandon(delivery, "queue full on retry");
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            abandon(delivery, "dispatcher stopped");
+        }
+    }
+
+    private void abandon(Delivery delivery, String reason) {
+        abandoned.incrementAndGet();
+        log.error("OTP delivery abandoned for request {} after {} attempt(s): {}",
+                delivery.message().requestId(), delivery.attempt() + 1, reason);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        retryScheduler.shutdownNow();
+        for (Thread thread : workerThreads) {
+            thread.join(5000);
+        }
+        if (!queue.isEmpty()) {
+            log.warn("OTP delivery dispatcher stopped with {} undelivered messages", queue.size());
+        }
+    }
+
+    private record Delivery(OtpMessage message, int attempt) {
+    }
+}
@@ -0,0 +1,38 @@
+package az.kredo.loan.integration;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * SPI for delivering OTP codes over SMS or e-mail. Called from the delivery dispatcher's worker
+ * threads, never on the request path, so implementations may block on the provider.
+ */
+public interface OtpDeliveryGateway {
+
+    /**
+     * Whether this gateway delivers over the given channel ("SMS" or "EMAIL").
+     */
+    boolean supports(String channel);
+
+    /**
+     * Largest batch the provider accepts in one call. 1 means no bulk API.
+     */
+    default int maxBatchSize() {
+        return 1;
+    }
+
+    /**
+     * Deliver a batch of at most {@link #maxBatchSize()} messages.
+     *
+     * @return the messages that failed and may be retried (empty when all were accepted);
+     *         throwing marks the whole batch as failed
+     */
+    List<OtpMessage> send(List<OtpMessage> messages);
+
+    /**
+     * A code to deliver. The code is plaintext and must never be logged outside dev stubs.
+     */
+    record OtpMessage(UUID requestId, String channel, String recipient, String code, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,20 @@
+package az.kredo.loan.integration;
+
+import az.kredo.loan.dto.otp.PersonalDataDto;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface for the ASAN/IAMAS personal-data registry.
+ * Asynchronous so the lookup can overlap with OTP verification.
+ */
+public interface PersonalDataClient {
+
+    /**
+     * Fetch registry data for a verified phone number.
+     *
+     * @param phoneNumber Customer phone number
+     * @return Registry data, or null if the registry has no record
+     */
+    CompletableFuture<PersonalDataDto> fetchPersonalData(String phoneNumber);
+}
@@ -0,0 +1,25 @@
+package az.kredo.loan.repository;
+
+import az.kredo.loan.entity.BatchJobCheckpoint;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BatchJobCheckpointRepository extends JpaRepository<BatchJobCheckpoint, String> {
+
+    /**
+     * Lock a job's checkpoint for the current transaction, or return empty if another node
+     * holds it (SKIP LOCKED), so only one node works on a job at a time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT c FROM BatchJobCheckpoint c WHERE c.jobName = :jobName")
+    Optional<BatchJobCheckpoint> lockByJobName(String jobName);
+}
@@ -0,0 +1,9 @@
+package az.kredo.loan.repository;
+
+import az.kredo.loan.entity.DataEncryptionKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataEncryptionKeyRepository extends JpaRepository<DataEncryptionKey, Integer> {
+}
@@ -31,6 +31,16 @@ public interface LoanApplicationRepository extends JpaRepository<LoanApplication
             "AND l.status NOT IN ('COMPLETED')")
     boolean hasActiveApplication(String phoneNumber);
 
+    /**
+     * Find all applications for a FIN by its blind index (see BlindIndexer)
+     */
+    List<LoanApplication> findByFinIndexOrderByCreatedAtDesc(String finIndex);
+
+    /**
+     * Find all applications for a normalized address by its blind index
+     */
+    List<LoanApplication> findByAddressIndexOrderByCreatedAtDesc(String addressIndex);
+
     /**
      * Find applications by status (for batch processing)
      */
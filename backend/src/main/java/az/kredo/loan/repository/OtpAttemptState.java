@@ -0,0 +1,9 @@
+package az.kredo.loan.repository;
+
+import java.time.Instant;
+
+/**
+ * Post-update state of an OTP request returned by the atomic attempt statement.
+ */
+public record OtpAttemptState(int attempts, String otpHash, Instant lockedUntil) {
+}
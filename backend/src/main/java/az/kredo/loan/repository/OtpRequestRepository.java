@@ -2,21 +2,24 @@ package az.kredo.loan.repository;
 
 import az.kredo.loan.entity.OtpRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface OtpRequestRepository extends JpaRepository<OtpRequest, UUID> {
+public interface OtpRequestRepository extends JpaRepository<OtpRequest, UUID>, OtpRequestRepositoryCustom {
 
     /**
-     * Find the most recent non-expired, non-verified OTP request for a phone number
+     * Find the most recent non-expired, non-verified, unlocked OTP request for a phone number
      */
     @Query("SELECT o FROM OtpRequest o WHERE o.phoneNumber = :phoneNumber " +
             "AND o.verified = false AND o.expiresAt > :now " +
+            "AND (o.lockedUntil IS NULL OR o.lockedUntil <= :now) " +
             "ORDER BY o.createdAt DESC LIMIT 1")
     Optional<OtpRequest> findLatestActiveByPhoneNumber(String phoneNumber, Instant now);
 
@@ -26,7 +29,11 @@ public interface OtpRequestRepository extends JpaRepository<OtpRequest, UUID> {
     Optional<OtpRequest> findById(UUID id);
 
     /**
-     * Delete expired OTP requests (for cleanup job)
+     * Flag a live, unverified OTP request as verified. Returns 0 if another request won the race.
      */
-    void deleteByExpiresAtBefore(Instant before);
+    @Transactional
+    @Modifying
+    @Query("UPDATE OtpRequest o SET o.verified = true " +
+            "WHERE o.id = :id AND o.verified = false AND o.expiresAt > :now")
+    int markVerified(UUID id, Instant now);
 }
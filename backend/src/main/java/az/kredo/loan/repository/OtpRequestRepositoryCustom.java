@@ -0,0 +1,18 @@
+package az.kredo.loan.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface OtpRequestRepositoryCustom {
+
+    /**
+     * Atomically count a verification attempt against a live OTP request and lock it once
+     * the attempt count exceeds maxAttempts. Only rows that match the phone number and are
+     * not verified, expired or locked are touched.
+     *
+     * @return the post-update state, or empty if no eligible row matched
+     */
+    Optional<OtpAttemptState> registerAttempt(UUID id, String phoneNumber, Instant now,
+            int maxAttempts, Instant lockUntil);
+}
@@ -0,0 +1,63 @@
+package az.kredo.loan.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Single-statement attempt accounting for otp_requests. PostgreSQL returns the updated row
+ * via UPDATE ... RETURNING; H2 (used in tests) offers the same through a FINAL TABLE query.
+ */
+@RequiredArgsConstructor
+public class OtpRequestRepositoryImpl implements OtpRequestRepositoryCustom {
+
+    private static final String ATTEMPT_UPDATE = "UPDATE otp_requests " +
+            "SET attempts = attempts + 1, " +
+            "locked_until = CASE WHEN attempts + 1 > ? THEN ? ELSE locked_until END " +
+            "WHERE id = ? AND phone_number = ? AND verified = FALSE AND expires_at > ? " +
+            "AND (locked_until IS NULL OR locked_until <= ?)";
+
+    private static final String POSTGRES_SQL = ATTEMPT_UPDATE + " RETURNING attempts, otp_hash, locked_until";
+
+    private static final String H2_SQL = "SELECT attempts, otp_hash, locked_until FROM FINAL TABLE (" +
+            ATTEMPT_UPDATE + ")";
+
+    private static final RowMapper<OtpAttemptState> STATE_MAPPER = (rs, rowNum) -> {
+        Timestamp lockedUntil = rs.getTimestamp("locked_until");
+        return new OtpAttemptState(
+                rs.getInt("attempts"),
+                rs.getString("otp_hash"),
+                lockedUntil != null ? lockedUntil.toInstant() : null);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile String attemptSql;
+
+    @Override
+    public Optional<OtpAttemptState> registerAttempt(UUID id, String phoneNumber, Instant now,
+            int maxAttempts, Instant lockUntil) {
+        Timestamp nowTs = Timestamp.from(now);
+        List<OtpAttemptState> rows = jdbcTemplate.query(attemptSql(), STATE_MAPPER,
+                maxAttempts, Timestamp.from(lockUntil), id, phoneNumber, nowTs, nowTs);
+        return rows.stream().findFirst();
+    }
+
+    private String attemptSql() {
+        String sql = attemptSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            sql = "H2".equalsIgnoreCase(product) ? H2_SQL : POSTGRES_SQL;
+            attemptSql = sql;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,49 @@
+package az.kredo.loan.repository;
+
+import az.kredo.loan.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+    /**
+     * Mark a live, unused refresh token as used. Returns 0 if it was used concurrently.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.usedAt = :now " +
+            "WHERE r.id = :id AND r.usedAt IS NULL AND r.revoked = false AND r.expiresAt > :now")
+    int markUsed(UUID id, Instant now);
+
+    /**
+     * Revoke every token of a rotation family.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.familyId = :familyId AND r.revoked = false")
+    int revokeFamily(UUID familyId);
+
+    /**
+     * Revoke every refresh token of a phone number.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.phoneNumber = :phoneNumber AND r.revoked = false")
+    int revokeAllForPhone(String phoneNumber);
+
+    /**
+     * Drop tokens that expired before the cutoff. Used tokens are kept until then so that
+     * replaying them is still detected.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :cutoff")
+    int deleteExpiredBefore(Instant cutoff);
+}
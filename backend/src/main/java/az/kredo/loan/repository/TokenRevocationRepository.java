@@ -0,0 +1,43 @@
+package az.kredo.loan.repository;
+
+import az.kredo.loan.entity.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    /**
+     * Live revocations added after the given ID, oldest first (for incremental sync).
+     */
+    @Query("SELECT r FROM TokenRevocation r WHERE r.id > :afterId AND r.expiresAt > :now ORDER BY r.id")
+    List<TokenRevocation> findLiveAfter(long afterId, Instant now);
+
+    /**
+     * Live revocations added after the given ID or created after the given time, oldest first.
+     * IDs are assigned before commit, so a row can become visible after rows with higher IDs;
+     * the time window catches those.
+     */
+    @Query("SELECT r FROM TokenRevocation r WHERE (r.id > :afterId OR r.createdAt > :createdAfter) " +
+            "AND r.expiresAt > :now ORDER BY r.id")
+    List<TokenRevocation> findLiveSince(long afterId, Instant createdAfter, Instant now);
+
+    /**
+     * Whether a token is revoked, by its ID or by a revocation of its phone number covering
+     * its issue time.
+     */
+    @Query("SELECT COUNT(r) > 0 FROM TokenRevocation r WHERE r.expiresAt > :now AND (r.tokenId = :tokenId " +
+            "OR (r.phoneNumber = :phoneNumber AND r.issuedBefore >= :issuedAt))")
+    boolean isRevoked(String tokenId, String phoneNumber, Instant issuedAt, Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TokenRevocation r WHERE r.expiresAt <= :now")
+    int deleteExpired(Instant now);
+}
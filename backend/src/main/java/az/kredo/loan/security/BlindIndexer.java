@@ -0,0 +1,108 @@
+package az.kredo.loan.security;
+
+import az.kredo.loan.config.EncryptionProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.text.Normalizer;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Blind indexes for encrypted fields: HMAC-SHA256 of the normalized value under a key separate
+ * from the encryption keys, so equal values can be found with an index seek while the column
+ * reveals nothing without the key. Each field uses its own derived key, so a FIN index never
+ * matches an address index.
+ *
+ * Normalization decides what counts as equal: FINs ignore case and whitespace; addresses also
+ * ignore punctuation, repeated spaces and Unicode compatibility forms.
+ */
+@Component
+@RequiredArgsConstructor
+public class BlindIndexer {
+
+    private static final String HMAC = "HmacSHA256";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PUNCTUATION = Pattern.compile("[\\p{P}\\p{S}]+");
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final EncryptionProperties properties;
+
+    private SecretKeySpec finKey;
+    private SecretKeySpec addressKey;
+    private final ThreadLocal<Mac> finMacs = ThreadLocal.withInitial(() -> newMac(finKey));
+    private final ThreadLocal<Mac> addressMacs = ThreadLocal.withInitial(() -> newMac(addressKey));
+
+    @PostConstruct
+    public void init() {
+        String encoded = properties.getBlindIndex().getKeyBase64();
+        if (!StringUtils.hasText(encoded)) {
+            throw new IllegalStateException("kredo.security.encryption.blind-index.key-base64 is not configured");
+        }
+        byte[] master = Base64.getDecoder().decode(encoded);
+        if (master.length < 32) {
+            throw new IllegalStateException("Blind index key must be at least 32 bytes, got " + master.length);
+        }
+        SecretKeySpec masterKey = new SecretKeySpec(master, HMAC);
+        this.finKey = new SecretKeySpec(derive(masterKey, "blind-index-fin"), HMAC);
+        this.addressKey = new SecretKeySpec(derive(masterKey, "blind-index-address"), HMAC);
+    }
+
+    /**
+     * Index of a FIN, or null for a blank one.
+     */
+    public String finIndex(String fin) {
+        String normalized = normalizeFin(fin);
+        return normalized == null ? null : index(finMacs.get(), normalized);
+    }
+
+    /**
+     * Index of an address, or null for a blank one.
+     */
+    public String addressIndex(String address) {
+        String normalized = normalizeAddress(address);
+        return normalized == null ? null : index(addressMacs.get(), normalized);
+    }
+
+    static String normalizeFin(String fin) {
+        if (!StringUtils.hasText(fin)) {
+            return null;
+        }
+        return WHITESPACE.matcher(fin).replaceAll("").toUpperCase(Locale.ROOT);
+    }
+
+    static String normalizeAddress(String address) {
+        if (!StringUtils.hasText(address)) {
+            return null;
+        }
+        String normalized = Normalizer.normalize(address, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        normalized = PUNCTUATION.matcher(normalized).replaceAll(" ");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    private static String index(Mac mac, String normalized) {
+        return ENCODER.encodeToString(mac.doFinal(normalized.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] derive(SecretKeySpec masterKey, String label) {
+        return newMac(masterKey).doFinal(label.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
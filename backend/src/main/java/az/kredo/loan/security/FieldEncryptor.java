@@ -1,20 +1,34 @@
 package az.kredo.loan.security;
 
-import jakarta.annotation.PostConstruct;
+import az.kredo.loan.support.jfr.FieldCryptoEvent;
+import az.kredo.loan.support.jfr.KredoEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
 import javax.crypto.spec.GCMParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * AES-256-GCM encryption utility for sensitive field encryption at rest.
- * Uses a 256-bit key provided via environment variable.
+ * Keys come from the {@link FieldKeyRing}; new values are always written with its active version.
+ *
+ * Stored format: "v{version}:" + Base64(IV | ciphertext | tag), plaintext UTF-8, with the header
+ * bound as associated data so a value cannot be relabelled with another version. Values without
+ * a header predate versioning and are read with the legacy key (version 0). Each thread keeps
+ * its own Cipher, re-initialised with a fresh IV per value, so no call goes through the provider
+ * lookup in Cipher.getInstance. Bulk jobs should use encryptAll/decryptAll.
  */
 @Slf4j
 @Component
@@ -24,81 +38,185 @@ public class FieldEncryptor {
     private static final int GCM_IV_LENGTH = 12;
     private static final int GCM_TAG_LENGTH = 128;
 
-    @Value("${kredo.security.encryption.key-base64}")
-    private String encryptionKeyBase64;
+    private static final char HEADER_PREFIX = 'v';
+    private static final char HEADER_END = ':';
+    /** "v" + up to 10 digits + ":" */
+    private static final int MAX_HEADER_LENGTH = 12;
 
-    private SecretKeySpec secretKey;
-    private SecureRandom secureRandom;
+    private static final Base64.Encoder ENCODER = Base64.getEncoder();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
 
-    @PostConstruct
-    public void init() {
-        byte[] keyBytes = Base64.getDecoder().decode(encryptionKeyBase64);
-        if (keyBytes.length != 32) {
-            log.warn("Encryption key should be 32 bytes (256 bits). Current length: {} bytes", keyBytes.length);
-        }
-        this.secretKey = new SecretKeySpec(keyBytes, "AES");
-        this.secureRandom = new SecureRandom();
-        log.info("Field encryptor initialized with AES-256-GCM");
+    private final FieldKeyRing keyRing;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(FieldEncryptor::newCipher);
+    private final Timer encryptTimer;
+    private final Timer decryptTimer;
+
+    public FieldEncryptor(FieldKeyRing keyRing, MeterRegistry meterRegistry) {
+        this.keyRing = keyRing;
+        this.encryptTimer = timer(meterRegistry, "encrypt");
+        this.decryptTimer = timer(meterRegistry, "decrypt");
     }
 
     /**
-     * Encrypts a plaintext string using AES-256-GCM.
-     * Returns Base64-encoded result containing IV + ciphertext.
+     * Encrypts a plaintext string using AES-256-GCM with the active key.
+     * Returns the version header followed by Base64-encoded IV + ciphertext.
      */
     public String encrypt(String plaintext) {
         if (plaintext == null || plaintext.isEmpty()) {
             return plaintext;
         }
+        return encrypt(ciphers.get(), plaintext);
+    }
 
-        try {
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            secureRandom.nextBytes(iv);
-
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, parameterSpec);
+    /**
+     * Decrypts a stored value with the key of the version it was written with.
+     */
+    public String decrypt(String encryptedData) {
+        if (encryptedData == null || encryptedData.isEmpty()) {
+            return encryptedData;
+        }
+        return decrypt(ciphers.get(), encryptedData);
+    }
 
-            byte[] ciphertext = cipher.doFinal(plaintext.getBytes());
+    /**
+     * Key version a stored value was written with; {@link FieldKeyRing#LEGACY_VERSION} for
+     * values without a header.
+     */
+    public static int keyVersion(String encryptedData) {
+        int end = headerEnd(encryptedData);
+        return end < 0 ? FieldKeyRing.LEGACY_VERSION : Integer.parseInt(encryptedData, 1, end, 10);
+    }
 
-            // Combine IV and ciphertext
-            ByteBuffer byteBuffer = ByteBuffer.allocate(iv.length + ciphertext.length);
-            byteBuffer.put(iv);
-            byteBuffer.put(ciphertext);
+    /**
+     * Whether a stored value was written with a key older than the active one. Values under a
+     * newer version are left alone: during a rolling deploy they come from nodes already on the
+     * next key, and moving them back would undo that node's work.
+     */
+    public boolean needsReencryption(String encryptedData) {
+        return encryptedData != null && !encryptedData.isEmpty() && keyVersion(encryptedData) < keyRing.activeVersion();
+    }
 
-            return Base64.getEncoder().encodeToString(byteBuffer.array());
-        } catch (Exception e) {
-            log.error("Encryption failed", e);
-            throw new RuntimeException("Failed to encrypt data", e);
+    /**
+     * Encrypts each value in order; null and empty values are passed through as in encrypt.
+     */
+    public List<String> encryptAll(List<String> plaintexts) {
+        Cipher cipher = ciphers.get();
+        List<String> result = new ArrayList<>(plaintexts.size());
+        for (String plaintext : plaintexts) {
+            result.add(plaintext == null || plaintext.isEmpty() ? plaintext : encrypt(cipher, plaintext));
         }
+        return result;
     }
 
     /**
-     * Decrypts a Base64-encoded ciphertext (IV + ciphertext) using AES-256-GCM.
+     * Decrypts each value in order; null and empty values are passed through as in decrypt.
      */
-    public String decrypt(String encryptedData) {
-        if (encryptedData == null || encryptedData.isEmpty()) {
-            return encryptedData;
+    public List<String> decryptAll(List<String> encrypted) {
+        Cipher cipher = ciphers.get();
+        List<String> result = new ArrayList<>(encrypted.size());
+        for (String value : encrypted) {
+            result.add(value == null || value.isEmpty() ? value : decrypt(cipher, value));
         }
+        return result;
+    }
 
+    private String encrypt(Cipher cipher, String plaintext) {
+        FieldCryptoEvent event = new FieldCryptoEvent("encrypt");
+        event.begin();
+        String outcome = KredoEvent.FAILED;
+        long start = System.nanoTime();
         try {
-            byte[] decoded = Base64.getDecoder().decode(encryptedData);
-            ByteBuffer byteBuffer = ByteBuffer.wrap(decoded);
-
+            int version = keyRing.activeVersion();
+            event.setKeyVersion(version);
+            String header = HEADER_PREFIX + Integer.toString(version) + HEADER_END;
+            byte[] input = plaintext.getBytes(StandardCharsets.UTF_8);
             byte[] iv = new byte[GCM_IV_LENGTH];
-            byteBuffer.get(iv);
+            secureRandom.nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, keyRing.activeKey(), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            cipher.updateAAD(header.getBytes(StandardCharsets.US_ASCII));
+
+            // IV and ciphertext written into one buffer, encoded once
+            byte[] output = new byte[GCM_IV_LENGTH + cipher.getOutputSize(input.length)];
+            System.arraycopy(iv, 0, output, 0, GCM_IV_LENGTH);
+            cipher.doFinal(input, 0, input.length, output, GCM_IV_LENGTH);
+            outcome = KredoEvent.SUCCESS;
+            return header + ENCODER.encodeToString(output);
+        } catch (GeneralSecurityException e) {
+            log.error("Encryption failed", e);
+            throw new IllegalStateException("Failed to encrypt data", e);
+        } finally {
+            encryptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.finish(outcome);
+        }
+    }
+
+    private String decrypt(Cipher cipher, String encryptedData) {
+        FieldCryptoEvent event = new FieldCryptoEvent("decrypt");
+        event.begin();
+        String outcome = KredoEvent.FAILED;
+        long start = System.nanoTime();
+        try {
+            int headerEnd = headerEnd(encryptedData);
+            int version = keyVersion(encryptedData);
+            event.setKeyVersion(version);
+            byte[] decoded = DECODER.decode(headerEnd < 0 ? encryptedData : encryptedData.substring(headerEnd + 1));
+            if (decoded.length < GCM_IV_LENGTH) {
+                throw new IllegalArgumentException("Encrypted value shorter than its IV");
+            }
+            cipher.init(Cipher.DECRYPT_MODE, keyRing.key(version),
+                    new GCMParameterSpec(GCM_TAG_LENGTH, decoded, 0, GCM_IV_LENGTH));
+            if (headerEnd >= 0) {
+                cipher.updateAAD(encryptedData.substring(0, headerEnd + 1).getBytes(StandardCharsets.US_ASCII));
+            }
+            byte[] plaintext = cipher.doFinal(decoded, GCM_IV_LENGTH, decoded.length - GCM_IV_LENGTH);
+            outcome = KredoEvent.SUCCESS;
+            return new String(plaintext, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            log.error("Decryption failed", e);
+            throw new IllegalStateException("Failed to decrypt data", e);
+        } finally {
+            decryptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.finish(outcome);
+        }
+    }
 
-            byte[] ciphertext = new byte[byteBuffer.remaining()];
-            byteBuffer.get(ciphertext);
+    /**
+     * Index of the ':' closing the version header, or -1 for a legacy value. Base64 never
+     * contains ':', so a legacy value cannot be mistaken for a versioned one.
+     */
+    private static int headerEnd(String encryptedData) {
+        if (encryptedData.length() < 3 || encryptedData.charAt(0) != HEADER_PREFIX) {
+            return -1;
+        }
+        int limit = Math.min(encryptedData.length(), MAX_HEADER_LENGTH);
+        for (int i = 1; i < limit; i++) {
+            char c = encryptedData.charAt(i);
+            if (c == HEADER_END) {
+                return i > 1 ? i : -1;
+            }
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return -1;
+    }
 
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec);
+    private static Timer timer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("kredo.field.encryption")
+                .description("AES-GCM field encryption per value")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(200))
+                .maximumExpectedValue(Duration.ofMillis(50))
+                .register(meterRegistry);
+    }
 
-            byte[] plaintext = cipher.doFinal(ciphertext);
-            return new String(plaintext);
-        } catch (Exception e) {
-            log.error("Decryption failed", e);
-            throw new RuntimeException("Failed to decrypt data", e);
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
         }
     }
 }
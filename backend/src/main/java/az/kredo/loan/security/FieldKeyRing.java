@@ -0,0 +1,190 @@
+package az.kredo.loan.security;
+
+import az.kredo.loan.config.EncryptionProperties;
+import az.kredo.loan.entity.DataEncryptionKey;
+import az.kredo.loan.repository.DataEncryptionKeyRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Field encryption keys by version (envelope encryption).
+ *
+ * Version 0 is the legacy key-base64 for values written before versioning. Every other version
+ * is a random 256-bit data key kept in data_encryption_keys wrapped under a master key from
+ * configuration. The node that first starts with a new active-version creates its data key;
+ * other nodes load it on first sight of a value written with it. Data keys wrapped under a
+ * retired master key are re-wrapped under the active one at startup, so rotating the master
+ * key never touches loan_applications.
+ */
+@Slf4j
+@Component
+public class FieldKeyRing {
+
+    public static final int LEGACY_VERSION = 0;
+
+    private static final String WRAP_CIPHER = "AES/GCM/NoPadding";
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_LENGTH = 128;
+    private static final int DATA_KEY_LENGTH = 32;
+
+    private final EncryptionProperties properties;
+    private final DataEncryptionKeyRepository dataEncryptionKeyRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private volatile Map<Integer, SecretKeySpec> keys = Map.of();
+    private int activeVersion;
+    private SecretKeySpec activeKey;
+
+    public FieldKeyRing(EncryptionProperties properties, DataEncryptionKeyRepository dataEncryptionKeyRepository) {
+        this.properties = properties;
+        this.dataEncryptionKeyRepository = dataEncryptionKeyRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        activeVersion = properties.getActiveVersion();
+        if (activeVersion <= LEGACY_VERSION) {
+            throw new IllegalStateException("kredo.security.encryption.active-version must be at least 1");
+        }
+        masterKey(properties.getActiveMasterKey());
+
+        reload();
+        if (!keys.containsKey(activeVersion)) {
+            createDataKey(activeVersion);
+        }
+        rewrapRetired();
+        activeKey = key(activeVersion);
+        log.info("Field key ring loaded: {} data key versions, writing version {}", keys.size(), activeVersion);
+    }
+
+    public int activeVersion() {
+        return activeVersion;
+    }
+
+    public SecretKeySpec activeKey() {
+        return activeKey;
+    }
+
+    /**
+     * The key for a version, loading data keys created by other nodes on a miss.
+     */
+    public SecretKeySpec key(int version) {
+        SecretKeySpec key = keys.get(version);
+        if (key == null) {
+            synchronized (this) {
+                key = keys.get(version);
+                if (key == null) {
+                    reload();
+                    key = keys.get(version);
+                }
+            }
+        }
+        if (key == null) {
+            throw new IllegalStateException("No field encryption key for version " + version);
+        }
+        return key;
+    }
+
+    private synchronized void reload() {
+        Map<Integer, SecretKeySpec> loaded = new HashMap<>();
+        if (StringUtils.hasText(properties.getKeyBase64())) {
+            loaded.put(LEGACY_VERSION, new SecretKeySpec(Base64.getDecoder().decode(properties.getKeyBase64()), "AES"));
+        }
+        for (DataEncryptionKey dataKey : dataEncryptionKeyRepository.findAll()) {
+            loaded.put(dataKey.getVersion(), new SecretKeySpec(unwrap(dataKey), "AES"));
+        }
+        keys = loaded;
+    }
+
+    private synchronized void createDataKey(int version) {
+        byte[] dataKey = new byte[DATA_KEY_LENGTH];
+        secureRandom.nextBytes(dataKey);
+        try {
+            dataEncryptionKeyRepository.saveAndFlush(DataEncryptionKey.builder()
+                    .version(version)
+                    .wrappedKey(wrap(version, dataKey, properties.getActiveMasterKey()))
+                    .masterKeyId(properties.getActiveMasterKey())
+                    .createdAt(Instant.now())
+                    .build());
+            Map<Integer, SecretKeySpec> updated = new HashMap<>(keys);
+            updated.put(version, new SecretKeySpec(dataKey, "AES"));
+            keys = updated;
+            log.info("Created field encryption data key version {}", version);
+        } catch (DataIntegrityViolationException e) {
+            // Another node created it first; use theirs
+            log.info("Field encryption data key version {} created concurrently", version);
+            reload();
+        }
+    }
+
+    private void rewrapRetired() {
+        for (DataEncryptionKey dataKey : dataEncryptionKeyRepository.findAll()) {
+            if (!dataKey.getMasterKeyId().equals(properties.getActiveMasterKey())) {
+                dataKey.setWrappedKey(wrap(dataKey.getVersion(), unwrap(dataKey), properties.getActiveMasterKey()));
+                dataKey.setMasterKeyId(properties.getActiveMasterKey());
+                dataEncryptionKeyRepository.save(dataKey);
+                log.info("Re-wrapped data key version {} under master key {}", dataKey.getVersion(),
+                        properties.getActiveMasterKey());
+            }
+        }
+    }
+
+    private String wrap(int version, byte[] dataKey, String masterKeyId) {
+        try {
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(WRAP_CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, masterKey(masterKeyId), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            cipher.updateAAD(aad(version));
+            byte[] output = new byte[GCM_IV_LENGTH + cipher.getOutputSize(dataKey.length)];
+            System.arraycopy(iv, 0, output, 0, GCM_IV_LENGTH);
+            cipher.doFinal(dataKey, 0, dataKey.length, output, GCM_IV_LENGTH);
+            return Base64.getEncoder().encodeToString(output);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to wrap data key version " + version, e);
+        }
+    }
+
+    private byte[] unwrap(DataEncryptionKey dataKey) {
+        try {
+            byte[] wrapped = Base64.getDecoder().decode(dataKey.getWrappedKey());
+            Cipher cipher = Cipher.getInstance(WRAP_CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, masterKey(dataKey.getMasterKeyId()),
+                    new GCMParameterSpec(GCM_TAG_LENGTH, wrapped, 0, GCM_IV_LENGTH));
+            cipher.updateAAD(aad(dataKey.getVersion()));
+            return cipher.doFinal(wrapped, GCM_IV_LENGTH, wrapped.length - GCM_IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to unwrap data key version " + dataKey.getVersion(), e);
+        }
+    }
+
+    private SecretKeySpec masterKey(String masterKeyId) {
+        String encoded = masterKeyId == null ? null : properties.getMasterKeys().get(masterKeyId);
+        if (!StringUtils.hasText(encoded)) {
+            throw new IllegalStateException("Master key '" + masterKeyId + "' is not configured");
+        }
+        byte[] keyBytes = Base64.getDecoder().decode(encoded);
+        if (keyBytes.length != 32) {
+            throw new IllegalStateException("Master key '" + masterKeyId + "' must be 32 bytes, got " + keyBytes.length);
+        }
+        return new SecretKeySpec(keyBytes, "AES");
+    }
+
+    private static byte[] aad(int version) {
+        return ("dek:" + version).getBytes(StandardCharsets.UTF_8);
+    }
+}
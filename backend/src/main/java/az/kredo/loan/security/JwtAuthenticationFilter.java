@@ -4,6 +4,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import az.kredo.loan.support.ServerTiming;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -15,29 +16,36 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Optional;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final WebAuthenticationDetailsSource DETAILS_SOURCE = new WebAuthenticationDetailsSource();
+
     private final JwtTokenProvider tokenProvider;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
+        long start = ServerTiming.start();
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String phoneNumber = tokenProvider.getPhoneNumberFromToken(jwt);
-
+            Optional<VerifiedToken> token = StringUtils.hasText(jwt) ? tokenProvider.verify(jwt) : Optional.empty();
+            if (token.isPresent() && tokenRevocationService.isRevoked(token.get())) {
+                log.warn("Rejected revoked access token");
+            } else if (token.isPresent()) {
+                // The verified token rides along as credentials so that logout can revoke it
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        phoneNumber,
-                        null,
+                        token.get().phoneNumber(),
+                        token.get(),
                         Collections.emptyList());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                authentication.setDetails(DETAILS_SOURCE.buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
                 log.debug("Set authentication for phone: [MASKED]");
@@ -45,6 +53,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
         }
+        ServerTiming.stop(ServerTiming.Span.SECURITY, start);
 
         filterChain.doFilter(request, response);
     }
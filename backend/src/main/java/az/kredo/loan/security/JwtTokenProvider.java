@@ -1,89 +1,200 @@
 package az.kredo.loan.security;
 
+import az.kredo.loan.support.BoundedTtlCache;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Issues and verifies access tokens (HS256).
+ *
+ * Verification parses a token once with a parser built at startup. Verified tokens are cached by
+ * SHA-256 digest until the earlier of their exp claim and kredo.security.jwt.cache.ttl-seconds,
+ * so a client sending the same token on every request pays for the signature check and JSON
+ * parsing once instead of per request. Revocation is checked separately on every request
+ * ({@link TokenRevocationService}), so caching never outlives a revocation. Verification is
+ * timed by result (kredo.jwt.verify), so the cache hit rate shows up next to the latency.
+ */
 @Slf4j
 @Component
 public class JwtTokenProvider {
 
+    private static final String ACCESS_TYPE = "access";
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
     @Value("${kredo.security.jwt.secret}")
     private String jwtSecret;
 
     @Value("${kredo.security.jwt.expiration-seconds}")
     private int expirationSeconds;
 
+    @Value("${kredo.security.jwt.cache.max-entries:20000}")
+    private int cacheMaxEntries;
+
+    @Value("${kredo.security.jwt.cache.ttl-seconds:60}")
+    private long cacheTtlSeconds;
+
     private SecretKey key;
+    private JwtParser parser;
+    private BoundedTtlCache<TokenDigest, VerifiedToken> verified;
+
+    private final Timer issueTimer;
+    private final Timer cachedTimer;
+    private final Timer parsedTimer;
+    private final Timer rejectedTimer;
+
+    public JwtTokenProvider(MeterRegistry meterRegistry) {
+        this.issueTimer = timer(meterRegistry, "kredo.jwt.issue");
+        this.cachedTimer = timer(meterRegistry, "kredo.jwt.verify", "result", "cached");
+        this.parsedTimer = timer(meterRegistry, "kredo.jwt.verify", "result", "parsed");
+        this.rejectedTimer = timer(meterRegistry, "kredo.jwt.verify", "result", "rejected");
+    }
 
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(key)
+                .build();
+        this.verified = new BoundedTtlCache<>(cacheMaxEntries, 1000, true);
     }
 
     public String generateToken(String phoneNumber) {
+        long start = System.nanoTime();
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + (expirationSeconds * 1000L));
 
         Map<String, Object> claims = new HashMap<>();
         claims.put("phone", phoneNumber);
-        claims.put("type", "access");
+        claims.put("type", ACCESS_TYPE);
 
-        return Jwts.builder()
+        String token = Jwts.builder()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(phoneNumber)
                 .issuedAt(now)
                 .expiration(expiryDate)
                 .signWith(key)
                 .compact();
+        issueTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return token;
     }
 
-    public String getPhoneNumberFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Verify an access token's signature and expiry in a single parse.
+     *
+     * @return the token's claims, or empty if the token is invalid, expired or not an access token
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        long start = System.nanoTime();
+        TokenDigest digest = TokenDigest.of(token);
+        VerifiedToken cached = verified.get(digest);
+        if (cached != null) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.of(cached);
+        }
 
-        return claims.getSubject();
+        Optional<VerifiedToken> result = parse(token, digest);
+        (result.isPresent() ? parsedTimer : rejectedTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
     }
 
-    public boolean validateToken(String token) {
+    private Optional<VerifiedToken> parse(String token, TokenDigest digest) {
+        Claims claims;
         try {
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            claims = parser.parseSignedClaims(token).getPayload();
         } catch (SignatureException ex) {
             log.warn("Invalid JWT signature");
+            return Optional.empty();
         } catch (MalformedJwtException ex) {
             log.warn("Invalid JWT token");
+            return Optional.empty();
         } catch (ExpiredJwtException ex) {
             log.warn("Expired JWT token");
+            return Optional.empty();
         } catch (UnsupportedJwtException ex) {
             log.warn("Unsupported JWT token");
+            return Optional.empty();
         } catch (IllegalArgumentException ex) {
             log.warn("JWT claims string is empty");
+            return Optional.empty();
         }
-        return false;
+
+        if (!ACCESS_TYPE.equals(claims.get("type", String.class)) || claims.getExpiration() == null) {
+            log.warn("JWT is not an access token");
+            return Optional.empty();
+        }
+
+        VerifiedToken result = new VerifiedToken(claims.getId(), claims.getSubject(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant());
+        long expiresAtMs = Math.min(result.expiresAt().toEpochMilli(),
+                System.currentTimeMillis() + cacheTtlSeconds * 1000);
+        verified.put(digest, result, expiresAtMs);
+        return Optional.of(result);
+    }
+
+    @Scheduled(fixedDelayString = "${kredo.security.jwt.cache.sweep-interval-ms:5000}")
+    public void expireCachedTokens() {
+        verified.expire();
     }
 
     public int getExpirationSeconds() {
         return expirationSeconds;
     }
+
+    private static Timer timer(MeterRegistry meterRegistry, String name, String... tags) {
+        return Timer.builder(name)
+                .description("Access token signing and verification")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(500))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(meterRegistry);
+    }
+
+    /**
+     * First 128 bits of a token's SHA-256: identifies a token without keeping the token itself.
+     */
+    private record TokenDigest(long high, long low) {
+
+        static TokenDigest of(String token) {
+            MessageDigest sha256 = SHA256.get();
+            ByteBuffer hash = ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new TokenDigest(hash.getLong(), hash.getLong());
+        }
+    }
 }
@@ -0,0 +1,155 @@
+package az.kredo.loan.security;
+
+import az.kredo.loan.support.jfr.KredoEvent;
+import az.kredo.loan.support.jfr.OtpHashEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyed hashing for short-lived OTP codes: HMAC-SHA256 over a per-request salt and the code,
+ * keyed with a server-side pepper. A deliberately slow hash adds nothing here because the code
+ * space is tiny and attempts are capped; the pepper is what keeps a leaked table useless.
+ *
+ * Stored format: {@code $h1$<salt>$<mac>} (unpadded Base64). Rows written before this scheme
+ * hold BCrypt hashes and are still verified with the legacy encoder until they expire.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OtpHasher {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String PREFIX = "$h1$";
+    private static final int SALT_LENGTH = 16;
+
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private final PasswordEncoder legacyEncoder;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kredo.security.otp.pepper-base64}")
+    private String pepperBase64;
+
+    private SecretKeySpec pepper;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+    private Timer hashTimer;
+    private Timer verifyTimer;
+    private Timer legacyVerifyTimer;
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes = DECODER.decode(pepperBase64);
+        if (keyBytes.length < 32) {
+            log.warn("OTP pepper should be at least 32 bytes. Current length: {} bytes", keyBytes.length);
+        }
+        this.pepper = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.hashTimer = timer("hash", "hmac");
+        this.verifyTimer = timer("verify", "hmac");
+        this.legacyVerifyTimer = timer("verify", "bcrypt");
+    }
+
+    /**
+     * Hashes an OTP code with a fresh random salt.
+     */
+    public String hash(String code) {
+        OtpHashEvent event = new OtpHashEvent("hash", "hmac");
+        event.begin();
+        long start = System.nanoTime();
+        byte[] salt = new byte[SALT_LENGTH];
+        secureRandom.nextBytes(salt);
+        String hash = PREFIX + ENCODER.encodeToString(salt) + "$" + ENCODER.encodeToString(mac(salt, code));
+        hashTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        event.finish(KredoEvent.SUCCESS);
+        return hash;
+    }
+
+    /**
+     * Checks an OTP code against a stored hash in constant time.
+     */
+    public boolean matches(String code, String storedHash) {
+        if (code == null || storedHash == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        if (!storedHash.startsWith(PREFIX)) {
+            // Legacy BCrypt row created before the keyed-hash rollout
+            OtpHashEvent event = new OtpHashEvent("verify", "bcrypt");
+            event.begin();
+            boolean matches = legacyEncoder.matches(code, storedHash);
+            legacyVerifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.finish(verifyOutcome(matches));
+            return matches;
+        }
+
+        int separator = storedHash.indexOf('$', PREFIX.length());
+        if (separator < 0) {
+            return false;
+        }
+        OtpHashEvent event = new OtpHashEvent("verify", "hmac");
+        event.begin();
+        String outcome = KredoEvent.FAILED;
+        try {
+            byte[] salt = DECODER.decode(storedHash.substring(PREFIX.length(), separator));
+            byte[] expected = DECODER.decode(storedHash.substring(separator + 1));
+            boolean matches = MessageDigest.isEqual(expected, mac(salt, code));
+            outcome = verifyOutcome(matches);
+            return matches;
+        } catch (IllegalArgumentException e) {
+            log.warn("Malformed OTP hash");
+            return false;
+        } finally {
+            verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.finish(outcome);
+        }
+    }
+
+    private static String verifyOutcome(boolean matches) {
+        return matches ? "match" : "mismatch";
+    }
+
+    private byte[] mac(byte[] salt, String code) {
+        Mac mac = macs.get();
+        mac.update(salt);
+        return mac.doFinal(code.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Timer timer(String operation, String scheme) {
+        // HMAC takes microseconds and BCrypt tens of milliseconds; the range covers both
+        return Timer.builder("kredo.otp.hash")
+                .description("OTP code hashing and verification")
+                .tag("operation", operation)
+                .tag("scheme", scheme)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(500))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(meterRegistry);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(pepper);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
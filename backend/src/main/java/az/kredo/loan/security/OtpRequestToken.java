@@ -0,0 +1,15 @@
+package az.kredo.loan.security;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Contents of a sealed stateless OTP request token. The request ID doubles as the nonce
+ * the OTP code is derived from.
+ */
+public record OtpRequestToken(UUID requestId, String phoneNumber, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,172 @@
+package az.kredo.loan.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Seals and opens stateless OTP request tokens and derives their OTP codes.
+ *
+ * Token: base64url(version | iv | AES-256-GCM(expiry | requestId | phone)), so the client can
+ * neither read nor alter the phone number or expiry. The code is HMAC-SHA256 over the same
+ * fields, truncated HOTP-style (RFC 4226) to the configured number of digits. Both keys are
+ * derived from kredo.security.otp.token-key-base64, which every node must share.
+ */
+@Slf4j
+@Component
+public class OtpRequestTokenCodec {
+
+    private static final byte VERSION = 1;
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final String HMAC = "HmacSHA256";
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_LENGTH = 128;
+    private static final int MAX_TOKEN_LENGTH = 512;
+    private static final byte[] AAD = {VERSION};
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${kredo.security.otp.token-key-base64}")
+    private String tokenKeyBase64;
+
+    private SecretKeySpec encryptionKey;
+    private SecretKeySpec codeKey;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final ThreadLocal<Mac> codeMacs = ThreadLocal.withInitial(() -> newMac(codeKey));
+
+    @PostConstruct
+    public void init() {
+        byte[] master = Base64.getDecoder().decode(tokenKeyBase64);
+        if (master.length < 32) {
+            log.warn("OTP token key should be at least 32 bytes. Current length: {} bytes", master.length);
+        }
+        SecretKeySpec masterKey = new SecretKeySpec(master, HMAC);
+        this.encryptionKey = new SecretKeySpec(derive(masterKey, "otp-token-encryption"), "AES");
+        this.codeKey = new SecretKeySpec(derive(masterKey, "otp-code"), HMAC);
+    }
+
+    /**
+     * Encrypts the token contents into an opaque URL-safe string.
+     */
+    public String seal(OtpRequestToken token) {
+        byte[] phone = token.phoneNumber().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer plaintext = ByteBuffer.allocate(Long.BYTES + 2 * Long.BYTES + phone.length)
+                .putLong(token.expiresAt().getEpochSecond())
+                .putLong(token.requestId().getMostSignificantBits())
+                .putLong(token.requestId().getLeastSignificantBits())
+                .put(phone);
+
+        try {
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            secureRandom.nextBytes(iv);
+
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            cipher.updateAAD(AAD);
+
+            ByteBuffer out = ByteBuffer.allocate(1 + GCM_IV_LENGTH + cipher.getOutputSize(plaintext.capacity()));
+            out.put(VERSION).put(iv);
+            cipher.doFinal(plaintext.flip(), out);
+            return ENCODER.encodeToString(out.array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to seal OTP request token", e);
+        }
+    }
+
+    /**
+     * Decrypts and authenticates a token. Returns empty for anything forged, truncated or
+     * produced under a different key.
+     */
+    public Optional<OtpRequestToken> open(String sealed) {
+        if (sealed == null || sealed.isEmpty() || sealed.length() > MAX_TOKEN_LENGTH) {
+            return Optional.empty();
+        }
+        try {
+            byte[] bytes = DECODER.decode(sealed);
+            if (bytes.length < 1 + GCM_IV_LENGTH || bytes[0] != VERSION) {
+                return Optional.empty();
+            }
+
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, encryptionKey,
+                    new GCMParameterSpec(GCM_TAG_LENGTH, bytes, 1, GCM_IV_LENGTH));
+            cipher.updateAAD(AAD);
+            ByteBuffer plaintext = ByteBuffer.wrap(
+                    cipher.doFinal(bytes, 1 + GCM_IV_LENGTH, bytes.length - 1 - GCM_IV_LENGTH));
+
+            Instant expiresAt = Instant.ofEpochSecond(plaintext.getLong());
+            UUID requestId = new UUID(plaintext.getLong(), plaintext.getLong());
+            String phone = StandardCharsets.UTF_8.decode(plaintext).toString();
+            return Optional.of(new OtpRequestToken(requestId, phone, expiresAt));
+        } catch (IllegalArgumentException | GeneralSecurityException | BufferUnderflowException e) {
+            log.debug("Rejected OTP request token: {}", e.getClass().getSimpleName());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Derives the OTP code for a token.
+     */
+    public String deriveCode(OtpRequestToken token, int digits) {
+        Mac mac = codeMacs.get();
+        mac.update(ByteBuffer.allocate(3 * Long.BYTES)
+                .putLong(token.requestId().getMostSignificantBits())
+                .putLong(token.requestId().getLeastSignificantBits())
+                .putLong(token.expiresAt().getEpochSecond())
+                .array());
+        byte[] hash = mac.doFinal(token.phoneNumber().getBytes(StandardCharsets.UTF_8));
+
+        // RFC 4226 dynamic truncation
+        int offset = hash[hash.length - 1] & 0x0f;
+        int binary = ((hash[offset] & 0x7f) << 24)
+                | ((hash[offset + 1] & 0xff) << 16)
+                | ((hash[offset + 2] & 0xff) << 8)
+                | (hash[offset + 3] & 0xff);
+        int code = binary % (int) Math.pow(10, digits);
+        String padded = String.valueOf(code);
+        return "0".repeat(digits - padded.length()) + padded;
+    }
+
+    /**
+     * Checks a submitted code against the token in constant time.
+     */
+    public boolean matches(OtpRequestToken token, String code, int digits) {
+        if (code == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                deriveCode(token, digits).getBytes(StandardCharsets.US_ASCII),
+                code.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] derive(SecretKeySpec masterKey, String label) {
+        return newMac(masterKey).doFinal(label.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package az.kredo.loan.security;
+
+import az.kredo.loan.entity.TokenRevocation;
+import az.kredo.loan.repository.RefreshTokenRepository;
+import az.kredo.loan.repository.TokenRevocationRepository;
+import az.kredo.loan.support.BloomFilter;
+import az.kredo.loan.support.BoundedTtlCache;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Access token revocation, by token ID (jti) or by phone number plus issued-before time.
+ *
+ * The token_revocations table is authoritative. Each node mirrors it into a Bloom filter,
+ * synced incrementally every sync-interval-ms and rebuilt from scratch every
+ * rebuild-interval-ms to forget expired entries. A token whose jti and phone number both miss
+ * the filter (almost every request) is accepted without touching the database; only a possible
+ * hit is looked up in the table, and the answer is cached per token until the next sync brings
+ * new revocations.
+ *
+ * Revocation IDs come from a sequence, and transactions commit out of ID order. So each sync
+ * also re-reads the rows created in the last sync-overlap-ms and skips the ones it has
+ * already seen. A "not revoked" answer read while revocations were being applied is not
+ * cached. Every invalidation bumps a generation counter, so a lookup that raced one can tell.
+ */
+@Slf4j
+@Component
+public class TokenRevocationService {
+
+    private static final String JTI = "jti";
+    private static final String SUBJECT = "sub";
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final long maxTokenLifetimeSeconds;
+    private final long syncOverlapMs;
+    private final BoundedTtlCache<String, Boolean> decisions;
+    /** Bumped before every invalidation of decisions. */
+    private final AtomicLong generation = new AtomicLong();
+    /** IDs of rows created within the sync overlap window that are already in the filter. */
+    private final Map<Long, Instant> recentIds = new HashMap<>();
+
+    private volatile BloomFilter filter;
+    private long lastSyncedId;
+
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository,
+            RefreshTokenRepository refreshTokenRepository,
+            @Value("${kredo.security.revocation.expected-entries:100000}") int expectedEntries,
+            @Value("${kredo.security.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+            @Value("${kredo.security.revocation.decision-cache-entries:10000}") int decisionCacheEntries,
+            @Value("${kredo.security.revocation.sync-overlap-ms:60000}") long syncOverlapMs,
+            @Value("${kredo.security.jwt.expiration-seconds}") long accessTokenSeconds,
+            @Value("${kredo.security.refresh.max-lifetime-hours:12}") long refreshLifetimeHours) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        // Refreshing re-issues access tokens for a phone until its refresh family ends
+        this.maxTokenLifetimeSeconds = accessTokenSeconds + refreshLifetimeHours * 3600;
+        this.syncOverlapMs = syncOverlapMs;
+        this.decisions = new BoundedTtlCache<>(decisionCacheEntries, 1000, true);
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * Whether a verified token has been revoked.
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        BloomFilter current = filter;
+        boolean maybeById = token.tokenId() != null && current.mightContain(JTI, token.tokenId());
+        if (!maybeById && !current.mightContain(SUBJECT, token.phoneNumber())) {
+            return false;
+        }
+
+        String decisionKey = token.tokenId() != null ? token.tokenId() : token.phoneNumber() + "@" + token.issuedAt();
+        Boolean cached = decisions.get(decisionKey);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            long observed = generation.get();
+            boolean revoked = tokenRevocationRepository.isRevoked(token.tokenId(), token.phoneNumber(),
+                    token.issuedAt(), Instant.now());
+            decisions.put(decisionKey, revoked, token.expiresAt().toEpochMilli());
+            if (!revoked && generation.get() != observed) {
+                // Invalidated while we read: the answer may predate a revocation, so drop it
+                decisions.remove(decisionKey);
+            }
+            return revoked;
+        } catch (DataAccessException e) {
+            // A possible hit we cannot confirm: refuse rather than let a revoked token through
+            log.warn("Could not check token revocation: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Revoke a single access token.
+     */
+    public synchronized void revokeToken(String tokenId, Instant tokenExpiresAt) {
+        Instant now = Instant.now();
+        remember(tokenRevocationRepository.save(TokenRevocation.builder()
+                .tokenId(tokenId)
+                .createdAt(now)
+                .expiresAt(tokenExpiresAt)
+                .build()), now.minusMillis(syncOverlapMs));
+        filter.put(JTI, tokenId);
+        generation.incrementAndGet();
+        decisions.remove(tokenId);
+        log.info("Access token revoked");
+    }
+
+    /**
+     * Revoke every access token of a phone number issued at or before issuedBefore, and every
+     * refresh token family of that phone number.
+     */
+    public synchronized void revokePhone(String phoneNumber, Instant issuedBefore) {
+        Instant now = Instant.now();
+        // iat has second precision: cover tokens issued earlier in the same second
+        Instant cutoff = issuedBefore.truncatedTo(ChronoUnit.SECONDS);
+        remember(tokenRevocationRepository.save(TokenRevocation.builder()
+                .phoneNumber(phoneNumber)
+                .issuedBefore(cutoff)
+                .createdAt(now)
+                .expiresAt(cutoff.plusSeconds(maxTokenLifetimeSeconds))
+                .build()), now.minusMillis(syncOverlapMs));
+        int families = refreshTokenRepository.revokeAllForPhone(phoneNumber);
+        filter.put(SUBJECT, phoneNumber);
+        invalidateDecisions();
+        log.info("All tokens for phone [MASKED] issued before {} revoked ({} refresh tokens)", cutoff, families);
+    }
+
+    /**
+     * Pull revocations added on other nodes (or directly in the table) since the last sync.
+     */
+    @Scheduled(fixedDelayString = "${kredo.security.revocation.sync-interval-ms:5000}")
+    public synchronized void sync() {
+        try {
+            Instant now = Instant.now();
+            Instant windowStart = now.minusMillis(syncOverlapMs);
+            List<TokenRevocation> found = tokenRevocationRepository.findLiveSince(lastSyncedId, windowStart, now);
+            recentIds.values().removeIf(createdAt -> !createdAt.isAfter(windowStart));
+            BloomFilter current = filter;
+            int added = 0;
+            for (TokenRevocation revocation : found) {
+                lastSyncedId = Math.max(lastSyncedId, revocation.getId());
+                if (!remember(revocation, windowStart)) {
+                    continue;
+                }
+                add(current, revocation);
+                added++;
+            }
+            if (added == 0) {
+                return;
+            }
+            invalidateDecisions();
+            log.info("Synced {} token revocations", added);
+        } catch (DataAccessException e) {
+            log.warn("Token revocation sync failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the filter from live revocations only, so expired ones stop causing lookups.
+     */
+    @Scheduled(fixedDelayString = "${kredo.security.revocation.rebuild-interval-ms:3600000}",
+            initialDelayString = "${kredo.security.revocation.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        try {
+            Instant now = Instant.now();
+            tokenRevocationRepository.deleteExpired(now);
+            List<TokenRevocation> live = tokenRevocationRepository.findLiveAfter(0, now);
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, live.size() * 2), falsePositiveRate);
+            Instant windowStart = now.minusMillis(syncOverlapMs);
+            recentIds.clear();
+            for (TokenRevocation revocation : live) {
+                add(rebuilt, revocation);
+                remember(revocation, windowStart);
+                lastSyncedId = Math.max(lastSyncedId, revocation.getId());
+            }
+            filter = rebuilt;
+            invalidateDecisions();
+        } catch (DataAccessException e) {
+            log.warn("Token revocation rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${kredo.security.revocation.sync-interval-ms:5000}")
+    public void expireDecisions() {
+        decisions.expire();
+    }
+
+    /**
+     * Note a row as applied. Returns false if it was already seen within the overlap window.
+     */
+    private boolean remember(TokenRevocation revocation, Instant windowStart) {
+        if (recentIds.containsKey(revocation.getId())) {
+            return false;
+        }
+        if (revocation.getCreatedAt().isAfter(windowStart)) {
+            recentIds.put(revocation.getId(), revocation.getCreatedAt());
+        }
+        return true;
+    }
+
+    private void invalidateDecisions() {
+        generation.incrementAndGet();
+        decisions.clear();
+    }
+
+    private static void add(BloomFilter target, TokenRevocation revocation) {
+        if (revocation.getTokenId() != null) {
+            target.put(JTI, revocation.getTokenId());
+        }
+        if (revocation.getPhoneNumber() != null) {
+            target.put(SUBJECT, revocation.getPhoneNumber());
+        }
+    }
+}
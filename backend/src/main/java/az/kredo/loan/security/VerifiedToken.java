@@ -0,0 +1,14 @@
+package az.kredo.loan.security;
+
+import java.time.Instant;
+
+/**
+ * Claims of an access token whose signature and expiry have been checked.
+ * tokenId is the jti claim (null for tokens issued before jti was added).
+ */
+public record VerifiedToken(String tokenId, String phoneNumber, Instant issuedAt, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
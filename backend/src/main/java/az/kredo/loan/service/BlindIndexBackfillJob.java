@@ -0,0 +1,87 @@
+package az.kredo.loan.service;
+
+import az.kredo.loan.config.EncryptionProperties;
+import az.kredo.loan.repository.BatchJobCheckpointRepository;
+import az.kredo.loan.security.BlindIndexer;
+import az.kredo.loan.security.FieldEncryptor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Recomputes fin_index and address_index for every application once per {@link #TARGET}: the
+ * first pass fills rows written before blind indexes existed, and a new target rewrites every
+ * index whose value has changed. New applications get both at write time, so the job is idle
+ * after one pass.
+ */
+@Component
+@ConditionalOnProperty(name = "kredo.security.encryption.blind-index.backfill.enabled", havingValue = "true", matchIfMissing = true)
+public class BlindIndexBackfillJob extends KeysetBatchJob<BlindIndexBackfillJob.Row> {
+
+    static final String JOB_NAME = "blind-index-backfill";
+    /** Bump to recompute every index, e.g. after changing the normalization. */
+    private static final String TARGET = "hmac-sha256-v1";
+
+    private static final String SELECT_BATCH = "SELECT id, fin_encrypted, address_encrypted, fin_index, address_index " +
+            "FROM loan_applications WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String UPDATE_ROW = "UPDATE loan_applications SET fin_index = ?, address_index = ? WHERE id = ?";
+
+    private final FieldEncryptor fieldEncryptor;
+    private final BlindIndexer blindIndexer;
+
+    public BlindIndexBackfillJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            BatchJobCheckpointRepository checkpointRepository, FieldEncryptor fieldEncryptor, BlindIndexer blindIndexer,
+            EncryptionProperties properties) {
+        super(JOB_NAME, SELECT_BATCH,
+                (rs, rowNum) -> new Row(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getString(5)),
+                UPDATE_ROW, jdbcTemplate, transactionManager, checkpointRepository,
+                properties.getBlindIndex().getBackfill());
+        this.fieldEncryptor = fieldEncryptor;
+        this.blindIndexer = blindIndexer;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${kredo.security.encryption.blind-index.backfill.interval-ms:1000}",
+            initialDelayString = "${kredo.security.encryption.blind-index.backfill.interval-ms:1000}")
+    public void tick() {
+        super.tick();
+    }
+
+    @Override
+    protected String target() {
+        return TARGET;
+    }
+
+    @Override
+    protected UUID id(Row row) {
+        return row.id();
+    }
+
+    /**
+     * A stored index can only be checked against the plaintext, so every row goes to the
+     * worker pool and {@link #update} skips the ones that are current.
+     */
+    @Override
+    protected boolean needsUpdate(Row row) {
+        return true;
+    }
+
+    @Override
+    protected Object[] update(Row row) {
+        String finIndex = blindIndexer.finIndex(fieldEncryptor.decrypt(row.fin()));
+        String addressIndex = blindIndexer.addressIndex(fieldEncryptor.decrypt(row.address()));
+        if (Objects.equals(finIndex, row.finIndex()) && Objects.equals(addressIndex, row.addressIndex())) {
+            return null;
+        }
+        return new Object[]{finIndex, addressIndex, row.id()};
+    }
+
+    record Row(UUID id, String fin, String address, String finIndex, String addressIndex) {
+    }
+}
@@ -2,6 +2,7 @@ package az.kredo.loan.service;
 
 import az.kredo.loan.entity.Decision;
 import az.kredo.loan.entity.LoanApplication;
+import az.kredo.loan.support.jfr.ScoringEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -20,17 +21,25 @@ public class DecisionEngine {
      * Main decision method - computes score and decision for a loan application.
      */
     public DecisionResult evaluate(LoanApplication application) {
-        log.info("Evaluating loan application: {}", application.getId());
+        ScoringEvent event = new ScoringEvent();
+        event.begin();
+        DecisionResult result = null;
+        try {
+            log.debug("Evaluating loan application: {}", application.getId());
 
-        // FAST MOCK RESPONSE MODE
-        // Always return a static approval for lightning fast testing
-        return DecisionResult.builder()
-                .score(850)
-                .decision(Decision.APPROVED)
-                .approvedAmount(new BigDecimal("5000.00"))
-                .apr(new BigDecimal("12.00"))
-                .reasonCodes(List.of("MOCK_FAST_TRACK", "PRE_APPROVED"))
-                .build();
+            // FAST MOCK RESPONSE MODE
+            // Always return a static approval for lightning fast testing
+            result = DecisionResult.builder()
+                    .score(850)
+                    .decision(Decision.APPROVED)
+                    .approvedAmount(new BigDecimal("5000.00"))
+                    .apr(new BigDecimal("12.00"))
+                    .reasonCodes(List.of("MOCK_FAST_TRACK", "PRE_APPROVED"))
+                    .build();
+            return result;
+        } finally {
+            event.finish(result != null ? result.getDecision().name() : ScoringEvent.FAILED);
+        }
     }
 
     /**
@@ -0,0 +1,87 @@
+package az.kredo.loan.service;
+
+import az.kredo.loan.config.EncryptionProperties;
+import az.kredo.loan.repository.BatchJobCheckpointRepository;
+import az.kredo.loan.security.FieldEncryptor;
+import az.kredo.loan.security.FieldKeyRing;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.UUID;
+
+/**
+ * Rewrites fin_encrypted and address_encrypted under the active data key after a key rotation.
+ * Each UPDATE is conditional on the old ciphertext, so a concurrent application write simply
+ * wins. Restarts from the first row whenever active-version goes up; only values under an older
+ * version are rewritten, so nodes not yet on a new version leave the job and the rows alone.
+ */
+@Component
+@ConditionalOnProperty(name = "kredo.security.encryption.reencrypt.enabled", havingValue = "true", matchIfMissing = true)
+public class FieldReencryptionJob extends KeysetBatchJob<FieldReencryptionJob.Row> {
+
+    static final String JOB_NAME = "field-reencryption";
+
+    private static final String SELECT_BATCH = "SELECT id, fin_encrypted, address_encrypted FROM loan_applications " +
+            "WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String UPDATE_ROW = "UPDATE loan_applications SET fin_encrypted = ?, address_encrypted = ? " +
+            "WHERE id = ? AND fin_encrypted = ? AND address_encrypted = ?";
+
+    private final FieldEncryptor fieldEncryptor;
+    private final FieldKeyRing keyRing;
+
+    public FieldReencryptionJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            BatchJobCheckpointRepository checkpointRepository, FieldEncryptor fieldEncryptor, FieldKeyRing keyRing,
+            EncryptionProperties properties) {
+        super(JOB_NAME, SELECT_BATCH,
+                (rs, rowNum) -> new Row(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3)),
+                UPDATE_ROW, jdbcTemplate, transactionManager, checkpointRepository, properties.getReencrypt());
+        this.fieldEncryptor = fieldEncryptor;
+        this.keyRing = keyRing;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${kredo.security.encryption.reencrypt.interval-ms:1000}",
+            initialDelayString = "${kredo.security.encryption.reencrypt.interval-ms:1000}")
+    public void tick() {
+        super.tick();
+    }
+
+    @Override
+    protected String target() {
+        return "v" + keyRing.activeVersion();
+    }
+
+    @Override
+    protected boolean isOlder(String target, String checkpointTarget) {
+        return version(target) < version(checkpointTarget);
+    }
+
+    @Override
+    protected UUID id(Row row) {
+        return row.id();
+    }
+
+    @Override
+    protected boolean needsUpdate(Row row) {
+        return fieldEncryptor.needsReencryption(row.fin()) || fieldEncryptor.needsReencryption(row.address());
+    }
+
+    @Override
+    protected Object[] update(Row row) {
+        return new Object[]{reencrypt(row.fin()), reencrypt(row.address()), row.id(), row.fin(), row.address()};
+    }
+
+    private String reencrypt(String value) {
+        return fieldEncryptor.needsReencryption(value) ? fieldEncryptor.encrypt(fieldEncryptor.decrypt(value)) : value;
+    }
+
+    private static int version(String target) {
+        return Integer.parseInt(target.substring(1));
+    }
+
+    record Row(UUID id, String fin, String address) {
+    }
+}
@@ -0,0 +1,124 @@
+package az.kredo.loan.service;
+
+import az.kredo.loan.entity.ApplicationStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory funnel aggregates: for every from/to status pair, the number of transitions and a
+ * histogram of how long applications stayed in the from status. Recording is a couple of atomic
+ * adds into a fixed array, so the cost does not grow with the number of applications, and
+ * {@link FunnelRollupJob} periodically drains the deltas into funnel_rollups.
+ *
+ * A transition inside a transaction is counted only once that transaction commits.
+ */
+@Component
+public class FunnelAnalytics {
+
+    /** From status of the transition that creates an application. */
+    static final String NONE = "NONE";
+
+    /** Upper bounds of the dwell time buckets in milliseconds; the last one takes the rest. */
+    static final long[] DWELL_BUCKETS_MS = {
+            1_000, 10_000, 60_000, 300_000, 900_000, 3_600_000, 21_600_000, 86_400_000, 604_800_000,
+            2_592_000_000L, Long.MAX_VALUE};
+
+    private static final ApplicationStatus[] STATUSES = ApplicationStatus.values();
+    /** Index of {@link #NONE} among the from statuses. */
+    private static final int FROM_NONE = STATUSES.length;
+    private static final int BUCKETS = DWELL_BUCKETS_MS.length;
+    /** Per from/to pair: a count per bucket, then a dwell sum per bucket. */
+    private static final int CELL_WIDTH = 2 * BUCKETS;
+
+    private final AtomicLongArray cells = new AtomicLongArray((STATUSES.length + 1) * STATUSES.length * CELL_WIDTH);
+
+    /**
+     * Count a status change that ends a stay of {@code dwellMs} in {@code from}; {@code from} is
+     * null for a new application.
+     */
+    public void transition(ApplicationStatus from, ApplicationStatus to, long dwellMs) {
+        int fromIndex = from != null ? from.ordinal() : FROM_NONE;
+        long dwell = Math.max(dwellMs, 0);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(fromIndex, to.ordinal(), dwell);
+                }
+            });
+        } else {
+            add(fromIndex, to.ordinal(), dwell);
+        }
+    }
+
+    /**
+     * Take the counts recorded since the last drain, leaving zeros behind. Only non-empty
+     * buckets are returned.
+     */
+    public List<Rollup> drain() {
+        List<Rollup> rollups = new ArrayList<>();
+        for (int from = 0; from <= FROM_NONE; from++) {
+            for (int to = 0; to < STATUSES.length; to++) {
+                int cell = cell(from, to);
+                for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                    if (cells.get(cell + bucket) == 0) {
+                        continue;
+                    }
+                    // A transition landing between the two resets moves its dwell time a drain ahead of its count
+                    long count = cells.getAndSet(cell + bucket, 0);
+                    long sum = cells.getAndSet(cell + BUCKETS + bucket, 0);
+                    rollups.add(new Rollup(fromName(from), STATUSES[to].name(), DWELL_BUCKETS_MS[bucket], count, sum));
+                }
+            }
+        }
+        return rollups;
+    }
+
+    /**
+     * Put drained counts back, e.g. after they could not be written.
+     */
+    public void restore(List<Rollup> rollups) {
+        for (Rollup rollup : rollups) {
+            int from = NONE.equals(rollup.fromStatus()) ? FROM_NONE : ApplicationStatus.valueOf(rollup.fromStatus()).ordinal();
+            int cell = cell(from, ApplicationStatus.valueOf(rollup.toStatus()).ordinal());
+            int bucket = bucket(rollup.dwellLeMs());
+            cells.addAndGet(cell + bucket, rollup.transitions());
+            cells.addAndGet(cell + BUCKETS + bucket, rollup.dwellMsSum());
+        }
+    }
+
+    private void add(int from, int to, long dwellMs) {
+        int cell = cell(from, to);
+        int bucket = bucket(dwellMs);
+        cells.incrementAndGet(cell + bucket);
+        cells.addAndGet(cell + BUCKETS + bucket, dwellMs);
+    }
+
+    private static int cell(int from, int to) {
+        return (from * STATUSES.length + to) * CELL_WIDTH;
+    }
+
+    static int bucket(long dwellMs) {
+        int bucket = 0;
+        while (dwellMs > DWELL_BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static String fromName(int from) {
+        return from == FROM_NONE ? NONE : STATUSES[from].name();
+    }
+
+    /**
+     * Transitions from one status to another whose dwell time fell in the bucket ending at
+     * {@code dwellLeMs}, and the sum of those dwell times.
+     */
+    public record Rollup(String fromStatus, String toStatus, long dwellLeMs, long transitions, long dwellMsSum) {
+    }
+}
@@ -0,0 +1,83 @@
+package az.kredo.loan.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Adds the {@link FunnelAnalytics} deltas to funnel_rollups (Flyway V10) every flush-interval-ms,
+ * in one transaction per flush. Rows are keyed by the period the flush falls in, so transitions
+ * made just before a period boundary may be counted in the next period. Every node adds its own
+ * deltas; a failed flush puts them back to be retried with the next one.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kredo.funnel.rollup.enabled", havingValue = "true", matchIfMissing = true)
+public class FunnelRollupJob {
+
+    private static final String UPSERT = "INSERT INTO funnel_rollups AS r " +
+            "(period_start, from_status, to_status, dwell_le_ms, transitions, dwell_ms_sum) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (period_start, from_status, to_status, dwell_le_ms) DO UPDATE SET " +
+            "transitions = r.transitions + EXCLUDED.transitions, dwell_ms_sum = r.dwell_ms_sum + EXCLUDED.dwell_ms_sum";
+
+    private final FunnelAnalytics funnelAnalytics;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long periodMs;
+
+    public FunnelRollupJob(FunnelAnalytics funnelAnalytics, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${kredo.funnel.rollup.period-minutes:60}") long periodMinutes) {
+        this.funnelAnalytics = funnelAnalytics;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.periodMs = periodMinutes * 60_000;
+    }
+
+    @Scheduled(fixedDelayString = "${kredo.funnel.rollup.flush-interval-ms:60000}",
+            initialDelayString = "${kredo.funnel.rollup.flush-interval-ms:60000}")
+    public void tick() {
+        flush(Instant.now());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush(Instant.now());
+    }
+
+    /**
+     * Write everything recorded since the last flush into the period containing {@code now}.
+     * Returns the number of rows written.
+     */
+    public int flush(Instant now) {
+        List<FunnelAnalytics.Rollup> rollups = funnelAnalytics.drain();
+        if (rollups.isEmpty()) {
+            return 0;
+        }
+        Timestamp periodStart = new Timestamp(now.toEpochMilli() - Math.floorMod(now.toEpochMilli(), periodMs));
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT, rollups.stream()
+                    .map(rollup -> new Object[]{periodStart, rollup.fromStatus(), rollup.toStatus(),
+                            rollup.dwellLeMs(), rollup.transitions(), rollup.dwellMsSum()})
+                    .toList()));
+            log.debug("Funnel rollup flushed: {} rows for period {}", rollups.size(), periodStart.toInstant());
+            return rollups.size();
+        } catch (DataAccessException | TransactionException e) {
+            funnelAnalytics.restore(rollups);
+            log.warn("Funnel rollup flush failed, will retry: {}", e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package az.kredo.loan.service;
+
+import az.kredo.loan.config.EncryptionProperties;
+import az.kredo.loan.entity.BatchJobCheckpoint;
+import az.kredo.loan.repository.BatchJobCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A throttled, resumable rewrite of rows walked in UUID primary key order.
+ *
+ * Each batch runs in one short transaction on the node that holds the job's row in
+ * batch_job_checkpoints (locked with SKIP LOCKED, so other nodes skip the tick): read the next
+ * batch-size rows after the checkpoint, compute updates for the rows that need one on a small
+ * worker pool, apply them with one batched UPDATE and advance the checkpoint. Only the rows of
+ * the batch are locked. The job restarts from the first row whenever {@link #target()} changes
+ * and is idle once it has passed the last row. Subclasses schedule {@link #tick()}.
+ *
+ * @param <R> a row as read by the select statement
+ */
+@Slf4j
+public abstract class KeysetBatchJob<R> {
+
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private final String jobName;
+    private final String selectSql;
+    private final RowMapper<R> rowMapper;
+    private final String updateSql;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchJobCheckpointRepository checkpointRepository;
+    private final int batchSize;
+    private final int parallelism;
+    private final ExecutorService workers;
+
+    /**
+     * @param selectSql rows after the id bound to the first parameter, ordered by id, limited to
+     *                  the second parameter
+     * @param updateSql statement taking the parameters returned by {@link #update}
+     */
+    protected KeysetBatchJob(String jobName, String selectSql, RowMapper<R> rowMapper, String updateSql,
+            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            BatchJobCheckpointRepository checkpointRepository, EncryptionProperties.BatchJob settings) {
+        this.jobName = jobName;
+        this.selectSql = selectSql;
+        this.rowMapper = rowMapper;
+        this.updateSql = updateSql;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.checkpointRepository = checkpointRepository;
+        this.batchSize = settings.getBatchSize();
+        this.parallelism = Math.max(settings.getParallelism(), 1);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, jobName + "-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * What the job converges rows to; a new value restarts it from the first row.
+     */
+    protected abstract String target();
+
+    /**
+     * Whether {@code target} is older than the one the checkpoint already works towards, as on a
+     * node not yet upgraded during a rolling deploy. Such a node leaves the job alone instead
+     * of restarting it. By default no target is older than another.
+     */
+    protected boolean isOlder(String target, String checkpointTarget) {
+        return false;
+    }
+
+    protected abstract UUID id(R row);
+
+    protected abstract boolean needsUpdate(R row);
+
+    /**
+     * Parameters of the update statement for a row, or null if the row turns out to be up to
+     * date already. Runs on the worker pool.
+     */
+    protected abstract Object[] update(R row);
+
+    @PostConstruct
+    public void init() {
+        if (checkpointRepository.existsById(jobName)) {
+            return;
+        }
+        try {
+            checkpointRepository.saveAndFlush(BatchJobCheckpoint.builder()
+                    .jobName(jobName)
+                    .updatedAt(Instant.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Another node created it first
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public void tick() {
+        try {
+            runBatch();
+        } catch (DataAccessException e) {
+            log.warn("Batch of {} failed, will retry: {}", jobName, e.getMessage());
+        }
+    }
+
+    /**
+     * Process the next batch. Returns false when there was nothing to do: the job is complete,
+     * or another node holds the checkpoint.
+     */
+    public boolean runBatch() {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            BatchJobCheckpoint checkpoint = checkpointRepository.lockByJobName(jobName).orElse(null);
+            if (checkpoint == null) {
+                return false;
+            }
+            String target = target();
+            if (checkpoint.getTarget() != null && isOlder(target, checkpoint.getTarget())) {
+                return false;
+            }
+            if (!target.equals(checkpoint.getTarget())) {
+                checkpoint.setTarget(target);
+                checkpoint.setLastId(null);
+                checkpoint.setProcessed(0);
+                checkpoint.setCompletedAt(null);
+                log.info("{} to {} started", jobName, target);
+            } else if (checkpoint.getCompletedAt() != null) {
+                return false;
+            }
+
+            UUID after = checkpoint.getLastId() != null ? checkpoint.getLastId() : FIRST_ID;
+            List<R> rows = jdbcTemplate.query(selectSql, rowMapper, after, batchSize);
+            List<Object[]> updates = updates(rows.stream().filter(this::needsUpdate).toList());
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(updateSql, updates);
+            }
+
+            Instant now = Instant.now();
+            checkpoint.setProcessed(checkpoint.getProcessed() + rows.size());
+            checkpoint.setUpdatedAt(now);
+            if (rows.size() < batchSize) {
+                checkpoint.setCompletedAt(now);
+                log.info("{} to {} complete: {} rows checked", jobName, target, checkpoint.getProcessed());
+            } else {
+                checkpoint.setLastId(id(rows.get(rows.size() - 1)));
+                log.debug("{} to {}: {} rows checked, {} updated in this batch",
+                        jobName, target, checkpoint.getProcessed(), updates.size());
+            }
+            checkpointRepository.save(checkpoint);
+            return true;
+        }));
+    }
+
+    /**
+     * Compute updates on the worker pool, one contiguous chunk per worker.
+     */
+    private List<Object[]> updates(List<R> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        int chunkSize = (rows.size() + parallelism - 1) / parallelism;
+        List<CompletableFuture<List<Object[]>>> chunks = new ArrayList<>(parallelism);
+        for (int start = 0; start < rows.size(); start += chunkSize) {
+            List<R> chunk = rows.subList(start, Math.min(start + chunkSize, rows.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> updateChunk(chunk), workers));
+        }
+        List<Object[]> updates = new ArrayList<>(rows.size());
+        for (CompletableFuture<List<Object[]>> chunk : chunks) {
+            updates.addAll(chunk.join());
+        }
+        return updates;
+    }
+
+    private List<Object[]> updateChunk(List<R> rows) {
+        List<Object[]> updates = new ArrayList<>(rows.size());
+        for (R row : rows) {
+            try {
+                Object[] update = update(row);
+                if (update != null) {
+                    updates.add(update);
+                }
+            } catch (RuntimeException e) {
+                // Leave an unreadable row as it is rather than stall the job on it
+                log.warn("{} skipped row {}: {}", jobName, id(row), e.getMessage());
+            }
+        }
+        return updates;
+    }
+}
@@ -7,7 +7,9 @@ import az.kredo.loan.entity.LoanApplication;
 import az.kredo.loan.exception.LoanApplicationException;
 import az.kredo.loan.integration.CRMClient;
 import az.kredo.loan.repository.LoanApplicationRepository;
+import az.kredo.loan.security.BlindIndexer;
 import az.kredo.loan.security.FieldEncryptor;
+import az.kredo.loan.support.ServerTiming;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
@@ -15,6 +17,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -24,15 +27,18 @@ public class LoanApplicationService {
 
     private final LoanApplicationRepository loanApplicationRepository;
     private final FieldEncryptor fieldEncryptor;
+    private final BlindIndexer blindIndexer;
     private final DecisionEngine decisionEngine;
     private final CRMClient crmClient;
+    private final LoanFunnelMetrics funnelMetrics;
+    private final FunnelAnalytics funnelAnalytics;
 
     /**
      * Create a new loan application with personal and financial information.
      */
     @Transactional
     public ApplyToLoanResponse applyToLoan(ApplyToLoanRequest request, String authenticatedPhone) {
-        log.info("Processing loan application for phone [MASKED]");
+        log.debug("Processing loan application for phone [MASKED]");
 
         // Verify the request phone matches the authenticated phone
         if (!request.getPhoneNumber().equals(authenticatedPhone)) {
@@ -62,10 +68,12 @@ public class LoanApplicationService {
                 .build();
 
         // Encrypt sensitive fields
-        application.setFin(request.getFin(), fieldEncryptor);
-        application.setAddress(request.getAddress(), fieldEncryptor);
+        application.setFin(request.getFin(), fieldEncryptor, blindIndexer);
+        application.setAddress(request.getAddress(), fieldEncryptor, blindIndexer);
 
         LoanApplication saved = loanApplicationRepository.save(application);
+        funnelMetrics.transition(null, saved.getStatus());
+        funnelAnalytics.transition(null, saved.getStatus(), 0);
         log.info("Loan application created: {}", saved.getId());
 
         // Async: Push to CRM
@@ -84,7 +92,7 @@ public class LoanApplicationService {
     public SubmitAmountResponse submitRequestedAmount(UUID applicationId,
             SubmitAmountRequest request,
             String authenticatedPhone) {
-        log.info("Submitting requested amount for application: {}", applicationId);
+        log.debug("Submitting requested amount for application: {}", applicationId);
 
         LoanApplication application = loanApplicationRepository.findById(applicationId)
                 .orElseThrow(() -> LoanApplicationException.notFound(applicationId.toString()));
@@ -105,10 +113,10 @@ public class LoanApplicationService {
         // Update with requested amount
         application.setRequestedAmount(request.getRequestedAmount());
         application.setTermMonths(request.getTermMonths());
-        application.setStatus(ApplicationStatus.SCORING);
+        moveTo(application, ApplicationStatus.SCORING);
 
         loanApplicationRepository.save(application);
-        log.info("Application {} moved to SCORING status", applicationId);
+        log.debug("Application {} moved to SCORING status", applicationId);
 
         // Synchronous scoring for immediate response
         processDecision(application);
@@ -121,7 +129,7 @@ public class LoanApplicationService {
 
     @Transactional(readOnly = true)
     public LoanResultResponse getResult(UUID applicationId, String authenticatedPhone) {
-        log.info("Fetching result for application: {}", applicationId);
+        log.debug("Fetching result for application: {}", applicationId);
 
         LoanApplication application = loanApplicationRepository.findById(applicationId)
                 .orElseThrow(() -> LoanApplicationException.notFound(applicationId.toString()));
@@ -144,6 +152,31 @@ public class LoanApplicationService {
                 .build();
     }
 
+    /**
+     * Applications for a FIN, newest first, for dedupe, fraud checks and customer service.
+     * An index seek on the blind index instead of decrypting every row.
+     */
+    @Transactional(readOnly = true)
+    public List<LoanApplication> findByFin(String fin) {
+        String finIndex = blindIndexer.finIndex(fin);
+        if (finIndex == null) {
+            return List.of();
+        }
+        return loanApplicationRepository.findByFinIndexOrderByCreatedAtDesc(finIndex);
+    }
+
+    /**
+     * Applications for an address (compared after normalization), newest first.
+     */
+    @Transactional(readOnly = true)
+    public List<LoanApplication> findByAddress(String address) {
+        String addressIndex = blindIndexer.addressIndex(address);
+        if (addressIndex == null) {
+            return List.of();
+        }
+        return loanApplicationRepository.findByAddressIndexOrderByCreatedAtDesc(addressIndex);
+    }
+
     /**
      * Accept the presented loan offer.
      */
@@ -157,7 +190,7 @@ public class LoanApplicationService {
             throw LoanApplicationException.unauthorized();
         }
 
-        application.setStatus(ApplicationStatus.OFFER_ACCEPTED);
+        moveTo(application, ApplicationStatus.OFFER_ACCEPTED);
         loanApplicationRepository.save(application);
     }
 
@@ -174,8 +207,9 @@ public class LoanApplicationService {
             throw LoanApplicationException.unauthorized();
         }
 
-        application.setStatus(ApplicationStatus.OFFER_REJECTED);
+        moveTo(application, ApplicationStatus.OFFER_REJECTED);
         application.setDecision(az.kredo.loan.entity.Decision.CUSTOMER_REJECTED);
+        funnelMetrics.decision(az.kredo.loan.entity.Decision.CUSTOMER_REJECTED);
         loanApplicationRepository.save(application);
     }
 
@@ -192,21 +226,23 @@ public class LoanApplicationService {
             throw LoanApplicationException.unauthorized();
         }
 
-        application.setStatus(ApplicationStatus.COMPLETED);
+        moveTo(application, ApplicationStatus.COMPLETED);
         loanApplicationRepository.save(application);
     }
 
     /**
-     * Async method to push application to CRM.
+     * Async method to push application to CRM. The call returns at once when invoked from this
+     * class too: the push and the result logging run on the crm executor, which carries the
+     * request's requestId into those log lines.
      */
     @Async
     public void pushToCrmAsync(LoanApplication application) {
         try {
-            crmClient.pushApplication(
+            funnelMetrics.crm(LoanFunnelMetrics.CRM_PUSH_APPLICATION, () -> crmClient.pushApplication(
                     application.getId().toString(),
                     application.getPhoneNumber(),
                     application.getFirstName(),
-                    application.getLastName()).thenAccept(result -> {
+                    application.getLastName()), CRMClient.PushResult::success).thenAccept(result -> {
                         if (result.success()) {
                             log.info("Application {} pushed to CRM, ref: {}",
                                     application.getId(), result.crmReferenceId());
@@ -226,14 +262,18 @@ public class LoanApplicationService {
     public void processDecision(LoanApplication application) {
         try {
             // Fetch CRM flags (now synchronous for speed)
-            az.kredo.loan.integration.CRMClient.CustomerFlags flags = crmClient
-                    .fetchCustomerFlags(application.getPhoneNumber()).join();
+            long crmStart = ServerTiming.start();
+            az.kredo.loan.integration.CRMClient.CustomerFlags flags = funnelMetrics.crm(
+                    LoanFunnelMetrics.CRM_FETCH_CUSTOMER_FLAGS,
+                    () -> crmClient.fetchCustomerFlags(application.getPhoneNumber()), result -> true).join();
+            ServerTiming.stop(ServerTiming.Span.CRM, crmStart);
 
-            log.info("CRM flags received for application: {}. Customer tier: {}",
+            log.debug("CRM flags received for application: {}. Customer tier: {}",
                     application.getId(), flags.creditTier());
 
             // Evaluate using decision engine
-            DecisionEngine.DecisionResult result = decisionEngine.evaluate(application);
+            DecisionEngine.DecisionResult result = funnelMetrics.evaluate(() -> decisionEngine.evaluate(application));
+            funnelMetrics.decision(result.getDecision());
 
             // Update application with decision
             application.setScore(result.getScore());
@@ -245,9 +285,9 @@ public class LoanApplicationService {
             // If rejected by bank, go straight to COMPLETED. If approved/review, wait for
             // customer accept.
             if (result.getDecision() == az.kredo.loan.entity.Decision.REJECTED) {
-                application.setStatus(ApplicationStatus.COMPLETED);
+                moveTo(application, ApplicationStatus.COMPLETED);
             } else {
-                application.setStatus(ApplicationStatus.OFFER_PENDING);
+                moveTo(application, ApplicationStatus.OFFER_PENDING);
             }
 
             loanApplicationRepository.save(application);
@@ -257,4 +297,16 @@ public class LoanApplicationService {
             log.error("Error processing decision for application: {}", application.getId(), e);
         }
     }
+
+    private void moveTo(LoanApplication application, ApplicationStatus status) {
+        Instant now = Instant.now();
+        // Rows from before status_changed_at existed were last changed at updated_at at the latest
+        Instant enteredAt = application.getStatusChangedAt() != null
+                ? application.getStatusChangedAt() : application.getUpdatedAt();
+        funnelMetrics.transition(application.getStatus(), status);
+        funnelAnalytics.transition(application.getStatus(), status,
+                enteredAt != null ? now.toEpochMilli() - enteredAt.toEpochMilli() : 0);
+        application.setStatus(status);
+        application.setStatusChangedAt(now);
+    }
 }
@@ -0,0 +1,116 @@
+package az.kredo.loan.service;
+
+import az.kredo.loan.entity.ApplicationStatus;
+import az.kredo.loan.entity.Decision;
+import az.kredo.loan.config.RequestCorrelationFilter;
+import az.kredo.loan.support.ServerTiming;
+import az.kredo.loan.support.jfr.CrmCallEvent;
+import az.kredo.loan.support.jfr.KredoEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the loan application funnel: scoring and CRM latency, decisions and status
+ * transitions. Every tag value comes from an enum or a constant, so the number of series is
+ * fixed no matter how many applications there are.
+ */
+@Component
+public class LoanFunnelMetrics {
+
+    static final String CRM_PUSH_APPLICATION = "push-application";
+    static final String CRM_FETCH_CUSTOMER_FLAGS = "fetch-customer-flags";
+
+    /** Status tag of the transition that creates an application. */
+    private static final String NONE = "NONE";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer evaluateTimer;
+
+    public LoanFunnelMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.evaluateTimer = Timer.builder("kredo.decision.evaluate")
+                .description("Scoring of an application by the decision engine")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the decision engine under the kredo.decision.evaluate timer and the scoring span.
+     */
+    public <T> T evaluate(Supplier<T> evaluation) {
+        long start = ServerTiming.start();
+        try {
+            return evaluateTimer.record(evaluation);
+        } finally {
+            ServerTiming.stop(ServerTiming.Span.SCORING, start);
+        }
+    }
+
+    /**
+     * Time a CRM call until its future completes, tagged with the outcome: failure when the
+     * future fails or the result does not pass {@code succeeded}. Also emitted as a
+     * {@link CrmCallEvent} for Flight Recorder.
+     */
+    public <T> CompletableFuture<T> crm(String operation, Supplier<CompletableFuture<T>> call,
+            Predicate<T> succeeded) {
+        CrmCallEvent event = new CrmCallEvent(operation);
+        event.begin();
+        String requestId = event.isEnabled() ? MDC.get(RequestCorrelationFilter.MDC_REQUEST_ID) : null;
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            crmTimer(operation, false).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.finish(KredoEvent.FAILED, requestId);
+            throw e;
+        }
+        return future.whenComplete((result, error) -> {
+            boolean success = error == null && succeeded.test(result);
+            crmTimer(operation, success).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.finish(success ? KredoEvent.SUCCESS : KredoEvent.FAILED, requestId);
+        });
+    }
+
+    public void decision(Decision decision) {
+        Counter.builder("kredo.loan.decisions")
+                .description("Loan decisions by outcome")
+                .tag("decision", decision.name())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Count a status change; {@code from} is null for a new application.
+     */
+    public void transition(ApplicationStatus from, ApplicationStatus to) {
+        Counter.builder("kredo.loan.status.transitions")
+                .description("Loan application status changes")
+                .tag("from", from != null ? from.name() : NONE)
+                .tag("to", to.name())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer crmTimer(String operation, boolean success) {
+        return Timer.builder("kredo.crm.calls")
+                .description("CRM calls until their result arrives")
+                .tag("operation", operation)
+                .tag("outcome", success ? "success" : "failure")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+}
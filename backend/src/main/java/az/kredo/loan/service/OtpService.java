@@ -7,27 +7,42 @@ import az.kredo.loan.dto.otp.VerifyOtpRequest;
 import az.kredo.loan.dto.otp.VerifyOtpResponse;
 import az.kredo.loan.entity.OtpRequest;
 import az.kredo.loan.exception.OtpException;
-import az.kredo.loan.repository.OtpRequestRepository;
+import az.kredo.loan.integration.OtpDeliveryDispatcher;
+import az.kredo.loan.integration.OtpDeliveryGateway.OtpMessage;
+import az.kredo.loan.repository.OtpAttemptState;
 import az.kredo.loan.security.JwtTokenProvider;
+import az.kredo.loan.security.OtpHasher;
+import az.kredo.loan.security.OtpRequestToken;
+import az.kredo.loan.security.OtpRequestTokenCodec;
+import az.kredo.loan.service.otp.OtpSendTracker;
+import az.kredo.loan.service.otp.OtpSendTracker.IssuedOtp;
+import az.kredo.loan.service.otp.OtpStore;
+import az.kredo.loan.service.otp.StatelessOtpAttempts;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class OtpService {
 
-    private final OtpRequestRepository otpRequestRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final OtpStore otpStore;
+    private final OtpHasher otpHasher;
     private final JwtTokenProvider jwtTokenProvider;
+    private final OtpRequestTokenCodec otpRequestTokenCodec;
+    private final StatelessOtpAttempts statelessOtpAttempts;
+    private final OtpSendTracker otpSendTracker;
+    private final OtpDeliveryDispatcher otpDeliveryDispatcher;
+    private final PersonalDataService personalDataService;
+    private final RefreshTokenService refreshTokenService;
     private final SecureRandom secureRandom = new SecureRandom();
 
     @Value("${kredo.otp.ttl-seconds:120}")
@@ -42,19 +57,66 @@ public class OtpService {
     @Value("${kredo.otp.code-length:6}")
     private int codeLength;
 
+    @Value("${kredo.otp.mode:stored}")
+    private String otpMode;
+
     /**
      * Generate a new OTP for the given phone number.
      * The OTP code is hashed before storage and never logged.
+     * Within the resend cooldown, or once the phone has used up its sends for the window, the
+     * request is refused with the time until the next send. The live request is not returned:
+     * anyone who knows the phone number could ask for it, and only the original caller may have it.
      */
-    @Transactional
     public GenerateOtpResponse generateOtp(GenerateOtpRequest request) {
+        Instant now = Instant.now();
+        String phoneNumber = request.getPhoneNumber();
+
+        // Before reserve, so a saturated pipeline does not use up the phone's sends
+        if (!otpDeliveryDispatcher.hasCapacity(request.getChannel())) {
+            log.warn("OTP delivery queue is full, rejecting generate request");
+            throw OtpException.deliveryUnavailable();
+        }
+
+        if (!isStateless() && otpSendTracker.isUnknown(phoneNumber)) {
+            // The live request may have been issued by another node or before a restart
+            otpStore.findLatestActive(phoneNumber, now).ifPresent(existing ->
+                    otpSendTracker.recordIssued(phoneNumber, new IssuedOtp(
+                            existing.getId(), null, existing.getCreatedAt(), existing.getExpiresAt())));
+        }
+
+        OtpSendTracker.Decision decision = otpSendTracker.reserve(phoneNumber, now);
+        switch (decision.outcome()) {
+            case COOLDOWN -> {
+                log.info("OTP resend within cooldown, next send in {}s", decision.retryAfterSeconds());
+                throw OtpException.resendLimited(decision.retryAfterSeconds());
+            }
+            case LIMITED -> {
+                log.warn("OTP resend limit reached, next send in {}s", decision.retryAfterSeconds());
+                throw OtpException.resendLimited(decision.retryAfterSeconds());
+            }
+            default -> {
+            }
+        }
+
+        IssuedOtp issued;
+        try {
+            issued = isStateless() ? issueStatelessOtp(request, now) : issueStoredOtp(request, now);
+        } catch (RuntimeException e) {
+            // Nothing was sent, e.g. the queue filled up since the capacity check
+            otpSendTracker.release(phoneNumber, now);
+            throw e;
+        }
+        otpSendTracker.recordIssued(phoneNumber, issued);
+        return toResponse(issued, now, decision.retryAfterSeconds());
+    }
+
+    private IssuedOtp issueStoredOtp(GenerateOtpRequest request, Instant now) {
         // Generate 6-digit OTP
         String otpCode = generateRandomOtp();
 
         // Hash the OTP before storing
-        String otpHash = passwordEncoder.encode(otpCode);
+        String otpHash = otpHasher.hash(otpCode);
 
-        Instant now = Instant.now();
         Instant expiresAt = now.plus(otpTtlSeconds, ChronoUnit.SECONDS);
 
         OtpRequest otpRequest = OtpRequest.builder()
@@ -67,103 +129,206 @@ public class OtpService {
                 .expiresAt(expiresAt)
                 .build();
 
-        OtpRequest saved = otpRequestRepository.save(otpRequest);
+        OtpRequest saved = otpStore.create(otpRequest);
 
-        // In a real system, send OTP via SMS/Email here
-        // For development, log the OTP code prominently
-        log.info("========================================");
-        log.info("  DEV MODE - OTP CODE: {}  ", otpCode);
-        log.info("  Phone: {}  ", request.getPhoneNumber());
-        log.info("  Request ID: {}  ", saved.getId());
-        log.info("========================================");
+        deliver(new OtpMessage(saved.getId(), request.getChannel(), request.getPhoneNumber(),
+                otpCode, saved.getExpiresAt()));
 
-        return GenerateOtpResponse.builder()
-                .requestId(saved.getId())
-                .ttlSeconds(otpTtlSeconds)
-                .build();
+        return new IssuedOtp(saved.getId(), null, now, saved.getExpiresAt());
     }
 
     /**
      * Verify an OTP code and return a JWT token on success.
+     * The attempt is counted (and the lockout applied) atomically by the store before the
+     * code is checked, so concurrent guesses cannot exceed max-attempts. There is deliberately
+     * no surrounding transaction: each store operation is atomic on its own, a rejection must
+     * not undo the counted attempt, and the in-memory store needs no DB connection at all.
      */
-    @Transactional
     public VerifyOtpResponse verifyOtp(VerifyOtpRequest request) {
-        OtpRequest otpRequest = otpRequestRepository.findById(request.getRequestId())
-                .orElseThrow(OtpException::notFound);
-
-        // Verify phone number matches
-        if (!otpRequest.getPhoneNumber().equals(request.getPhoneNumber())) {
-            log.warn("Phone number mismatch for OTP request: {}", request.getRequestId());
-            throw OtpException.notFound();
+        if (isStateless()) {
+            return verifyStatelessOtp(request);
         }
 
-        // Check if locked out
-        if (otpRequest.isLocked()) {
-            log.warn("OTP verification attempted while locked, requestId: {}", request.getRequestId());
-            throw OtpException.locked();
+        Instant now = Instant.now();
+
+        OtpAttemptState attempt = otpStore.registerAttempt(
+                request.getRequestId(),
+                request.getPhoneNumber(),
+                now,
+                maxAttempts,
+                now.plus(lockoutMinutes, ChronoUnit.MINUTES))
+                .orElseThrow(() -> rejectionFor(request));
+
+        // Check max attempts
+        if (attempt.attempts() > maxAttempts) {
+            log.warn("Max OTP attempts exceeded, requestId: {}", request.getRequestId());
+            throw OtpException.maxAttemptsExceeded();
         }
 
-        // Check if expired
-        if (otpRequest.isExpired()) {
-            log.info("OTP expired, requestId: {}", request.getRequestId());
-            throw OtpException.expired();
+        // Start the registry lookup so it overlaps with the code check
+        CompletableFuture<PersonalDataDto> prefill = personalDataService.prefetch(request.getPhoneNumber());
+
+        // Verify the OTP code
+        if (!otpHasher.matches(request.getOtpCode(), attempt.otpHash())) {
+            log.info("Invalid OTP attempt {}/{}, requestId: {}",
+                    attempt.attempts(), maxAttempts, request.getRequestId());
+            throw OtpException.invalid();
         }
 
-        // Check if already verified
-        if (otpRequest.getVerified()) {
+        // OTP is valid - mark as verified unless a concurrent request already did
+        if (!otpStore.markVerified(request.getRequestId(), now)) {
             log.info("OTP already verified, requestId: {}", request.getRequestId());
-            throw new OtpException("OTP_ALREADY_VERIFIED", "This OTP has already been verified.");
+            throw OtpException.alreadyVerified();
         }
 
-        // Increment attempts
-        otpRequest.incrementAttempts();
+        return verifiedResponse(request.getPhoneNumber(), request.getRequestId(), prefill);
+    }
 
-        // Check max attempts
-        if (otpRequest.getAttempts() > maxAttempts) {
-            otpRequest.setLockedUntil(Instant.now().plus(lockoutMinutes, ChronoUnit.MINUTES));
-            otpRequestRepository.save(otpRequest);
-            log.warn("Max OTP attempts exceeded, requestId: {}", request.getRequestId());
+    /**
+     * Stateless mode: the OTP code is derived from a sealed token that carries the phone number,
+     * expiry and request ID, so nothing is written per request.
+     */
+    private IssuedOtp issueStatelessOtp(GenerateOtpRequest request, Instant now) {
+        OtpRequestToken token = new OtpRequestToken(
+                UUID.randomUUID(),
+                request.getPhoneNumber(),
+                now.plus(otpTtlSeconds, ChronoUnit.SECONDS));
+        String otpCode = otpRequestTokenCodec.deriveCode(token, codeLength);
+
+        deliver(new OtpMessage(token.requestId(), request.getChannel(), request.getPhoneNumber(),
+                otpCode, token.expiresAt()));
+
+        return new IssuedOtp(token.requestId(), otpRequestTokenCodec.seal(token), now, token.expiresAt());
+    }
+
+    /**
+     * Hand the code to the delivery pipeline. The capacity check in generateOtp makes a refusal
+     * here rare; when it happens the issued request simply expires unused.
+     */
+    private void deliver(OtpMessage message) {
+        if (!otpDeliveryDispatcher.submit(message)) {
+            log.warn("OTP delivery queue rejected request {}", message.requestId());
+            throw OtpException.deliveryUnavailable();
+        }
+    }
+
+    private GenerateOtpResponse toResponse(IssuedOtp issued, Instant now, int resendAvailableInSeconds) {
+        long remainingMs = issued.expiresAt().toEpochMilli() - now.toEpochMilli();
+        return GenerateOtpResponse.builder()
+                .requestId(issued.requestId())
+                .requestToken(issued.requestToken())
+                .ttlSeconds((int) Math.max(0, remainingMs / 1000))
+                .resendAvailableInSeconds(resendAvailableInSeconds)
+                .build();
+    }
+
+    /**
+     * Stateless mode: the token is opened and checked without any lookup; only the attempt
+     * counter is consulted, and it is counted before the code is compared.
+     */
+    private VerifyOtpResponse verifyStatelessOtp(VerifyOtpRequest request) {
+        Instant now = Instant.now();
+
+        OtpRequestToken token = otpRequestTokenCodec.open(request.getRequestToken())
+                .orElseThrow(OtpException::notFound);
+
+        if (!token.requestId().equals(request.getRequestId())
+                || !token.phoneNumber().equals(request.getPhoneNumber())) {
+            log.warn("OTP request token does not match request: {}", request.getRequestId());
+            throw OtpException.notFound();
+        }
+
+        if (token.isExpired(now)) {
+            log.info("OTP expired, requestId: {}", token.requestId());
+            throw OtpException.expired();
+        }
+
+        int attempts = statelessOtpAttempts.registerAttempt(
+                token.requestId(),
+                token.expiresAt(),
+                now,
+                maxAttempts,
+                now.plus(lockoutMinutes, ChronoUnit.MINUTES));
+
+        if (attempts > maxAttempts) {
+            log.warn("Max OTP attempts exceeded, requestId: {}", token.requestId());
             throw OtpException.maxAttemptsExceeded();
         }
 
-        // Verify the OTP code
-        if (!passwordEncoder.matches(request.getOtpCode(), otpRequest.getOtpHash())) {
-            otpRequestRepository.save(otpRequest);
-            log.info("Invalid OTP attempt {}/{}, requestId: {}",
-                    otpRequest.getAttempts(), maxAttempts, request.getRequestId());
+        CompletableFuture<PersonalDataDto> prefill = personalDataService.prefetch(token.phoneNumber());
+
+        if (!otpRequestTokenCodec.matches(token, request.getOtpCode(), codeLength)) {
+            log.info("Invalid OTP attempt {}/{}, requestId: {}", attempts, maxAttempts, token.requestId());
             throw OtpException.invalid();
         }
 
-        // OTP is valid - mark as verified
-        otpRequest.setVerified(true);
-        otpRequestRepository.save(otpRequest);
+        if (!statelessOtpAttempts.markVerified(token.requestId())) {
+            log.info("OTP already verified, requestId: {}", token.requestId());
+            throw OtpException.alreadyVerified();
+        }
+
+        return verifiedResponse(token.phoneNumber(), token.requestId(), prefill);
+    }
 
+    private VerifyOtpResponse verifiedResponse(String phoneNumber, UUID requestId,
+            CompletableFuture<PersonalDataDto> prefill) {
         // Generate JWT token
-        String accessToken = jwtTokenProvider.generateToken(otpRequest.getPhoneNumber());
+        String accessToken = jwtTokenProvider.generateToken(phoneNumber);
         int expiresInSeconds = jwtTokenProvider.getExpirationSeconds();
+        String refreshToken = refreshTokenService.issue(phoneNumber);
 
-        log.info("OTP verified successfully, requestId: {}", request.getRequestId());
-
-        // Mock fetching data from ASAN/IAMAS based on verified phone
-        PersonalDataDto asanData = PersonalDataDto.builder()
-                .firstName("Turan")
-                .lastName("Aliyev")
-                .fin("7ABC123")
-                .dateOfBirth(java.time.LocalDate.of(1990, 5, 10))
-                .address("Bakı, Nəsimi rayonu, mənzil 42")
-                .employmentStatus("EMPLOYED")
-                .monthlyIncome(3000.0)
-                .existingMonthlyDebt(100.0)
-                .build();
+        log.info("OTP verified successfully, requestId: {}", requestId);
+        otpSendTracker.clearIssued(phoneNumber, requestId);
+
+        // ASAN/IAMAS prefill, omitted if the registry missed its deadline
+        PersonalDataDto asanData = personalDataService.awaitPrefill(prefill);
 
         return VerifyOtpResponse.builder()
                 .verified(true)
                 .accessToken(accessToken)
                 .expiresInSeconds(expiresInSeconds)
+                .refreshToken(refreshToken)
                 .personalData(asanData)
                 .build();
     }
 
+    private boolean isStateless() {
+        return "stateless".equals(otpMode);
+    }
+
+    /**
+     * Work out why no eligible OTP request matched. Only runs on the rejection path.
+     */
+    private OtpException rejectionFor(VerifyOtpRequest request) {
+        OtpRequest otpRequest = otpStore.find(request.getRequestId()).orElse(null);
+
+        if (otpRequest == null) {
+            return OtpException.notFound();
+        }
+
+        if (!otpRequest.getPhoneNumber().equals(request.getPhoneNumber())) {
+            log.warn("Phone number mismatch for OTP request: {}", request.getRequestId());
+            return OtpException.notFound();
+        }
+
+        if (otpRequest.isLocked()) {
+            log.warn("OTP verification attempted while locked, requestId: {}", request.getRequestId());
+            return OtpException.locked();
+        }
+
+        if (otpRequest.isExpired()) {
+            log.info("OTP expired, requestId: {}", request.getRequestId());
+            return OtpException.expired();
+        }
+
+        if (otpRequest.getVerified()) {
+            log.info("OTP already verified, requestId: {}", request.getRequestId());
+            return OtpException.alreadyVerified();
+        }
+
+        return OtpException.notFound();
+    }
+
     /**
      * Generate a random N-digit OTP code.
      */
@@ -0,0 +1,87 @@
+package az.kredo.loan.service;
+
+import az.kredo.loan.dto.otp.PersonalDataDto;
+import az.kredo.loan.integration.PersonalDataClient;
+import az.kredo.loan.support.BoundedTtlCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Registry prefill for the verify-otp response. The lookup is started as soon as an attempt has
+ * been counted, runs while the code is checked, and is awaited only up to a deadline: a slow
+ * registry costs the user the prefill, never login latency. Results are cached per phone so
+ * repeated logins skip the registry, and a lookup that misses the deadline still warms the cache.
+ */
+@Slf4j
+@Service
+public class PersonalDataService {
+
+    private final PersonalDataClient personalDataClient;
+    private final BoundedTtlCache<String, PersonalDataDto> cache;
+    private final long cacheTtlMs;
+    private final long deadlineMs;
+
+    public PersonalDataService(PersonalDataClient personalDataClient,
+            @Value("${kredo.integration.personal-data.cache-max-entries:50000}") int cacheMaxEntries,
+            @Value("${kredo.integration.personal-data.cache-ttl-minutes:10}") int cacheTtlMinutes,
+            @Value("${kredo.integration.personal-data.deadline-ms:250}") long deadlineMs) {
+        this.personalDataClient = personalDataClient;
+        this.cache = new BoundedTtlCache<>(cacheMaxEntries, 1000, true);
+        this.cacheTtlMs = Duration.ofMinutes(cacheTtlMinutes).toMillis();
+        this.deadlineMs = deadlineMs;
+    }
+
+    /**
+     * Start (or serve from cache) the registry lookup for a phone number.
+     */
+    public CompletableFuture<PersonalDataDto> prefetch(String phoneNumber) {
+        PersonalDataDto cached = cache.get(phoneNumber);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        try {
+            return personalDataClient.fetchPersonalData(phoneNumber).whenComplete((data, error) -> {
+                if (data != null) {
+                    cache.put(phoneNumber, data, System.currentTimeMillis() + cacheTtlMs);
+                } else if (error != null) {
+                    log.warn("Personal data lookup failed: {}", error.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Personal data lookup could not be started: {}", e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Wait for a prefetch up to the deadline, measured from now.
+     *
+     * @return the data, or null if the lookup failed or is still running
+     */
+    public PersonalDataDto awaitPrefill(CompletableFuture<PersonalDataDto> prefetch) {
+        try {
+            return prefetch.get(deadlineMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.info("Personal data lookup missed the {} ms deadline, omitting prefill", deadlineMs);
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${kredo.integration.personal-data.cache-sweep-interval-ms:60000}")
+    public void expireCache() {
+        cache.expire();
+    }
+}
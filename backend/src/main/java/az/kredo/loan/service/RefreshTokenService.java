@@ -0,0 +1,150 @@
+package az.kredo.loan.service;
+
+import az.kredo.loan.dto.token.RefreshTokenResponse;
+import az.kredo.loan.entity.RefreshToken;
+import az.kredo.loan.exception.TokenException;
+import az.kredo.loan.repository.RefreshTokenRepository;
+import az.kredo.loan.security.JwtTokenProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Rotating refresh tokens, so a user who takes longer than one access token lifetime to fill
+ * in the form does not have to go through OTP (and another SMS) again.
+ *
+ * Token: base64url(id) "." base64url(256-bit secret). Each refresh uses up the presented token
+ * and issues the next one of its family; a family lives at most max-lifetime-hours from the OTP
+ * verification that started it. A used token presented again means it was copied, so the whole
+ * family is revoked and both holders have to verify their phone again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final int SECRET_LENGTH = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${kredo.security.refresh.ttl-minutes:60}")
+    private int ttlMinutes;
+
+    @Value("${kredo.security.refresh.max-lifetime-hours:12}")
+    private int maxLifetimeHours;
+
+    /**
+     * Start a new token family for a freshly verified phone number.
+     */
+    public String issue(String phoneNumber) {
+        Instant now = Instant.now();
+        return create(UUID.randomUUID(), phoneNumber, now, now.plus(maxLifetimeHours, ChronoUnit.HOURS));
+    }
+
+    /**
+     * Exchange a refresh token for a new access token and the next refresh token of its family.
+     */
+    @Transactional(noRollbackFor = TokenException.class)
+    public RefreshTokenResponse refresh(String presented) {
+        Instant now = Instant.now();
+        int dot = presented.indexOf('.');
+        UUID id;
+        byte[] secret;
+        try {
+            id = toUuid(DECODER.decode(presented.substring(0, Math.max(dot, 0))));
+            secret = DECODER.decode(presented.substring(dot + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw TokenException.invalidRefreshToken();
+        }
+
+        RefreshToken token = refreshTokenRepository.findById(id).orElse(null);
+        if (token == null || !MessageDigest.isEqual(
+                hash(secret).getBytes(StandardCharsets.US_ASCII),
+                token.getTokenHash().getBytes(StandardCharsets.US_ASCII))) {
+            throw TokenException.invalidRefreshToken();
+        }
+        if (token.getRevoked() || !token.getExpiresAt().isAfter(now)) {
+            throw TokenException.invalidRefreshToken();
+        }
+
+        if (token.getUsedAt() != null || refreshTokenRepository.markUsed(id, now) == 0) {
+            int revoked = refreshTokenRepository.revokeFamily(token.getFamilyId());
+            log.warn("Refresh token reuse detected, revoked {} tokens of family {}", revoked, token.getFamilyId());
+            throw TokenException.refreshTokenReused();
+        }
+
+        String next = create(token.getFamilyId(), token.getPhoneNumber(), now, token.getFamilyExpiresAt());
+        log.info("Refresh token rotated, family {}", token.getFamilyId());
+        return RefreshTokenResponse.builder()
+                .accessToken(jwtTokenProvider.generateToken(token.getPhoneNumber()))
+                .expiresInSeconds(jwtTokenProvider.getExpirationSeconds())
+                .refreshToken(next)
+                .build();
+    }
+
+    @Scheduled(cron = "${kredo.security.refresh.purge-cron:0 40 * * * *}")
+    public void purgeExpired() {
+        int removed = refreshTokenRepository.deleteExpiredBefore(Instant.now());
+        if (removed > 0) {
+            log.debug("Purged {} expired refresh tokens", removed);
+        }
+    }
+
+    private String create(UUID familyId, String phoneNumber, Instant now, Instant familyExpiresAt) {
+        UUID id = UUID.randomUUID();
+        byte[] secret = new byte[SECRET_LENGTH];
+        secureRandom.nextBytes(secret);
+        Instant expiresAt = now.plus(ttlMinutes, ChronoUnit.MINUTES);
+
+        refreshTokenRepository.save(RefreshToken.builder()
+                .id(id)
+                .familyId(familyId)
+                .phoneNumber(phoneNumber)
+                .tokenHash(hash(secret))
+                .createdAt(now)
+                .expiresAt(expiresAt.isBefore(familyExpiresAt) ? expiresAt : familyExpiresAt)
+                .familyExpiresAt(familyExpiresAt)
+                .build());
+        return ENCODER.encodeToString(toBytes(id)) + "." + ENCODER.encodeToString(secret);
+    }
+
+    private static String hash(byte[] secret) {
+        try {
+            return ENCODER.encodeToString(MessageDigest.getInstance("SHA-256").digest(secret));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    private static UUID toUuid(byte[] bytes) {
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("Bad token ID");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,251 @@
+package az.kredo.loan.service.otp;
+
+import az.kredo.loan.entity.OtpRequest;
+import az.kredo.loan.exception.OtpException;
+import az.kredo.loan.repository.OtpAttemptState;
+import az.kredo.loan.support.HierarchicalTimingWheel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory OTP store: generate and verify never touch the database.
+ * Requests live until max(expiresAt, lockedUntil), driven by a hierarchical timing wheel.
+ * When write-behind is on, each request's final state is batched into otp_requests for audit
+ * after it leaves memory. Capacity is bounded by kredo.otp.memory.max-entries.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kredo.otp.store", havingValue = "memory")
+public class InMemoryOtpStore implements OtpStore {
+
+    private static final String AUDIT_INSERT = "INSERT INTO otp_requests " +
+            "(id, phone_number, otp_hash, channel, attempts, verified, created_at, expires_at, locked_until) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxEntries;
+    private final boolean writeBehind;
+    private final int writeBehindBatchSize;
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Entry> latestByPhone = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel<Entry> wheel;
+    private final BlockingQueue<OtpRequest> auditQueue;
+    private final AtomicLong droppedAuditRows = new AtomicLong();
+
+    public InMemoryOtpStore(JdbcTemplate jdbcTemplate,
+            @Value("${kredo.otp.memory.max-entries:100000}") int maxEntries,
+            @Value("${kredo.otp.memory.tick-ms:100}") long tickMs,
+            @Value("${kredo.otp.memory.write-behind:true}") boolean writeBehind,
+            @Value("${kredo.otp.memory.write-behind-batch-size:500}") int writeBehindBatchSize,
+            @Value("${kredo.otp.memory.write-behind-capacity:50000}") int writeBehindCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxEntries = maxEntries;
+        this.writeBehind = writeBehind;
+        this.writeBehindBatchSize = writeBehindBatchSize;
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, System.currentTimeMillis());
+        this.auditQueue = new ArrayBlockingQueue<>(Math.max(writeBehindCapacity, 1));
+        log.info("In-memory OTP store enabled (max entries: {}, write-behind: {})", maxEntries, writeBehind);
+    }
+
+    @Override
+    public OtpRequest create(OtpRequest otpRequest) {
+        if (entries.size() >= maxEntries) {
+            log.warn("In-memory OTP store is full ({} entries)", entries.size());
+            throw new OtpException("OTP_STORE_FULL", "OTP service is busy. Please try again shortly.");
+        }
+
+        UUID id = UUID.randomUUID();
+        otpRequest.setId(id);
+        Entry entry = new Entry(otpRequest);
+        entries.put(id, entry);
+        latestByPhone.put(otpRequest.getPhoneNumber(), entry);
+        synchronized (wheel) {
+            entry.timer = wheel.schedule(entry, otpRequest.getExpiresAt().toEpochMilli());
+        }
+        return otpRequest;
+    }
+
+    @Override
+    public Optional<OtpAttemptState> registerAttempt(UUID id, String phoneNumber, Instant now,
+            int maxAttempts, Instant lockUntil) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        OtpAttemptState state;
+        boolean locked;
+        synchronized (entry) {
+            OtpRequest otp = entry.otp;
+            if (!otp.getPhoneNumber().equals(phoneNumber) || otp.getVerified()
+                    || !otp.getExpiresAt().isAfter(now)
+                    || (otp.getLockedUntil() != null && otp.getLockedUntil().isAfter(now))) {
+                return Optional.empty();
+            }
+            otp.incrementAttempts();
+            locked = otp.getAttempts() > maxAttempts;
+            if (locked) {
+                otp.setLockedUntil(lockUntil);
+            }
+            state = new OtpAttemptState(otp.getAttempts(), otp.getOtpHash(), otp.getLockedUntil());
+        }
+
+        if (locked && lockUntil.isAfter(entry.otp.getExpiresAt())) {
+            // Keep the request (and its lockout) around until the lock is released
+            synchronized (wheel) {
+                wheel.reschedule(entry.timer, lockUntil.toEpochMilli());
+            }
+        }
+        return Optional.of(state);
+    }
+
+    @Override
+    public boolean markVerified(UUID id, Instant now) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return false;
+        }
+        synchronized (entry) {
+            if (entry.otp.getVerified() || !entry.otp.getExpiresAt().isAfter(now)) {
+                return false;
+            }
+            entry.otp.setVerified(true);
+            return true;
+        }
+    }
+
+    @Override
+    public Optional<OtpRequest> findLatestActive(String phoneNumber, Instant now) {
+        Entry entry = latestByPhone.get(phoneNumber);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        synchronized (entry) {
+            OtpRequest otp = entry.otp;
+            if (otp.getVerified() || !otp.getExpiresAt().isAfter(now)
+                    || (otp.getLockedUntil() != null && otp.getLockedUntil().isAfter(now))) {
+                return Optional.empty();
+            }
+            return Optional.of(entry.snapshot());
+        }
+    }
+
+    @Override
+    public Optional<OtpRequest> find(UUID id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        synchronized (entry) {
+            return Optional.of(entry.snapshot());
+        }
+    }
+
+    /**
+     * Advance the timing wheel and evict requests whose expiry or lockout has passed.
+     */
+    @Scheduled(fixedDelayString = "${kredo.otp.memory.tick-ms:100}")
+    public void expireEntries() {
+        List<Entry> expired;
+        synchronized (wheel) {
+            expired = wheel.advance(System.currentTimeMillis());
+        }
+        for (Entry entry : expired) {
+            Entry removed = entries.remove(entry.otp.getId());
+            latestByPhone.remove(entry.otp.getPhoneNumber(), entry);
+            if (removed != null && writeBehind) {
+                OtpRequest snapshot;
+                synchronized (removed) {
+                    snapshot = removed.snapshot();
+                }
+                if (!auditQueue.offer(snapshot)) {
+                    droppedAuditRows.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the final state of evicted requests to otp_requests in batches.
+     */
+    @Scheduled(fixedDelayString = "${kredo.otp.memory.write-behind-interval-ms:1000}")
+    public void flushAudit() {
+        if (!writeBehind) {
+            return;
+        }
+        long dropped = droppedAuditRows.getAndSet(0);
+        if (dropped > 0) {
+            log.warn("Dropped {} OTP audit rows, write-behind queue was full", dropped);
+        }
+
+        List<OtpRequest> batch = new ArrayList<>(writeBehindBatchSize);
+        while (auditQueue.drainTo(batch, writeBehindBatchSize) > 0) {
+            try {
+                jdbcTemplate.batchUpdate(AUDIT_INSERT, batch, batch.size(), (ps, otp) -> {
+                    ps.setObject(1, otp.getId());
+                    ps.setString(2, otp.getPhoneNumber());
+                    ps.setString(3, otp.getOtpHash());
+                    ps.setString(4, otp.getChannel());
+                    ps.setInt(5, otp.getAttempts());
+                    ps.setBoolean(6, otp.getVerified());
+                    ps.setTimestamp(7, Timestamp.from(otp.getCreatedAt()));
+                    ps.setTimestamp(8, Timestamp.from(otp.getExpiresAt()));
+                    ps.setTimestamp(9, otp.getLockedUntil() != null ? Timestamp.from(otp.getLockedUntil()) : null);
+                });
+            } catch (Exception e) {
+                log.warn("Failed to write {} OTP audit rows: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushAudit();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final OtpRequest otp;
+        private HierarchicalTimingWheel.Timer<Entry> timer;
+
+        Entry(OtpRequest otp) {
+            this.otp = otp;
+        }
+
+        OtpRequest snapshot() {
+            return OtpRequest.builder()
+                    .id(otp.getId())
+                    .phoneNumber(otp.getPhoneNumber())
+                    .otpHash(otp.getOtpHash())
+                    .channel(otp.getChannel())
+                    .attempts(otp.getAttempts())
+                    .verified(otp.getVerified())
+                    .createdAt(otp.getCreatedAt())
+                    .expiresAt(otp.getExpiresAt())
+                    .lockedUntil(otp.getLockedUntil())
+                    .build();
+        }
+    }
+}
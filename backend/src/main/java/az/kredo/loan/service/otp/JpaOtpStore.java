@@ -0,0 +1,49 @@
+package az.kredo.loan.service.otp;
+
+import az.kredo.loan.entity.OtpRequest;
+import az.kredo.loan.repository.OtpAttemptState;
+import az.kredo.loan.repository.OtpRequestRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * OTP store backed by the otp_requests table.
+ */
+@Component
+@ConditionalOnProperty(name = "kredo.otp.store", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaOtpStore implements OtpStore {
+
+    private final OtpRequestRepository otpRequestRepository;
+
+    @Override
+    public OtpRequest create(OtpRequest otpRequest) {
+        return otpRequestRepository.save(otpRequest);
+    }
+
+    @Override
+    public Optional<OtpAttemptState> registerAttempt(UUID id, String phoneNumber, Instant now,
+            int maxAttempts, Instant lockUntil) {
+        return otpRequestRepository.registerAttempt(id, phoneNumber, now, maxAttempts, lockUntil);
+    }
+
+    @Override
+    public boolean markVerified(UUID id, Instant now) {
+        return otpRequestRepository.markVerified(id, now) > 0;
+    }
+
+    @Override
+    public Optional<OtpRequest> findLatestActive(String phoneNumber, Instant now) {
+        return otpRequestRepository.findLatestActiveByPhoneNumber(phoneNumber, now);
+    }
+
+    @Override
+    public Optional<OtpRequest> find(UUID id) {
+        return otpRequestRepository.findById(id);
+    }
+}
@@ -0,0 +1,130 @@
+package az.kredo.loan.service.otp;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Keeps the daily otp_requests partitions rolling: creates partitions ahead of time so inserts
+ * never miss one, and detaches and drops partitions older than the retention window. Dropping a
+ * partition is O(1) and leaves no dead tuples behind, unlike a DELETE of expired rows.
+ *
+ * Every statement is idempotent, so several nodes may run the job concurrently.
+ * Only runs against PostgreSQL (the partitioned schema comes from Flyway V3).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "kredo.otp.partitions.enabled", havingValue = "true", matchIfMissing = true)
+public class OtpPartitionMaintenance {
+
+    static final String PARTITION_PREFIX = "otp_requests_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String LIST_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'otp_requests'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock = Clock.systemUTC();
+
+    @Value("${kredo.otp.partitions.days-ahead:3}")
+    private int daysAhead;
+
+    @Value("${kredo.otp.partitions.retention-days:2}")
+    private int retentionDays;
+
+    private Boolean postgres;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    /**
+     * Create upcoming partitions and drop expired ones.
+     */
+    @Scheduled(cron = "${kredo.otp.partitions.cron:0 15 * * * *}", zone = "UTC")
+    public void maintainPartitions() {
+        if (!isPostgres()) {
+            return;
+        }
+        LocalDate today = LocalDate.now(clock);
+        try {
+            for (int i = 0; i <= daysAhead; i++) {
+                createPartition(today.plusDays(i));
+            }
+            // A partition can still hold locked rows until ttl + lockout after its last insert,
+            // so retention is at least one full day past the partition's own day
+            LocalDate oldestKept = today.minusDays(Math.max(retentionDays, 1));
+            for (String partition : jdbcTemplate.queryForList(LIST_PARTITIONS, String.class)) {
+                LocalDate day = partitionDay(partition);
+                if (day != null && day.isBefore(oldestKept)) {
+                    dropPartition(partition);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.error("OTP partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    private void createPartition(LocalDate day) {
+        String name = partitionName(day);
+        jdbcTemplate.execute(String.format(
+                "CREATE TABLE IF NOT EXISTS %s PARTITION OF otp_requests FOR VALUES FROM ('%s') TO ('%s')",
+                name,
+                day.atStartOfDay().atOffset(ZoneOffset.UTC),
+                day.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC)));
+    }
+
+    private void dropPartition(String name) {
+        try {
+            // CONCURRENTLY only takes a SHARE UPDATE EXCLUSIVE lock on the parent, so inserts
+            // and verifications on live partitions are not blocked
+            jdbcTemplate.execute("ALTER TABLE otp_requests DETACH PARTITION " + name + " CONCURRENTLY");
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + name);
+            log.info("Dropped OTP partition {}", name);
+        } catch (DataAccessException e) {
+            // Usually another node dropping the same partition
+            log.warn("Could not drop OTP partition {}: {}", name, e.getMessage());
+        }
+    }
+
+    static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + SUFFIX.format(day);
+    }
+
+    static LocalDate partitionDay(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return postgres;
+    }
+}
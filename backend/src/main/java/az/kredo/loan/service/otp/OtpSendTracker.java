@@ -0,0 +1,189 @@
+package az.kredo.loan.service.otp;
+
+import az.kredo.loan.support.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Per-phone resend state: the last OTP issued to each phone (for the resend cooldown) and a
+ * sliding-window send counter (for the resend limit). The counter is the usual two-bucket
+ * approximation, so each phone costs a fixed handful of fields regardless of traffic.
+ *
+ * Bounded by kredo.otp.resend.max-tracked-phones; when full an arbitrary entry is evicted, which
+ * at worst lets one phone resend early. IP rate limiting still applies on top.
+ */
+@Component
+public class OtpSendTracker {
+
+    private final BoundedTtlCache<String, PhoneSends> phones;
+    private final long cooldownMs;
+    private final long windowMs;
+    private final int maxSends;
+
+    public OtpSendTracker(
+            @Value("${kredo.otp.resend.cooldown-seconds:30}") int cooldownSeconds,
+            @Value("${kredo.otp.resend.max-sends:5}") int maxSends,
+            @Value("${kredo.otp.resend.window-minutes:15}") int windowMinutes,
+            @Value("${kredo.otp.resend.max-tracked-phones:100000}") int maxTrackedPhones) {
+        this.cooldownMs = Duration.ofSeconds(cooldownSeconds).toMillis();
+        this.windowMs = Duration.ofMinutes(windowMinutes).toMillis();
+        this.maxSends = maxSends;
+        this.phones = new BoundedTtlCache<>(maxTrackedPhones, 1000, true);
+    }
+
+    /**
+     * Whether this node has no resend state for the phone (first request, or forgotten).
+     */
+    public boolean isUnknown(String phoneNumber) {
+        return phones.get(phoneNumber) == null;
+    }
+
+    /**
+     * Decide whether to send a new OTP to the phone. A send is counted (and the phone enters its
+     * cooldown) as soon as SEND is returned, so concurrent requests cannot both send.
+     * The live request is never handed out again: whoever asks only learns when to retry.
+     */
+    public Decision reserve(String phoneNumber, Instant now) {
+        long nowMs = now.toEpochMilli();
+        PhoneSends sends = phones.putIfAbsent(phoneNumber, new PhoneSends(nowMs), nowMs + 2 * windowMs);
+
+        Decision decision;
+        synchronized (sends) {
+            IssuedOtp live = sends.last != null && sends.last.expiresAt().isAfter(now) ? sends.last : null;
+            if (live != null && nowMs - sends.lastSendMs < cooldownMs) {
+                return Decision.cooldown(retryAfterSeconds(sends.lastSendMs + cooldownMs - nowMs));
+            }
+
+            sends.roll(nowMs, windowMs);
+            if (sends.estimate(nowMs, windowMs) >= maxSends) {
+                return Decision.limited(retryAfterSeconds(sends.windowStartMs + windowMs - nowMs));
+            }
+
+            sends.current++;
+            sends.lastSendMs = nowMs;
+            decision = Decision.send(retryAfterSeconds(cooldownMs));
+        }
+        // Keep the counter for as long as this send can still weigh on the sliding window
+        phones.put(phoneNumber, sends, nowMs + 2 * windowMs);
+        return decision;
+    }
+
+    /**
+     * Give back a send reserved at {@code reservedAt} that did not go out, e.g. because the
+     * delivery queue turned it away, so it neither counts towards the limit nor starts a cooldown.
+     */
+    public void release(String phoneNumber, Instant reservedAt) {
+        PhoneSends sends = phones.get(phoneNumber);
+        if (sends == null) {
+            return;
+        }
+        synchronized (sends) {
+            if (sends.lastSendMs == reservedAt.toEpochMilli()) {
+                sends.current = Math.max(sends.current - 1, 0);
+                sends.lastSendMs = 0;
+            }
+        }
+    }
+
+    /**
+     * Remember the OTP just issued to the phone.
+     */
+    public void recordIssued(String phoneNumber, IssuedOtp issued) {
+        long issuedAtMs = issued.issuedAt().toEpochMilli();
+        long expiresAtMs = Math.max(issued.expiresAt().toEpochMilli(), issuedAtMs + 2 * windowMs);
+        PhoneSends sends = phones.putIfAbsent(phoneNumber, new PhoneSends(issuedAtMs), expiresAtMs);
+        synchronized (sends) {
+            if (sends.last == null || !sends.last.issuedAt().isAfter(issued.issuedAt())) {
+                sends.last = issued;
+                sends.lastSendMs = Math.max(sends.lastSendMs, issuedAtMs);
+            }
+        }
+        phones.put(phoneNumber, sends, expiresAtMs);
+    }
+
+    /**
+     * End the cooldown of the last OTP, e.g. once it has been verified.
+     * The send counter is kept.
+     */
+    public void clearIssued(String phoneNumber, UUID requestId) {
+        PhoneSends sends = phones.get(phoneNumber);
+        if (sends == null) {
+            return;
+        }
+        synchronized (sends) {
+            if (sends.last != null && sends.last.requestId().equals(requestId)) {
+                sends.last = null;
+                sends.lastSendMs = 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${kredo.otp.resend.sweep-interval-ms:5000}")
+    public void expireEntries() {
+        phones.expire();
+    }
+
+    private static int retryAfterSeconds(long millis) {
+        return (int) Math.max(1, (millis + 999) / 1000);
+    }
+
+    /**
+     * An OTP already issued to a phone. requestToken is only set in stateless mode.
+     */
+    public record IssuedOtp(UUID requestId, String requestToken, Instant issuedAt, Instant expiresAt) {
+    }
+
+    public enum Outcome { SEND, COOLDOWN, LIMITED }
+
+    /**
+     * Result of {@link #reserve}. retryAfterSeconds is when the next send will be allowed.
+     */
+    public record Decision(Outcome outcome, int retryAfterSeconds) {
+
+        static Decision send(int retryAfterSeconds) {
+            return new Decision(Outcome.SEND, retryAfterSeconds);
+        }
+
+        static Decision cooldown(int retryAfterSeconds) {
+            return new Decision(Outcome.COOLDOWN, retryAfterSeconds);
+        }
+
+        static Decision limited(int retryAfterSeconds) {
+            return new Decision(Outcome.LIMITED, retryAfterSeconds);
+        }
+    }
+
+    private static final class PhoneSends {
+        private long windowStartMs;
+        private int current;
+        private int previous;
+        private long lastSendMs;
+        private IssuedOtp last;
+
+        PhoneSends(long nowMs) {
+            this.windowStartMs = nowMs;
+        }
+
+        void roll(long nowMs, long windowMs) {
+            long elapsedWindows = (nowMs - windowStartMs) / windowMs;
+            if (elapsedWindows >= 1) {
+                previous = elapsedWindows == 1 ? current : 0;
+                current = 0;
+                windowStartMs += elapsedWindows * windowMs;
+            }
+        }
+
+        /**
+         * Sends in the last windowMs, weighting the previous window by how much of it still overlaps.
+         */
+        double estimate(long nowMs, long windowMs) {
+            double overlap = 1.0 - (double) (nowMs - windowStartMs) / windowMs;
+            return current + previous * overlap;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package az.kredo.loan.service.otp;
+
+import az.kredo.loan.entity.OtpRequest;
+import az.kredo.loan.repository.OtpAttemptState;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Storage for live OTP requests behind OtpService.
+ * Selected with kredo.otp.store: "jpa" (otp_requests table, default) or "memory".
+ */
+public interface OtpStore {
+
+    /**
+     * Store a new OTP request and return it with its ID assigned.
+     */
+    OtpRequest create(OtpRequest otpRequest);
+
+    /**
+     * Atomically count a verification attempt against a live OTP request and lock it once the
+     * attempt count exceeds maxAttempts. Only requests that match the phone number and are not
+     * verified, expired or locked qualify.
+     *
+     * @return the post-update state, or empty if no eligible request matched
+     */
+    Optional<OtpAttemptState> registerAttempt(UUID id, String phoneNumber, Instant now,
+            int maxAttempts, Instant lockUntil);
+
+    /**
+     * Flag a live, unverified OTP request as verified.
+     *
+     * @return false if the request was already verified or has expired
+     */
+    boolean markVerified(UUID id, Instant now);
+
+    /**
+     * Find the most recent live (unverified, unexpired, unlocked) OTP request for a phone number.
+     * Used to reuse a request within the resend cooldown when this node has no record of it.
+     */
+    Optional<OtpRequest> findLatestActive(String phoneNumber, Instant now);
+
+    /**
+     * Look up an OTP request. Only used on the rejection path to explain why nothing matched.
+     */
+    Optional<OtpRequest> find(UUID id);
+}
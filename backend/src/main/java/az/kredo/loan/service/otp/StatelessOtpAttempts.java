@@ -0,0 +1,94 @@
+package az.kredo.loan.service.otp;
+
+import az.kredo.loan.exception.OtpException;
+import az.kredo.loan.support.BoundedTtlCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Attempt counters for stateless OTP requests. Everything else about a request travels in its
+ * sealed token; only attempts, lockout and the single-use flag live here, in a bounded map keyed
+ * by request ID that forgets each entry once both the token and any lockout have expired.
+ *
+ * The map refuses new requests rather than evicting live ones when full, since forgetting a
+ * counter would reset its attempt limit.
+ */
+@Slf4j
+@Component
+public class StatelessOtpAttempts {
+
+    private final BoundedTtlCache<UUID, Attempts> attempts;
+
+    public StatelessOtpAttempts(
+            @Value("${kredo.otp.stateless.max-entries:100000}") int maxEntries,
+            @Value("${kredo.otp.stateless.tick-ms:100}") long tickMs) {
+        this.attempts = new BoundedTtlCache<>(maxEntries, tickMs, false);
+    }
+
+    /**
+     * Count one verification attempt and return the new total, locking the request once it
+     * exceeds maxAttempts. Throws if the request is locked or already used.
+     */
+    public int registerAttempt(UUID requestId, Instant expiresAt, Instant now, int maxAttempts, Instant lockUntil) {
+        Attempts state = attempts.putIfAbsent(requestId, new Attempts(), expiresAt.toEpochMilli());
+        if (state == null) {
+            log.warn("Stateless OTP attempt map is full ({} entries)", attempts.size());
+            throw new OtpException("OTP_STORE_FULL", "OTP service is busy. Please try again shortly.");
+        }
+
+        synchronized (state) {
+            if (state.lockedUntil != null && state.lockedUntil.isAfter(now)) {
+                throw OtpException.locked();
+            }
+            if (state.verified) {
+                throw OtpException.alreadyVerified();
+            }
+            state.count++;
+            if (state.count > maxAttempts) {
+                state.lockedUntil = lockUntil;
+                if (lockUntil.isAfter(expiresAt)) {
+                    // Keep the counter until the lock is released
+                    attempts.put(requestId, state, lockUntil.toEpochMilli());
+                }
+            }
+            return state.count;
+        }
+    }
+
+    /**
+     * Mark the request as used. Returns false if a concurrent verification got there first.
+     */
+    public boolean markVerified(UUID requestId) {
+        Attempts state = attempts.get(requestId);
+        if (state == null) {
+            return false;
+        }
+        synchronized (state) {
+            if (state.verified) {
+                return false;
+            }
+            state.verified = true;
+            return true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${kredo.otp.stateless.tick-ms:100}")
+    public void expireEntries() {
+        attempts.expire();
+    }
+
+    public int size() {
+        return attempts.size();
+    }
+
+    private static final class Attempts {
+        private int count;
+        private Instant lockedUntil;
+        private boolean verified;
+    }
+}
@@ -0,0 +1,65 @@
+package az.kredo.loan.support;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over (namespace, value) string pairs, hashed with
+ * {@link LongKeyBucketStore#hash} and double hashing (Kirsch-Mitzenmacher), so a lookup
+ * allocates nothing. Inserts may run concurrently with lookups; there is no removal, so owners
+ * rebuild the filter to forget entries.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Size the filter for expectedEntries at the given false positive probability.
+     */
+    public BloomFilter(int expectedEntries, double falsePositiveRate) {
+        long bits = (long) Math.ceil(-Math.max(expectedEntries, 1) * Math.log(falsePositiveRate)
+                / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / Math.max(expectedEntries, 1) * Math.log(2)));
+    }
+
+    public void put(CharSequence namespace, CharSequence value) {
+        long hash = LongKeyBucketStore.hash(namespace, value);
+        long h1 = hash;
+        long h2 = secondHash(hash);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    /**
+     * False means the pair was never added; true means it probably was.
+     */
+    public boolean mightContain(CharSequence namespace, CharSequence value) {
+        long hash = LongKeyBucketStore.hash(namespace, value);
+        long h1 = hash;
+        long h2 = secondHash(hash);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long secondHash(long hash) {
+        long z = hash * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 32)) * 0xd6e8feb86659fd93L;
+        return (z ^ (z >>> 32)) | 1;
+    }
+}
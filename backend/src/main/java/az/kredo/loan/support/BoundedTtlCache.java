@@ -0,0 +1,161 @@
+package az.kredo.loan.support;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Size-bounded map whose entries carry their own expiry time. Expired entries are dropped on
+ * read and swept by a hierarchical timing wheel whenever {@link #expire()} runs (owners call it
+ * from a scheduled task, and it also runs when the map is full).
+ *
+ * When full, an insert either evicts an arbitrary live entry (plain caches) or is refused
+ * (state that must not be forgotten early, such as attempt counters).
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final Map<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel<Node<K, V>> wheel;
+    private final int maxSize;
+    private final boolean evictWhenFull;
+
+    public BoundedTtlCache(int maxSize, long tickMs, boolean evictWhenFull) {
+        this.maxSize = maxSize;
+        this.evictWhenFull = evictWhenFull;
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the live value for key, or null if absent or expired.
+     */
+    public V get(K key) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (node.expiresAtMs <= System.currentTimeMillis()) {
+            remove(key, node);
+            return null;
+        }
+        return node.value;
+    }
+
+    /**
+     * Insert or replace a value. Returns false if the cache is full and refuses inserts.
+     */
+    public boolean put(K key, V value, long expiresAtMs) {
+        if (!map.containsKey(key) && !makeRoom()) {
+            return false;
+        }
+        Node<K, V> node = new Node<>(key, value, expiresAtMs);
+        schedule(node);
+        Node<K, V> previous = map.put(key, node);
+        if (previous != null) {
+            cancel(previous);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the live value for key, inserting the given one if there is none.
+     * Returns null if the key is absent and the cache is full and refuses inserts.
+     */
+    public V putIfAbsent(K key, V value, long expiresAtMs) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (!makeRoom()) {
+            return null;
+        }
+        Node<K, V> node = new Node<>(key, value, expiresAtMs);
+        Node<K, V> current = map.compute(key, (k, old) ->
+                old != null && old.expiresAtMs > System.currentTimeMillis() ? old : node);
+        if (current == node) {
+            schedule(node);
+        }
+        return current.value;
+    }
+
+    public void remove(K key) {
+        Node<K, V> node = map.remove(key);
+        if (node != null) {
+            cancel(node);
+        }
+    }
+
+    public void clear() {
+        for (K key : map.keySet()) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Sweep expired entries.
+     */
+    public void expire() {
+        List<Node<K, V>> expired;
+        synchronized (wheel) {
+            expired = wheel.advance(System.currentTimeMillis());
+        }
+        for (Node<K, V> node : expired) {
+            map.remove(node.key, node);
+        }
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    private boolean makeRoom() {
+        if (map.size() < maxSize) {
+            return true;
+        }
+        expire();
+        if (map.size() < maxSize) {
+            return true;
+        }
+        if (!evictWhenFull) {
+            return false;
+        }
+        Iterator<K> keys = map.keySet().iterator();
+        if (keys.hasNext()) {
+            remove(keys.next());
+        }
+        return true;
+    }
+
+    private void remove(K key, Node<K, V> node) {
+        if (map.remove(key, node)) {
+            cancel(node);
+        }
+    }
+
+    private void schedule(Node<K, V> node) {
+        synchronized (wheel) {
+            node.timer = wheel.schedule(node, node.expiresAtMs);
+        }
+    }
+
+    private void cancel(Node<K, V> node) {
+        synchronized (wheel) {
+            if (node.timer != null) {
+                wheel.cancel(node.timer);
+            }
+        }
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final long expiresAtMs;
+        private HierarchicalTimingWheel.Timer<Node<K, V>> timer;
+
+        Node(K key, V value, long expiresAtMs) {
+            this.key = key;
+            this.value = value;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package az.kredo.loan.support;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive limit on in-flight requests, after the gradient algorithm of Netflix's
+ * concurrency-limits. Latency samples are aggregated per window; at the end of each window the
+ * limit moves towards limit * (tolerance * longRtt / shortRtt) + sqrt(limit), so it grows while
+ * latency stays near its long-term baseline and shrinks as soon as requests start queueing.
+ *
+ * Admission is a CAS on the in-flight count. The window update runs on whichever releasing
+ * thread wins the window's CAS, so no lock is taken on the request path.
+ */
+public class GradientConcurrencyLimit {
+
+    /** Weight of each window's RTT in the long-term baseline. */
+    private static final double LONG_RTT_WEIGHT = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+    private final int minWindowSamples;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder rttSum = new LongAdder();
+    private final LongAdder rttCount = new LongAdder();
+    private final AtomicLong windowEnd;
+
+    private volatile int limit;
+    private volatile double estimatedLimit;
+    private volatile double longRtt;
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance,
+            double smoothing, long windowNanos, int minWindowSamples, long nowNanos) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Need 1 <= minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = minWindowSamples;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+        this.windowEnd = new AtomicLong(nowNanos + windowNanos);
+    }
+
+    /**
+     * Admit a request if fewer than share * limit requests are in flight.
+     *
+     * @param share fraction of the limit this request's priority class may fill
+     */
+    public boolean tryAcquire(double share) {
+        int cap = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= cap) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release an admitted request and count its latency.
+     */
+    public void release(long startNanos, long nowNanos) {
+        inFlight.decrementAndGet();
+        rttSum.add(nowNanos - startNanos);
+        rttCount.increment();
+
+        long end = windowEnd.get();
+        if (nowNanos - end >= 0 && rttCount.sum() >= minWindowSamples
+                && windowEnd.compareAndSet(end, nowNanos + windowNanos)) {
+            updateLimit();
+        }
+    }
+
+    /**
+     * Release an admitted request without counting its latency (it did no representative work).
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void updateLimit() {
+        long count = rttCount.sumThenReset();
+        long sum = rttSum.sumThenReset();
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (count == 0) {
+            return;
+        }
+        double shortRtt = (double) sum / count;
+
+        double baseline = longRtt == 0 ? shortRtt : longRtt * (1 - LONG_RTT_WEIGHT) + shortRtt * LONG_RTT_WEIGHT;
+        if (baseline / shortRtt > 2) {
+            // Latency has dropped for good (e.g. after a deploy); let the baseline follow faster
+            baseline *= 0.95;
+        }
+        longRtt = baseline;
+
+        double estimate = estimatedLimit;
+        if (peak < estimate / 2) {
+            // Demand is well below the limit, so latency says nothing about capacity
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / shortRtt));
+        double target = estimate * gradient + Math.sqrt(estimate);
+        estimate = estimate * (1 - smoothing) + target * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimate));
+        limit = (int) estimatedLimit;
+    }
+}
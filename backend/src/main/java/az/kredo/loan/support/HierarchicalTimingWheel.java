@@ -0,0 +1,171 @@
+package az.kredo.loan.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel for large numbers of short timers (OTP expiry, lockout release).
+ * Scheduling and cancelling are O(1); advancing costs one slot per tick plus an occasional
+ * cascade from a coarser level. Four levels of 64 slots cover 64^4 ticks; deadlines further
+ * out fire early and are expected to be rescheduled by the caller.
+ *
+ * Not thread-safe: callers serialize access.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickMs;
+    private final Timer<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMs, long startMs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive");
+        }
+        this.tickMs = tickMs;
+        // Generic arrays cannot be created; the array never leaves this instance and only ever holds Timer<T>
+        @SuppressWarnings("unchecked")
+        Timer<T>[][] slots = (Timer<T>[][]) new Timer<?>[LEVELS][SLOTS];
+        this.slots = slots;
+        this.currentTick = startMs / tickMs;
+    }
+
+    /**
+     * Schedule a payload to fire once the wheel has advanced past deadlineMs.
+     */
+    public Timer<T> schedule(T payload, long deadlineMs) {
+        Timer<T> timer = new Timer<>(payload, deadlineMs);
+        insert(timer, currentTick + 1);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Move an existing timer to a new deadline.
+     */
+    public void reschedule(Timer<T> timer, long deadlineMs) {
+        if (timer.level >= 0) {
+            unlink(timer);
+            size--;
+        }
+        timer.deadlineMs = deadlineMs;
+        insert(timer, currentTick + 1);
+        size++;
+    }
+
+    public void cancel(Timer<T> timer) {
+        if (timer.level >= 0) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    /**
+     * Advance the wheel to nowMs and return the payloads of every timer that fired.
+     */
+    public List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = nowMs / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            int index = (int) (currentTick & SLOT_MASK);
+            for (int level = 1; level < LEVELS && index == 0; level++) {
+                index = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                cascade(level, index);
+            }
+
+            int slot = (int) (currentTick & SLOT_MASK);
+            Timer<T> timer = slots[0][slot];
+            slots[0][slot] = null;
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                timer.prev = timer.next = null;
+                timer.level = -1;
+                size--;
+                expired.add(timer.payload);
+                timer = next;
+            }
+        }
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void cascade(int level, int index) {
+        Timer<T> timer = slots[level][index];
+        slots[level][index] = null;
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            timer.prev = timer.next = null;
+            // The current tick's level-0 slot is processed right after cascading
+            insert(timer, currentTick);
+            timer = next;
+        }
+    }
+
+    private void insert(Timer<T> timer, long minTick) {
+        long expiresTick = Math.max(ceilDiv(timer.deadlineMs, tickMs), minTick);
+        long delta = Math.min(expiresTick - currentTick, MAX_DELTA);
+        expiresTick = currentTick + delta;
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int index = (int) ((expiresTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+
+        timer.level = level;
+        timer.index = index;
+        timer.next = slots[level][index];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        slots[level][index] = timer;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            slots[timer.level][timer.index] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = timer.next = null;
+        timer.level = -1;
+    }
+
+    /**
+     * Handle to a scheduled payload, used to cancel or reschedule it.
+     */
+    public static final class Timer<T> {
+        private final T payload;
+        private long deadlineMs;
+        private Timer<T> prev;
+        private Timer<T> next;
+        private int level = -1;
+        private int index;
+
+        private Timer(T payload, long deadlineMs) {
+            this.payload = payload;
+            this.deadlineMs = deadlineMs;
+        }
+
+        public long getDeadlineMs() {
+            return deadlineMs;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package az.kredo.loan.support;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-capacity store of per-key rate limiter state, keyed by 64-bit hashes instead of strings.
+ * Memory is allocated once up front: a set of lock stripes, each an open-addressing table of
+ * primitive arrays (key, last access, and stateWidth longs of bucket state per slot). Nothing is
+ * allocated per request.
+ *
+ * When a stripe is full, inserting a new key evicts the least recently used of a few sampled
+ * entries, so hostile key churn can displace buckets but never grow the heap. Idle entries are
+ * also removed by {@link #evictIdle}. Hash collisions merge two keys into one bucket, which only
+ * ever makes limiting stricter.
+ */
+public class LongKeyBucketStore {
+
+    private static final long EMPTY = 0L;
+    private static final int EVICTION_SAMPLE = 8;
+
+    /**
+     * Updates one bucket in place under the stripe lock and decides whether the request passes.
+     */
+    @FunctionalInterface
+    public interface BucketUpdate {
+        /**
+         * @param state  backing array; the bucket occupies state[offset, offset + stateWidth)
+         * @param fresh  true when the bucket was just created and its state is all zeros
+         */
+        boolean apply(long[] state, int offset, boolean fresh, long nowMs);
+    }
+
+    /**
+     * Reads or updates one bucket in place under the stripe lock, as part of a full scan.
+     */
+    @FunctionalInterface
+    public interface BucketVisitor {
+        void visit(long key, long[] state, int offset);
+    }
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int stateWidth;
+    private final LongAdder evictions = new LongAdder();
+
+    public LongKeyBucketStore(int capacity, int stripeCount, int stateWidth) {
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("stripeCount must be a power of two");
+        }
+        int perStripe = Math.max(1, (capacity + stripeCount - 1) / stripeCount);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(perStripe, stateWidth);
+        }
+        this.stripeMask = stripeCount - 1;
+        this.stateWidth = stateWidth;
+    }
+
+    /**
+     * Find or create the bucket for key and apply update to it atomically.
+     */
+    public boolean tryAcquire(long key, long nowMs, BucketUpdate update) {
+        if (key == EMPTY) {
+            key = 1;
+        }
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> 40) & stripeMask];
+        synchronized (stripe) {
+            return stripe.acquire(key, hash, nowMs, update);
+        }
+    }
+
+    /**
+     * Apply update to the bucket for key if it exists, without creating it or counting it as
+     * an access.
+     *
+     * @return false if there is no such bucket, else the result of update
+     */
+    public boolean updateIfPresent(long key, long nowMs, BucketUpdate update) {
+        if (key == EMPTY) {
+            key = 1;
+        }
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> 40) & stripeMask];
+        synchronized (stripe) {
+            int slot = stripe.find(key, hash);
+            return slot >= 0 && update.apply(stripe.state, slot * stateWidth, false, nowMs);
+        }
+    }
+
+    /**
+     * Visit every bucket, one stripe at a time. Each stripe is locked only while it is scanned.
+     */
+    public void forEach(BucketVisitor visitor) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.forEach(visitor);
+            }
+        }
+    }
+
+    /**
+     * Remove every bucket not touched for idleMs.
+     *
+     * @return the number of buckets removed
+     */
+    public int evictIdle(long nowMs, long idleMs) {
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                removed += stripe.evictIdle(nowMs, idleMs);
+            }
+        }
+        evictions.add(removed);
+        return removed;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    public int capacity() {
+        return stripes.length * stripes[0].capacity;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 64-bit FNV-1a over two strings with a separator, so "a" + ":" + "b" never has to be built.
+     */
+    public static long hash(CharSequence first, CharSequence second) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < first.length(); i++) {
+            h = (h ^ first.charAt(i)) * 0x100000001b3L;
+        }
+        h = (h ^ 0xffff) * 0x100000001b3L;
+        for (int i = 0; i < second.length(); i++) {
+            h = (h ^ second.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * SplitMix64 finalizer: spreads FNV output so both stripe (high bits) and slot (low bits)
+     * selection are well distributed.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private final class Stripe {
+        private final long[] keys;
+        private final long[] lastAccess;
+        private final long[] state;
+        private final int mask;
+        private final int capacity;
+        private int size;
+
+        Stripe(int capacity, int stateWidth) {
+            // Load factor <= 0.5 keeps probe sequences short and guarantees a free slot
+            int tableSize = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1)) << 1;
+            this.keys = new long[tableSize];
+            this.lastAccess = new long[tableSize];
+            this.state = new long[tableSize * stateWidth];
+            this.mask = tableSize - 1;
+            this.capacity = capacity;
+        }
+
+        boolean acquire(long key, long hash, long nowMs, BucketUpdate update) {
+            int slot = (int) hash & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+
+            boolean fresh = keys[slot] == EMPTY;
+            if (fresh) {
+                if (size >= capacity) {
+                    evictOne(hash);
+                    // The backward shift may have moved entries; find the free slot again
+                    slot = (int) hash & mask;
+                    while (keys[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                }
+                keys[slot] = key;
+                Arrays.fill(state, slot * stateWidth, (slot + 1) * stateWidth, 0L);
+                size++;
+            }
+            lastAccess[slot] = nowMs;
+            return update.apply(state, slot * stateWidth, fresh, nowMs);
+        }
+
+        int find(long key, long hash) {
+            int slot = (int) hash & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        void forEach(BucketVisitor visitor) {
+            for (int slot = 0; slot <= mask; slot++) {
+                if (keys[slot] != EMPTY) {
+                    visitor.visit(keys[slot], state, slot * stateWidth);
+                }
+            }
+        }
+
+        /**
+         * Sampled LRU: evict the least recently used of the next few occupied slots.
+         */
+        private void evictOne(long hash) {
+            int slot = (int) (hash >>> 20) & mask;
+            int victim = -1;
+            for (int seen = 0; seen < EVICTION_SAMPLE && seen < size; slot = (slot + 1) & mask) {
+                if (keys[slot] != EMPTY) {
+                    if (victim < 0 || lastAccess[slot] < lastAccess[victim]) {
+                        victim = slot;
+                    }
+                    seen++;
+                }
+            }
+            if (victim >= 0) {
+                remove(victim);
+                evictions.increment();
+            }
+        }
+
+        int evictIdle(long nowMs, long idleMs) {
+            int removed = 0;
+            for (int slot = 0; slot <= mask; slot++) {
+                // Re-check the same slot after a removal: the backward shift may refill it
+                while (keys[slot] != EMPTY && nowMs - lastAccess[slot] >= idleMs) {
+                    remove(slot);
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        /**
+         * Backward-shift deletion, which keeps linear probing correct without tombstones.
+         */
+        private void remove(int slot) {
+            int hole = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (keys[next] == EMPTY) {
+                    break;
+                }
+                int home = (int) mix(keys[next]) & mask;
+                boolean reachable = hole <= next
+                        ? hole < home && home <= next
+                        : hole < home || home <= next;
+                if (reachable) {
+                    continue;
+                }
+                keys[hole] = keys[next];
+                lastAccess[hole] = lastAccess[next];
+                System.arraycopy(state, next * stateWidth, state, hole * stateWidth, stateWidth);
+                hole = next;
+            }
+            keys[hole] = EMPTY;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package az.kredo.loan.support;
+
+import java.util.Locale;
+
+/**
+ * Per-request timing ledger behind the Server-Timing header.
+ *
+ * Each request thread owns one {@link Ledger}, created on its first request and reset for every
+ * following one, holding a total and a count per {@link Span}. Code on the request path
+ * brackets work with {@link #start()} / {@link #stop(Span, long)}; both are a static flag check
+ * while the feature is off, and a thread-local lookup plus System.nanoTime() while it is on.
+ * Nothing is allocated per span. Calls on threads that are not serving a request (schedulers,
+ * batch workers) are ignored.
+ */
+public final class ServerTiming {
+
+    public enum Span {
+        /** Access token verification and revocation check. */
+        SECURITY("security"),
+        /** Controller and service, i.e. handler execution. */
+        SERVICE("service"),
+        /** Repository calls. */
+        DB("db"),
+        /** Waiting for CRM responses. */
+        CRM("crm"),
+        /** Decision engine. */
+        SCORING("scoring");
+
+        private final String metricName;
+
+        Span(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String metricName() {
+            return metricName;
+        }
+    }
+
+    private static final Span[] SPANS = Span.values();
+    private static final ThreadLocal<Ledger> CURRENT = new ThreadLocal<>();
+
+    private static volatile boolean enabled;
+
+    private ServerTiming() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        ServerTiming.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start of a span, to be passed to {@link #stop}; 0 when nothing is being recorded.
+     */
+    public static long start() {
+        if (!enabled) {
+            return 0;
+        }
+        Ledger ledger = CURRENT.get();
+        return ledger != null && ledger.active ? System.nanoTime() : 0;
+    }
+
+    public static void stop(Span span, long start) {
+        if (start != 0) {
+            record(span, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Add a span measured elsewhere, e.g. by a framework callback.
+     */
+    public static void record(Span span, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        Ledger ledger = CURRENT.get();
+        if (ledger != null && ledger.active) {
+            ledger.add(span, nanos);
+        }
+    }
+
+    /**
+     * Start a span whose end is reached through a different call path than its start, like a
+     * handler interceptor; ended by {@link #end(Span)}.
+     */
+    public static void begin(Span span) {
+        if (!enabled) {
+            return;
+        }
+        Ledger ledger = CURRENT.get();
+        if (ledger != null && ledger.active) {
+            ledger.openedAt[span.ordinal()] = System.nanoTime();
+        }
+    }
+
+    public static void end(Span span) {
+        if (!enabled) {
+            return;
+        }
+        Ledger ledger = CURRENT.get();
+        if (ledger != null && ledger.active && ledger.openedAt[span.ordinal()] != 0) {
+            ledger.add(span, System.nanoTime() - ledger.openedAt[span.ordinal()]);
+            ledger.openedAt[span.ordinal()] = 0;
+        }
+    }
+
+    /**
+     * Begin recording for the request on this thread. Returns the thread's ledger, reset.
+     */
+    public static Ledger open() {
+        Ledger ledger = CURRENT.get();
+        if (ledger == null) {
+            ledger = new Ledger();
+            CURRENT.set(ledger);
+        }
+        ledger.reset();
+        ledger.active = true;
+        ledger.startedAt = System.nanoTime();
+        return ledger;
+    }
+
+    public static void close(Ledger ledger) {
+        ledger.active = false;
+    }
+
+    public static final class Ledger {
+
+        private final long[] nanos = new long[SPANS.length];
+        private final int[] counts = new int[SPANS.length];
+        private final long[] openedAt = new long[SPANS.length];
+        private boolean active;
+        private long startedAt;
+
+        private Ledger() {
+        }
+
+        private void add(Span span, long elapsed) {
+            nanos[span.ordinal()] += elapsed;
+            counts[span.ordinal()]++;
+        }
+
+        private void reset() {
+            for (int i = 0; i < SPANS.length; i++) {
+                nanos[i] = 0;
+                counts[i] = 0;
+                openedAt[i] = 0;
+            }
+        }
+
+        public long elapsedNanos() {
+            return System.nanoTime() - startedAt;
+        }
+
+        public long nanos(Span span) {
+            return nanos[span.ordinal()];
+        }
+
+        public int count(Span span) {
+            return counts[span.ordinal()];
+        }
+
+        /**
+         * Header value: one metric per recorded span plus the total so far, durations in
+         * milliseconds, e.g. {@code db;dur=3.20, total;dur=15.84}. Call counts stay in the log.
+         */
+        public String toHeader() {
+            StringBuilder header = new StringBuilder(128);
+            for (Span span : SPANS) {
+                if (counts[span.ordinal()] > 0) {
+                    header.append(span.metricName()).append(";dur=").append(millis(nanos[span.ordinal()])).append(", ");
+                }
+            }
+            return header.append("total;dur=").append(millis(elapsedNanos())).toString();
+        }
+
+        /**
+         * Log fields, e.g. {@code total_ms=1520.33 db_ms=3.20 db_calls=2}.
+         */
+        public String toLogFields(long totalNanos) {
+            StringBuilder fields = new StringBuilder(128).append("total_ms=").append(millis(totalNanos));
+            for (Span span : SPANS) {
+                int count = counts[span.ordinal()];
+                if (count > 0) {
+                    fields.append(' ').append(span.metricName()).append("_ms=").append(millis(nanos[span.ordinal()]))
+                            .append(' ').append(span.metricName()).append("_calls=").append(count);
+                }
+            }
+            return fields.toString();
+        }
+
+        private static String millis(long nanos) {
+            return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package az.kredo.loan.support.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A CRM call from submission until its future completes; committed on the completing thread,
+ * with the request ID captured at submission.
+ */
+@Name(CrmCallEvent.NAME)
+@Label("CRM Call")
+@Description("CRM call until its result arrives")
+public class CrmCallEvent extends KredoEvent {
+
+    public static final String NAME = "az.kredo.CrmCall";
+
+    @Label("Operation")
+    String operation;
+
+    public CrmCallEvent(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Like {@link #finish(String)}, for a thread other than the one that began the event.
+     */
+    public void finish(String outcome, String requestId) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            this.requestId = requestId;
+            commit();
+        }
+    }
+}
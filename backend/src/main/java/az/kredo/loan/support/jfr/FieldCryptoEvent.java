@@ -0,0 +1,30 @@
+package az.kredo.loan.support.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Encryption or decryption of one FIN or address value.
+ */
+@Name(FieldCryptoEvent.NAME)
+@Label("Field Crypto")
+@Description("AES-GCM encryption or decryption of one field value")
+public class FieldCryptoEvent extends KredoEvent {
+
+    public static final String NAME = "az.kredo.FieldCrypto";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Key Version")
+    int keyVersion;
+
+    public FieldCryptoEvent(String operation) {
+        this.operation = operation;
+    }
+
+    public void setKeyVersion(int keyVersion) {
+        this.keyVersion = keyVersion;
+    }
+}
@@ -0,0 +1,83 @@
+package az.kredo.loan.support.jfr;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Streams the application's Flight Recorder events in-process and records each one on the
+ * kredo.jfr.events timer, tagged with the event, operation and outcome. The stream enables the
+ * events for as long as the application runs, independent of any recording started with
+ * -XX:StartFlightRecording; it keeps only a few seconds of data on disk.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kredo.jfr.streaming.enabled", havingValue = "true")
+public class JfrEventMetrics {
+
+    static final List<String> EVENTS = List.of(
+            ScoringEvent.NAME, CrmCallEvent.NAME, OtpHashEvent.NAME, FieldCryptoEvent.NAME);
+
+    private static final String EVENT_PREFIX = "az.kredo.";
+    private static final String NONE = "none";
+
+    private final MeterRegistry meterRegistry;
+    private RecordingStream stream;
+
+    public JfrEventMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        RecordingStream recordingStream = new RecordingStream();
+        for (String event : EVENTS) {
+            recordingStream.enable(event).withoutThreshold();
+            recordingStream.onEvent(event, this::record);
+        }
+        // Events are only read once, in any order, so the stream may reuse its objects
+        recordingStream.setReuse(true);
+        recordingStream.setOrdered(false);
+        recordingStream.setMaxAge(Duration.ofSeconds(10));
+        recordingStream.onError(e -> log.warn("JFR event stream failed: {}", e.getMessage()));
+        recordingStream.startAsync();
+        this.stream = recordingStream;
+        log.info("Streaming JFR events {} into metrics", EVENTS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    void record(RecordedEvent event) {
+        String name = event.getEventType().getName();
+        timer(name.substring(EVENT_PREFIX.length()),
+                event.hasField("operation") ? event.getString("operation") : NONE,
+                event.getString("outcome"))
+                .record(event.getDuration());
+    }
+
+    private Timer timer(String event, String operation, String outcome) {
+        return Timer.builder("kredo.jfr.events")
+                .description("Application Flight Recorder events by duration")
+                .tag("event", event)
+                .tag("operation", operation)
+                .tag("outcome", outcome != null ? outcome : NONE)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(200))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,44 @@
+package az.kredo.loan.support.jfr;
+
+import az.kredo.loan.config.RequestCorrelationFilter;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import org.slf4j.MDC;
+
+/**
+ * Base of the application's Flight Recorder events: a timed operation with its outcome and the
+ * X-Request-Id it ran for, so recordings can be filtered down to one request.
+ *
+ * Usage: create, {@link #begin()}, do the work, then {@link #finish(String)}. While the event
+ * type is disabled the JIT reduces all of that to nothing, so events are always emitted from
+ * the hot paths and only cost anything under an active recording.
+ */
+@Category({"Kredo", "Loan"})
+@StackTrace(false)
+public abstract class KredoEvent extends Event {
+
+    public static final String SUCCESS = "success";
+    public static final String FAILED = "failed";
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Request ID")
+    @Description("X-Request-Id of the request the operation ran for")
+    String requestId;
+
+    /**
+     * End the event and commit it if the recording wants it.
+     */
+    public void finish(String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            this.requestId = MDC.get(RequestCorrelationFilter.MDC_REQUEST_ID);
+            commit();
+        }
+    }
+}
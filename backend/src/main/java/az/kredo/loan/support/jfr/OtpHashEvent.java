@@ -0,0 +1,27 @@
+package az.kredo.loan.support.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Hashing a new OTP code or checking one against its stored hash.
+ */
+@Name(OtpHashEvent.NAME)
+@Label("OTP Hash")
+@Description("OTP code hashing and verification")
+public class OtpHashEvent extends KredoEvent {
+
+    public static final String NAME = "az.kredo.OtpHash";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Scheme")
+    String scheme;
+
+    public OtpHashEvent(String operation, String scheme) {
+        this.operation = operation;
+        this.scheme = scheme;
+    }
+}
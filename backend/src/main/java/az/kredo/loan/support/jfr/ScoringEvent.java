@@ -0,0 +1,16 @@
+package az.kredo.loan.support.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One run of the decision engine; the outcome is the decision.
+ */
+@Name(ScoringEvent.NAME)
+@Label("Scoring")
+@Description("Decision engine evaluation of a loan application")
+public class ScoringEvent extends KredoEvent {
+
+    public static final String NAME = "az.kredo.Scoring";
+}
@@ -0,0 +1,24 @@
+package az.kredo.loan.support.logging;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the events dropped by {@link MeteredAsyncAppender} as kredo.logging.dropped, tagged
+ * with the level. Anything above zero for WARN or ERROR means the log sink cannot keep up even
+ * after INFO and below have been shed.
+ */
+@Component
+public class AsyncLogMetrics {
+
+    public AsyncLogMetrics(MeterRegistry meterRegistry) {
+        for (Level level : MeteredAsyncAppender.LEVELS) {
+            FunctionCounter.builder("kredo.logging.dropped", level, MeteredAsyncAppender::dropped)
+                    .description("Log events dropped because the async log buffer was full")
+                    .tag("level", level.toString())
+                    .register(meterRegistry);
+        }
+    }
+}
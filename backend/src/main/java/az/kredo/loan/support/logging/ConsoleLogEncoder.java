@@ -0,0 +1,53 @@
+package az.kredo.loan.support.logging;
+
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Layout;
+import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Console encoder whose format is a setting: {@code json} for {@link JsonLogLayout}, {@code text}
+ * for the console pattern. Lets one appender serve both without declaring an unused one.
+ */
+public class ConsoleLogEncoder extends LayoutWrappingEncoder<ILoggingEvent> {
+
+    private String format = "json";
+    private String pattern;
+    private String application;
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public void setApplication(String application) {
+        this.application = application;
+    }
+
+    @Override
+    public void start() {
+        Layout<ILoggingEvent> layout;
+        if ("text".equalsIgnoreCase(format)) {
+            PatternLayout patternLayout = new PatternLayout();
+            patternLayout.setPattern(pattern);
+            layout = patternLayout;
+        } else {
+            if (!"json".equalsIgnoreCase(format)) {
+                addWarn("Unknown log format [" + format + "], using json");
+            }
+            JsonLogLayout jsonLayout = new JsonLogLayout();
+            jsonLayout.setApplication(application);
+            layout = jsonLayout;
+        }
+        layout.setContext(getContext());
+        layout.start();
+        setLayout(layout);
+        setCharset(StandardCharsets.UTF_8);
+        super.start();
+    }
+}
@@ -0,0 +1,65 @@
+package az.kredo.loan.support.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback's {@link AsyncAppender} with a count of the events it drops, per level. Configured
+ * with neverBlock, a logging call only ever puts the event into a bounded ring buffer: once
+ * the buffer is fuller than discardingThreshold allows, TRACE to INFO events are dropped, and
+ * when it is full, everything is. Both are counted; the counts are static so they can be bound
+ * to Micrometer before or after Logback has started (see {@link AsyncLogMetrics}).
+ *
+ * Events dropped because the buffer is full are counted from its remaining capacity just before
+ * the insert, so with several threads racing for the last slot the count is approximate.
+ */
+public class MeteredAsyncAppender extends AsyncAppender {
+
+    static final Level[] LEVELS = {Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR};
+
+    private static final LongAdder[] DROPPED = new LongAdder[LEVELS.length];
+
+    static {
+        for (int i = 0; i < DROPPED.length; i++) {
+            DROPPED[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Events of the level dropped since startup.
+     */
+    public static long dropped(Level level) {
+        return DROPPED[index(level)].sum();
+    }
+
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        // Only asked once the buffer is past discardingThreshold
+        boolean discardable = super.isDiscardable(event);
+        if (discardable) {
+            DROPPED[index(event.getLevel())].increment();
+        }
+        return discardable;
+    }
+
+    @Override
+    protected void preprocess(ILoggingEvent event) {
+        super.preprocess(event);
+        if (isNeverBlock() && getRemainingCapacity() == 0) {
+            DROPPED[index(event.getLevel())].increment();
+        }
+    }
+
+    private static int index(Level level) {
+        return switch (level.toInt()) {
+            case Level.TRACE_INT -> 0;
+            case Level.DEBUG_INT -> 1;
+            case Level.INFO_INT -> 2;
+            case Level.WARN_INT -> 3;
+            default -> 4;
+        };
+    }
+}
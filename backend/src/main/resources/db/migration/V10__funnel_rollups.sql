@@ -0,0 +1,20 @@
+-- Funnel analytics (see FunnelAnalytics and FunnelRollupJob). status_changed_at is when an
+-- application entered its current status, so the dwell time of each transition is known when
+-- it happens; rows from before this migration fall back to updated_at.
+--
+-- funnel_rollups holds the transitions per period, from/to status and dwell time bucket,
+-- added to by every node's periodic flush. Conversion and dwell time dashboards read these
+-- few rows instead of scanning loan_applications.
+
+ALTER TABLE loan_applications ADD COLUMN status_changed_at TIMESTAMP WITH TIME ZONE;
+
+CREATE TABLE funnel_rollups (
+    period_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    from_status VARCHAR(30) NOT NULL,  -- 'NONE' for a new application
+    to_status VARCHAR(30) NOT NULL,
+    dwell_le_ms BIGINT NOT NULL,  -- upper bound of the dwell time bucket; 9223372036854775807 for the last one
+    transitions BIGINT NOT NULL,
+    dwell_ms_sum BIGINT NOT NULL,
+
+    CONSTRAINT funnel_rollups_pkey PRIMARY KEY (period_start, from_status, to_status, dwell_le_ms)
+);
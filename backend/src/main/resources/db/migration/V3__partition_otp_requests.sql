@@ -0,0 +1,55 @@
+-- Range-partition otp_requests by created_at into daily partitions (otp_requests_pYYYYMMDD).
+-- Retention becomes DROP of whole partitions (see OtpPartitionMaintenance) instead of
+-- row-by-row DELETE. Unique constraints on a partitioned table must include the partition
+-- key, so the primary key becomes (id, created_at); id is still a random UUID.
+
+ALTER TABLE otp_requests RENAME TO otp_requests_legacy;
+ALTER TABLE otp_requests_legacy RENAME CONSTRAINT otp_requests_pkey TO otp_requests_legacy_pkey;
+DROP INDEX IF EXISTS idx_otp_phone_number;
+DROP INDEX IF EXISTS idx_otp_expires_at;
+
+CREATE TABLE otp_requests (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    phone_number VARCHAR(20) NOT NULL,
+    otp_hash VARCHAR(255) NOT NULL,
+    channel VARCHAR(20) NOT NULL DEFAULT 'SMS',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    verified BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    locked_until TIMESTAMP WITH TIME ZONE,
+
+    CONSTRAINT otp_requests_pkey PRIMARY KEY (id, created_at),
+    CONSTRAINT chk_channel CHECK (channel IN ('SMS', 'EMAIL'))
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_otp_phone_number ON otp_requests(phone_number);
+
+-- Partitions for the last two days (live rows) through a week ahead; the maintenance
+-- job keeps creating them from here on.
+DO $$
+DECLARE
+    day DATE;
+BEGIN
+    FOR day IN SELECT generate_series(
+            (now() AT TIME ZONE 'UTC')::date - 2,
+            (now() AT TIME ZONE 'UTC')::date + 7,
+            INTERVAL '1 day')::date
+    LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF otp_requests FOR VALUES FROM (%L) TO (%L)',
+            'otp_requests_p' || to_char(day, 'YYYYMMDD'),
+            day::timestamp AT TIME ZONE 'UTC',
+            (day + 1)::timestamp AT TIME ZONE 'UTC');
+    END LOOP;
+END $$;
+
+-- Only rows that can still be verified or are still locked matter; older ones are dropped.
+INSERT INTO otp_requests (id, phone_number, otp_hash, channel, attempts, verified,
+                          created_at, expires_at, locked_until)
+SELECT id, phone_number, otp_hash, channel, attempts, verified, created_at, expires_at, locked_until
+FROM otp_requests_legacy
+WHERE created_at >= ((now() AT TIME ZONE 'UTC')::date - 2)::timestamp AT TIME ZONE 'UTC'
+  AND created_at < ((now() AT TIME ZONE 'UTC')::date + 8)::timestamp AT TIME ZONE 'UTC';
+
+DROP TABLE otp_requests_legacy;
@@ -0,0 +1,14 @@
+-- Cluster-wide rate limit counters (see JdbcClusterRateLimitBackend): one row per bucket
+-- and window, incremented by every node's batched syncs. Counters only matter for a couple
+-- of windows, so the table is UNLOGGED (no WAL; emptied after a crash, which just resets
+-- the current windows) and old windows are purged by window_start.
+
+CREATE UNLOGGED TABLE rate_limit_counters (
+    bucket_key BIGINT NOT NULL,
+    window_start BIGINT NOT NULL,  -- epoch millis
+    hits BIGINT NOT NULL,
+
+    CONSTRAINT rate_limit_counters_pkey PRIMARY KEY (bucket_key, window_start)
+);
+
+CREATE INDEX idx_rate_limit_counters_window ON rate_limit_counters(window_start);
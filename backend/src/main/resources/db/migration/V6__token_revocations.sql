@@ -0,0 +1,19 @@
+-- Access token revocations (see TokenRevocationService). A row either names one token by its
+-- jti, or revokes every token of a phone number issued at or before issued_before. Rows can be
+-- inserted directly during an incident; every node picks them up within one sync interval.
+
+CREATE TABLE token_revocations (
+    id BIGSERIAL PRIMARY KEY,
+    token_id VARCHAR(36),
+    phone_number VARCHAR(20),
+    issued_before TIMESTAMP WITH TIME ZONE,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT chk_token_revocations_target CHECK (
+        token_id IS NOT NULL OR (phone_number IS NOT NULL AND issued_before IS NOT NULL))
+);
+
+CREATE INDEX idx_token_revocations_token_id ON token_revocations(token_id);
+CREATE INDEX idx_token_revocations_phone ON token_revocations(phone_number);
+CREATE INDEX idx_token_revocations_expires_at ON token_revocations(expires_at);
+CREATE INDEX idx_refresh_tokens_phone ON refresh_tokens(phone_number);
@@ -0,0 +1,20 @@
+-- Versioned field encryption (see FieldKeyRing). Data keys are stored only wrapped under a
+-- master key from configuration; values in loan_applications carry their key version in a
+-- "v{version}:" prefix, and values without one were written with the legacy key.
+
+CREATE TABLE data_encryption_keys (
+    version INTEGER PRIMARY KEY,
+    wrapped_key VARCHAR(128) NOT NULL,
+    master_key_id VARCHAR(50) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Resumable background jobs that walk a table in primary key order (FieldReencryptionJob)
+CREATE TABLE batch_job_checkpoints (
+    job_name VARCHAR(50) PRIMARY KEY,
+    target VARCHAR(50),
+    last_id UUID,
+    processed BIGINT NOT NULL DEFAULT 0,
+    completed_at TIMESTAMP WITH TIME ZONE,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
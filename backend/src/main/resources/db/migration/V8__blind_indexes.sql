@@ -0,0 +1,7 @@
+-- Blind indexes (see BlindIndexer): keyed HMAC-SHA256 of the normalized FIN and address, so
+-- applications can be found by FIN without decrypting every row. Nullable until
+-- BlindIndexBackfillJob has filled rows written before this migration; adding a nullable
+-- column without a default does not rewrite the table.
+
+ALTER TABLE loan_applications ADD COLUMN fin_index VARCHAR(64);
+ALTER TABLE loan_applications ADD COLUMN address_index VARCHAR(64);
@@ -0,0 +1,5 @@
+-- Built CONCURRENTLY so writes to loan_applications are not blocked while the indexes build;
+-- that cannot run inside a transaction (see the .conf file next to this script).
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_loan_applications_fin_index ON loan_applications(fin_index);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_loan_applications_address_index ON loan_applications(address_index);
@@ -0,0 +1,134 @@
+package az.kredo.loan.benchmark;
+
+import az.kredo.loan.config.EncryptionProperties;
+import az.kredo.loan.repository.DataEncryptionKeyRepository;
+import az.kredo.loan.security.FieldEncryptor;
+import az.kredo.loan.security.FieldKeyRing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.mockito.Mockito;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Field encryption throughput: the previous per-call Cipher.getInstance implementation
+ * (inlined below as legacy*) vs. {@link FieldEncryptor}, single values and a 1000-row export.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FieldEncryptorBenchmark {
+
+    private static final String KEY = "dGVzdC1vbmx5LWZpZWxkLWVuY3J5cHRpb24ta2V5ISE=";
+    private static final String ADDRESS = "Bakı şəhəri, Nizami küçəsi 12, mənzil 45";
+    private static final int ROWS = 1000;
+
+    private FieldEncryptor fieldEncryptor;
+    private SecretKeySpec secretKey;
+    private SecureRandom secureRandom;
+    private String encrypted;
+    private List<String> encryptedRows;
+    private String legacyEncrypted;
+    private List<String> legacyRows;
+
+    @Setup
+    public void setUp() throws Exception {
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.setActiveMasterKey("bench");
+        properties.setMasterKeys(Map.of("bench", KEY));
+        FieldKeyRing keyRing = new FieldKeyRing(properties, Mockito.mock(DataEncryptionKeyRepository.class));
+        keyRing.init();
+        fieldEncryptor = new FieldEncryptor(keyRing, new SimpleMeterRegistry());
+        secretKey = new SecretKeySpec(Base64.getDecoder().decode(KEY), "AES");
+        secureRandom = new SecureRandom();
+        encrypted = fieldEncryptor.encrypt(ADDRESS);
+        legacyEncrypted = legacyEncrypt(ADDRESS);
+        encryptedRows = new ArrayList<>(ROWS);
+        legacyRows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            encryptedRows.add(fieldEncryptor.encrypt(ADDRESS + i));
+            legacyRows.add(legacyEncrypt(ADDRESS + i));
+        }
+    }
+
+    @Benchmark
+    public String legacyEncrypt() throws Exception {
+        return legacyEncrypt(ADDRESS);
+    }
+
+    @Benchmark
+    public String legacyDecrypt() throws Exception {
+        return legacyDecrypt(legacyEncrypted);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<String> legacyDecryptRows() throws Exception {
+        List<String> result = new ArrayList<>(ROWS);
+        for (String row : legacyRows) {
+            result.add(legacyDecrypt(row));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return fieldEncryptor.encrypt(ADDRESS);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return fieldEncryptor.decrypt(encrypted);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<String> decryptAll() {
+        return fieldEncryptor.decryptAll(encryptedRows);
+    }
+
+    private String legacyEncrypt(String plaintext) throws Exception {
+        byte[] iv = new byte[12];
+        secureRandom.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(128, iv));
+        byte[] ciphertext = cipher.doFinal(plaintext.getBytes());
+        ByteBuffer byteBuffer = ByteBuffer.allocate(iv.length + ciphertext.length);
+        byteBuffer.put(iv);
+        byteBuffer.put(ciphertext);
+        return Base64.getEncoder().encodeToString(byteBuffer.array());
+    }
+
+    private String legacyDecrypt(String encryptedData) throws Exception {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(Base64.getDecoder().decode(encryptedData));
+        byte[] iv = new byte[12];
+        byteBuffer.get(iv);
+        byte[] ciphertext = new byte[byteBuffer.remaining()];
+        byteBuffer.get(ciphertext);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(128, iv));
+        return new String(cipher.doFinal(ciphertext));
+    }
+}
@@ -0,0 +1,69 @@
+package az.kredo.loan.benchmark;
+
+import az.kredo.loan.security.OtpHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt (previous OTP hashing) vs. the peppered HMAC-SHA256 scheme in {@link OtpHasher}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OtpHashBenchmark {
+
+    private static final String CODE = "483920";
+
+    private PasswordEncoder bcrypt;
+    private OtpHasher otpHasher;
+    private String bcryptHash;
+    private String hmacHash;
+
+    @Setup
+    public void setUp() {
+        bcrypt = new BCryptPasswordEncoder();
+        otpHasher = new OtpHasher(bcrypt, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(otpHasher, "pepperBase64",
+                "dGVzdC1vbmx5LW90cC1wZXBwZXItZm9yLXVuaXQtdGVzdHMtMTIzNA==");
+        otpHasher.init();
+        bcryptHash = bcrypt.encode(CODE);
+        hmacHash = otpHasher.hash(CODE);
+    }
+
+    @Benchmark
+    public String bcryptHash() {
+        return bcrypt.encode(CODE);
+    }
+
+    @Benchmark
+    public boolean bcryptMatches() {
+        return bcrypt.matches(CODE, bcryptHash);
+    }
+
+    @Benchmark
+    public String hmacHash() {
+        return otpHasher.hash(CODE);
+    }
+
+    @Benchmark
+    public boolean hmacMatches() {
+        return otpHasher.matches(CODE, hmacHash);
+    }
+}
@@ -0,0 +1,156 @@
+package az.kredo.loan.config;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BufferedBodyRequestTest {
+
+    private static final String BODY = "{\"phoneNumber\":\"+994501234567\",\"channel\":\"SMS\"}";
+
+    @Test
+    @DisplayName("The chain should read the whole body, buffered head first")
+    void getInputStream_shouldReplayHeadAndRest() throws Exception {
+        // Given: only part of the body fits in the buffer
+        ContainerStream container = new ContainerStream(BODY);
+        BufferedBodyRequest request = new BufferedBodyRequest(requestWith(container), 20);
+
+        // When
+        String phone = request.topLevelStringField("phoneNumber");
+        String replayed = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+        // Then
+        assertThat(phone).isNull();
+        assertThat(replayed).isEqualTo(BODY);
+        assertThat(request.getInputStream().isFinished()).isTrue();
+    }
+
+    @Test
+    @DisplayName("A non-blocking reader should get the buffered head even when the container has nothing left")
+    void setReadListener_shouldDeliverHeadBeforeAllDataRead() throws Exception {
+        // Given: the whole body was buffered, so the container's stream is already at its end
+        ContainerStream container = new ContainerStream(BODY);
+        BufferedBodyRequest request = new BufferedBodyRequest(requestWith(container), 4096);
+        ServletInputStream input = request.getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        boolean[] allDataRead = new boolean[1];
+
+        // When
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[16];
+                while (input.isReady() && !input.isFinished()) {
+                    int n = input.read(buffer);
+                    if (n < 0) {
+                        break;
+                    }
+                    read.write(buffer, 0, n);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allDataRead[0] = true;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+        });
+        container.listener.onAllDataRead();
+
+        // Then
+        assertThat(request.topLevelStringField("phoneNumber")).isEqualTo("+994501234567");
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo(BODY);
+        assertThat(allDataRead[0]).isTrue();
+    }
+
+    @Test
+    @DisplayName("Duplicate keys should resolve to the last value, as Jackson binds them")
+    void topLevelStringField_duplicateKeys_shouldTakeLast() throws Exception {
+        assertThat(field("{\"phoneNumber\":\"+994500000001\",\"phoneNumber\":\"+994501234567\"}"))
+                .isEqualTo("+994501234567");
+        assertThat(field("{\"phoneNumber\":\"+994501234567\",\"phoneNumber\":null}")).isNull();
+    }
+
+    @Test
+    @DisplayName("Escapes in keys and values should be decoded")
+    void topLevelStringField_escapes_shouldBeDecoded() throws Exception {
+        assertThat(field("{\"phone\\u004eumber\":\"+99450123456\\u0037\"}")).isEqualTo("+994501234567");
+    }
+
+    @Test
+    @DisplayName("Only a top-level field should count, not one nested or inside a string")
+    void topLevelStringField_nestedOrQuoted_shouldBeIgnored() throws Exception {
+        assertThat(field("{\"note\":\"\\\"phoneNumber\\\":\\\"+994500000001\\\"\","
+                + "\"meta\":{\"phoneNumber\":\"+994500000002\"},\"phoneNumber\":\"+994501234567\"}"))
+                .isEqualTo("+994501234567");
+        assertThat(field("{\"meta\":{\"phoneNumber\":\"+994500000002\"}}")).isNull();
+    }
+
+    @Test
+    @DisplayName("A body whose object does not end within the buffer should yield no value")
+    void topLevelStringField_paddedBody_shouldBeNull() throws Exception {
+        String body = "{\"phoneNumber\":\"+994500000001\",\"padding\":\"" + "x".repeat(5000)
+                + "\",\"phoneNumber\":\"+994501234567\"}";
+
+        assertThat(new BufferedBodyRequest(requestWith(new ContainerStream(body)), 4096)
+                .topLevelStringField("phoneNumber")).isNull();
+    }
+
+    private static String field(String body) throws IOException {
+        return new BufferedBodyRequest(requestWith(new ContainerStream(body)), 4096).topLevelStringField("phoneNumber");
+    }
+
+    private static MockHttpServletRequest requestWith(ServletInputStream stream) {
+        return new MockHttpServletRequest("POST", "/api/v1/kredo-ms/otp-service/generate-otp") {
+            @Override
+            public ServletInputStream getInputStream() {
+                return stream;
+            }
+        };
+    }
+
+    /**
+     * Stands in for the container's stream; the test fires the registered listener itself.
+     */
+    private static final class ContainerStream extends ServletInputStream {
+
+        private final ByteArrayInputStream data;
+        private ReadListener listener;
+
+        ContainerStream(String body) {
+            this.data = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int read() {
+            return data.read();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return data.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            this.listener = readListener;
+        }
+    }
+}
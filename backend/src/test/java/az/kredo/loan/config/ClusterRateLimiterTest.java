@@ -0,0 +1,99 @@
+package az.kredo.loan.config;
+
+import az.kredo.loan.config.RateLimitProperties.Policy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClusterRateLimiterTest {
+
+    private static final long KEY = 42L;
+    private static final long NOW = 1_000_000L;
+
+    private final RateLimitRule rule = rule(10, Duration.ofMinutes(1));
+
+    @Test
+    @DisplayName("Two nodes sharing a backend admit the policy limit in total, not each")
+    void tryAcquire_twoNodes_shouldShareLimit() {
+        // Given
+        LocalClusterRateLimitBackend backend = new LocalClusterRateLimitBackend();
+        ClusterRateLimiter nodeA = limiter(backend);
+        ClusterRateLimiter nodeB = limiter(backend);
+        ClusterRateLimiter.Window windowA = nodeA.window(rule);
+        ClusterRateLimiter.Window windowB = nodeB.window(rule);
+
+        // When
+        for (int i = 0; i < 6; i++) {
+            assertThat(nodeA.tryAcquire(KEY, NOW, windowA)).isTrue();
+        }
+        nodeA.sync();
+        for (int i = 0; i < 4; i++) {
+            assertThat(nodeB.tryAcquire(KEY, NOW + 10, windowB)).isTrue();
+        }
+        nodeB.sync();
+
+        // Then: B knows the cluster total; A is stale for at most one sync interval
+        assertThat(nodeB.tryAcquire(KEY, NOW + 20, windowB)).isFalse();
+        assertThat(nodeA.tryAcquire(KEY, NOW + 20, windowA)).isTrue();
+        nodeA.sync();
+        assertThat(nodeA.tryAcquire(KEY, NOW + 40, windowA)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Unsynced local hits count before the next sync")
+    void tryAcquire_shouldCountPendingHits() {
+        ClusterRateLimiter node = limiter(new LocalClusterRateLimitBackend());
+        ClusterRateLimiter.Window window = node.window(rule);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(node.tryAcquire(KEY, NOW, window)).isTrue();
+        }
+        assertThat(node.tryAcquire(KEY, NOW, window)).isFalse();
+    }
+
+    @Test
+    @DisplayName("A failing backend switches the cluster check off so local limits alone apply")
+    void sync_backendDown_shouldFallBackToLocalLimits() {
+        // Given
+        ClusterRateLimitBackend unreachable = new ClusterRateLimitBackend() {
+            @Override
+            public void increment(int count, long[] keys, long[] windowStarts, long[] deltas, long[] totals) {
+                throw new IllegalStateException("connection refused");
+            }
+
+            @Override
+            public void purgeBefore(long cutoffMs) {
+            }
+        };
+        ClusterRateLimiter node = limiter(unreachable);
+        ClusterRateLimiter.Window window = node.window(rule);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            node.tryAcquire(KEY, now, window);
+        }
+
+        // When
+        node.sync();
+
+        // Then
+        assertThat(node.isAvailable()).isFalse();
+        assertThat(node.tryAcquire(KEY, now, window)).isTrue();
+    }
+
+    private static ClusterRateLimiter limiter(ClusterRateLimitBackend backend) {
+        return new ClusterRateLimiter(backend, new SimpleMeterRegistry(), 1_000, 4, 100, 60_000, 120, 60, 20);
+    }
+
+    private static RateLimitRule rule(int limit, Duration period) {
+        Policy policy = new Policy();
+        policy.setName("test");
+        policy.setPathPrefix("/api/");
+        policy.setLimit(limit);
+        policy.setPeriod(period);
+        return new RateLimitRule(policy, 0);
+    }
+}
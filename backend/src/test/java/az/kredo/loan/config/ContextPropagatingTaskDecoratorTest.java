@@ -0,0 +1,78 @@
+package az.kredo.loan.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextPropagatingTaskDecoratorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator("testExecutor", meterRegistry));
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        MDC.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Tasks should see the submitter's requestId and authentication, and leave the worker clean")
+    void decorate_shouldPropagateAndRestoreContext() throws Exception {
+        // Given
+        Authentication authentication = new TestingAuthenticationToken("+994501234567", null);
+        MDC.put(RequestCorrelationFilter.MDC_REQUEST_ID, "req-1");
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        // When
+        String[] seen = CompletableFuture.supplyAsync(() -> new String[]{
+                MDC.get(RequestCorrelationFilter.MDC_REQUEST_ID),
+                SecurityContextHolder.getContext().getAuthentication().getName()}, executor)
+                .get(5, TimeUnit.SECONDS);
+        MDC.clear();
+        SecurityContextHolder.clearContext();
+        Object[] after = CompletableFuture.supplyAsync(() -> new Object[]{
+                MDC.get(RequestCorrelationFilter.MDC_REQUEST_ID),
+                SecurityContextHolder.getContext().getAuthentication()}, executor)
+                .get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(seen).containsExactly("req-1", "+994501234567");
+        assertThat(after).containsOnlyNulls();
+    }
+
+    @Test
+    @DisplayName("Queue wait and run time should be timed per executor")
+    void decorate_shouldRecordTaskLatency() throws Exception {
+        // When
+        CompletableFuture.runAsync(() -> { }, executor).get(5, TimeUnit.SECONDS);
+        CompletableFuture.runAsync(() -> { }, executor).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(meterRegistry.get("executor.idle").tag("name", "testExecutor").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("executor").tag("name", "testExecutor").timer().count()).isEqualTo(2);
+    }
+}
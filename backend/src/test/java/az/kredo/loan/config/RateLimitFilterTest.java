@@ -0,0 +1,143 @@
+package az.kredo.loan.config;
+
+import az.kredo.loan.config.RateLimitProperties.KeyType;
+import az.kredo.loan.config.RateLimitProperties.Policy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = filter(policy("strict", 1), policy("lenient", 3));
+    }
+
+    @Test
+    @DisplayName("A request rejected by one rule should not consume the allowance of the rules after it")
+    void doFilter_rejected_shouldStopAtFirstRule() throws Exception {
+        // Given: the strict rule's only token is spent
+        assertThat(send().getStatus()).isEqualTo(200);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertThat(send().getStatus()).isEqualTo(429);
+        }
+
+        // Then
+        assertThat(rejections("strict")).isEqualTo(5);
+        assertThat(rejections("lenient")).isZero();
+    }
+
+    @Test
+    @DisplayName("A decoy phoneNumber before the real one should not give the request a bucket of its own")
+    void doFilter_phonePolicy_duplicateKeys_shouldUseLastValue() throws Exception {
+        // Given
+        filter = filter(phonePolicy());
+
+        // When: every request carries a different decoy, and the same number last
+        int[] statuses = new int[3];
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = send("10.0.0." + i,
+                    "{\"phoneNumber\":\"+99450000000" + i + "\",\"phoneNumber\":\"+994501234567\"}").getStatus();
+        }
+
+        // Then
+        assertThat(statuses).containsExactly(200, 200, 429);
+    }
+
+    @Test
+    @DisplayName("Escaped spellings of one number should share its bucket")
+    void doFilter_phonePolicy_escapedValues_shouldShareBucket() throws Exception {
+        // Given
+        filter = filter(phonePolicy());
+
+        // When
+        int first = send("10.0.0.1", "{\"phoneNumber\":\"+994501234567\"}").getStatus();
+        int second = send("10.0.0.2", "{\"phone\\u004eumber\":\"+99450123456\\u0037\"}").getStatus();
+        int third = send("10.0.0.3", "{\"phoneNumber\":\"\\u002b994501234567\"}").getStatus();
+
+        // Then
+        assertThat(List.of(first, second, third)).containsExactly(200, 200, 429);
+    }
+
+    @Test
+    @DisplayName("A body the phone cannot be read from should be limited by client IP instead of not at all")
+    void doFilter_phonePolicy_unreadableBody_shouldFallBackToIp() throws Exception {
+        // Given
+        filter = filter(phonePolicy());
+        String padded = "{\"padding\":\"" + "x".repeat(5000) + "\",\"phoneNumber\":\"+994501234567\"}";
+
+        // When
+        int first = send("10.0.0.1", padded).getStatus();
+        int second = send("10.0.0.1", "{\"phoneNumber\":\"not-a-number\"}").getStatus();
+        int third = send("10.0.0.1", "{}").getStatus();
+        int otherClient = send("10.0.0.2", padded).getStatus();
+
+        // Then
+        assertThat(List.of(first, second, third, otherClient)).containsExactly(200, 200, 429, 200);
+    }
+
+    private MockHttpServletResponse send() throws Exception {
+        return send("10.0.0.1", null);
+    }
+
+    private MockHttpServletResponse send(String remoteAddr, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/test");
+        request.setRemoteAddr(remoteAddr);
+        if (body != null) {
+            request.setContentType("application/json");
+            request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private RateLimitFilter filter(Policy... policies) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPolicies(List.of(policies));
+        RateLimitFilter filter = new RateLimitFilter(meterRegistry, properties,
+                new StaticListableBeanFactory().getBeanProvider(ClusterRateLimiter.class));
+        ReflectionTestUtils.setField(filter, "maxBuckets", 64);
+        ReflectionTestUtils.setField(filter, "stripes", 1);
+        ReflectionTestUtils.setField(filter, "idleTimeoutSeconds", 120L);
+        filter.init();
+        return filter;
+    }
+
+    private static Policy phonePolicy() {
+        Policy policy = policy("phone", 2);
+        policy.setKey(KeyType.PHONE);
+        return policy;
+    }
+
+    private double rejections(String policy) {
+        return meterRegistry.get("kredo.ratelimit.rejections").tag("policy", policy).counter().count();
+    }
+
+    private static Policy policy(String name, int limit) {
+        Policy policy = new Policy();
+        policy.setName(name);
+        policy.setPathPrefix("/api/");
+        policy.setLimit(limit);
+        policy.setPeriod(Duration.ofMinutes(1));
+        return policy;
+    }
+}
@@ -0,0 +1,87 @@
+package az.kredo.loan.config;
+
+import az.kredo.loan.config.RateLimitProperties.Algorithm;
+import az.kredo.loan.config.RateLimitProperties.Policy;
+import az.kredo.loan.support.LongKeyBucketStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitRuleTest {
+
+    private static final long KEY = 42L;
+
+    private final LongKeyBucketStore store = new LongKeyBucketStore(64, 1, RateLimitRule.STATE_WIDTH);
+
+    @Test
+    @DisplayName("Token bucket refills continuously instead of resetting per window")
+    void tokenBucket_refillsContinuously() {
+        RateLimitRule rule = rule(Algorithm.TOKEN_BUCKET, 60, Duration.ofMinutes(1));
+        long now = 1_000_000L;
+
+        for (int i = 0; i < 60; i++) {
+            assertThat(acquire(rule, now)).isTrue();
+        }
+        RateLimitRule.Outcome outcome = RateLimitRule.begin();
+        assertThat(store.tryAcquire(KEY, now, rule)).isFalse();
+        assertThat(outcome.rejected).isTrue();
+        assertThat(outcome.retryAfterMs).isEqualTo(1_000);
+
+        // One token per second: the next minute boundary does not hand out a fresh burst
+        assertThat(acquire(rule, now + 1_000)).isTrue();
+        assertThat(acquire(rule, now + 1_000)).isFalse();
+        assertThat(acquire(rule, now + 2_000)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Sliding window carries the previous window's weight across the boundary")
+    void slidingWindow_weightsPreviousWindow() {
+        RateLimitRule rule = rule(Algorithm.SLIDING_WINDOW, 10, Duration.ofSeconds(10));
+        long windowStart = 1_000_000L;
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(acquire(rule, windowStart + 9_000)).isTrue();
+        }
+        assertThat(acquire(rule, windowStart + 9_500)).isFalse();
+
+        // Just past the edge the previous window still counts almost fully
+        assertThat(acquire(rule, windowStart + 10_100)).isFalse();
+        // Halfway through the next window half of it has decayed
+        RateLimitRule.Outcome outcome = RateLimitRule.begin();
+        assertThat(store.tryAcquire(KEY, windowStart + 15_000, rule)).isTrue();
+        assertThat(outcome.limit).isEqualTo(10);
+        assertThat(outcome.remaining).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Outcome reports the most restrictive of several rules")
+    void outcome_keepsMostRestrictiveRule() {
+        RateLimitRule.Outcome outcome = RateLimitRule.begin();
+        outcome.record(100, 50, 1_000, 0, true);
+        outcome.record(5, 0, 30_000, 2_000, false);
+        outcome.record(20, 10, 500, 0, true);
+
+        assertThat(outcome.rejected).isTrue();
+        assertThat(outcome.limit).isEqualTo(5);
+        assertThat(outcome.remaining).isZero();
+        assertThat(outcome.retryAfterMs).isEqualTo(2_000);
+    }
+
+    private boolean acquire(RateLimitRule rule, long nowMs) {
+        RateLimitRule.begin();
+        return store.tryAcquire(KEY, nowMs, rule);
+    }
+
+    private static RateLimitRule rule(Algorithm algorithm, int limit, Duration period) {
+        Policy policy = new Policy();
+        policy.setName("test");
+        policy.setPathPrefix("/api/");
+        policy.setAlgorithm(algorithm);
+        policy.setLimit(limit);
+        policy.setPeriod(period);
+        return new RateLimitRule(policy, 0);
+    }
+}
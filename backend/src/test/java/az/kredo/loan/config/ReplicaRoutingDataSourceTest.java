@@ -0,0 +1,110 @@
+package az.kredo.loan.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    private static final String TEST_PHONE = "+994501234567";
+
+    private JdbcDataSource replica;
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = h2("routing_primary");
+        replica = h2("routing_replica");
+        new JdbcTemplate(primary).execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+        new JdbcTemplate(primary).execute("MERGE INTO node KEY (name) VALUES ('primary')");
+        new JdbcTemplate(replica).execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+        new JdbcTemplate(replica).execute("MERGE INTO node KEY (name) VALUES ('replica')");
+        new JdbcTemplate(replica).execute("CREATE TABLE IF NOT EXISTS lag (ms BIGINT)");
+        new JdbcTemplate(replica).execute("DELETE FROM lag");
+        new JdbcTemplate(replica).execute("INSERT INTO lag VALUES (0)");
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, Map.of("replica-1", replica),
+                5_000, 2_000, 1_000, "SELECT ms FROM lag");
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        routingDataSource.checkReplicaLag();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Read-only transactions should be served by a healthy replica")
+    void readOnlyTransaction_shouldUseReplica() {
+        assertThat(currentNode(readOnly)).isEqualTo("replica");
+        assertThat(currentNode(readWrite)).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Principal that just wrote should read from the primary")
+    void readAfterWrite_samePrincipal_shouldUsePrimary() {
+        authenticate(TEST_PHONE);
+        currentNode(readWrite);
+
+        assertThat(currentNode(readOnly)).isEqualTo("primary");
+
+        authenticate("+994509999999");
+        assertThat(currentNode(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Lagging replica should be skipped until it catches up")
+    void laggingReplica_shouldFallBackToPrimary() {
+        new JdbcTemplate(replica).update("UPDATE lag SET ms = 10000");
+        routingDataSource.checkReplicaLag();
+
+        assertThat(routingDataSource.isReplicaHealthy("replica-1")).isFalse();
+        assertThat(currentNode(readOnly)).isEqualTo("primary");
+
+        new JdbcTemplate(replica).update("UPDATE lag SET ms = 100");
+        routingDataSource.checkReplicaLag();
+
+        assertThat(currentNode(readOnly)).isEqualTo("replica");
+    }
+
+    private String currentNode(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private void authenticate(String phoneNumber) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(phoneNumber, null, Collections.emptyList()));
+    }
+
+    private static JdbcDataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        return dataSource;
+    }
+}
@@ -96,7 +96,7 @@ class OtpControllerIntegrationTest {
     @DisplayName("Generate OTP should include X-Request-Id header in response")
     void generateOtp_shouldIncludeCorrelationId() throws Exception {
         GenerateOtpRequest request = GenerateOtpRequest.builder()
-                .phoneNumber("+994501234567")
+                .phoneNumber("+994501234568")
                 .channel("SMS")
                 .build();
 
@@ -107,4 +107,22 @@ class OtpControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(header().string("X-Request-Id", "test-correlation-id"));
     }
+
+    @Test
+    @DisplayName("Responses should carry a Server-Timing breakdown")
+    void generateOtp_shouldIncludeServerTiming() throws Exception {
+        GenerateOtpRequest request = GenerateOtpRequest.builder()
+                .phoneNumber("+994501234599")
+                .channel("SMS")
+                .build();
+
+        mockMvc.perform(post(BASE_URL + "/generate-otp")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", allOf(
+                        containsString("service;dur="),
+                        containsString("db;dur="),
+                        containsString("total;dur="))));
+    }
 }
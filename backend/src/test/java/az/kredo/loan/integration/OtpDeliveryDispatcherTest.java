@@ -0,0 +1,150 @@
+package az.kredo.loan.integration;
+
+import az.kredo.loan.integration.OtpDeliveryGateway.OtpMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OtpDeliveryDispatcherTest {
+
+    private OtpDeliveryDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Messages should be delivered in batches no larger than the gateway allows")
+    void submit_shouldDeliverInBatches() throws InterruptedException {
+        // Given
+        RecordingGateway gateway = new RecordingGateway(10, 0, 50);
+        dispatcher = new OtpDeliveryDispatcher(List.of(gateway), 100, 1, 3, 10);
+        dispatcher.start();
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            assertThat(dispatcher.submit(message("SMS"))).isTrue();
+        }
+
+        // Then
+        assertThat(gateway.delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(gateway.batchSizes).allSatisfy(size -> assertThat(size).isBetween(1, 10));
+        assertThat(gateway.ids).hasSize(50);
+    }
+
+    @Test
+    @DisplayName("Failed messages should be retried with backoff until delivered")
+    void submit_failingGateway_shouldRetry() throws InterruptedException {
+        // Given
+        RecordingGateway gateway = new RecordingGateway(1, 2, 1);
+        dispatcher = new OtpDeliveryDispatcher(List.of(gateway), 10, 1, 3, 10);
+        dispatcher.start();
+
+        // When
+        dispatcher.submit(message("SMS"));
+
+        // Then
+        assertThat(gateway.delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(gateway.calls).hasSize(3);
+        assertThat(dispatcher.abandonedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Submit should refuse messages when the queue is full or no gateway handles the channel")
+    void submit_fullQueueOrUnknownChannel_shouldRefuse() throws InterruptedException {
+        // Given: a gateway that parks the only worker on the first message
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OtpDeliveryGateway smsOnly = new OtpDeliveryGateway() {
+            @Override
+            public boolean supports(String channel) {
+                return "SMS".equals(channel);
+            }
+
+            @Override
+            public List<OtpMessage> send(List<OtpMessage> messages) {
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return List.of();
+            }
+        };
+        dispatcher = new OtpDeliveryDispatcher(List.of(smsOnly), 1, 1, 3, 10);
+        dispatcher.start();
+        assertThat(dispatcher.submit(message("SMS"))).isTrue();
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        boolean queued = dispatcher.submit(message("SMS"));
+        boolean overflow = dispatcher.submit(message("SMS"));
+
+        // Then
+        assertThat(queued).isTrue();
+        assertThat(overflow).isFalse();
+        assertThat(dispatcher.hasCapacity("SMS")).isFalse();
+        assertThat(dispatcher.submit(message("EMAIL"))).isFalse();
+        release.countDown();
+    }
+
+    private static OtpMessage message(String channel) {
+        return new OtpMessage(UUID.randomUUID(), channel, "+994501234567", "123456",
+                Instant.now().plusSeconds(120));
+    }
+
+    private static class RecordingGateway implements OtpDeliveryGateway {
+        private final int maxBatchSize;
+        private int failuresLeft;
+        private final CountDownLatch delivered;
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private final List<Integer> calls = new ArrayList<>();
+        private final Set<UUID> ids = ConcurrentHashMap.newKeySet();
+
+        RecordingGateway(int maxBatchSize, int failures, int expectedMessages) {
+            this.maxBatchSize = maxBatchSize;
+            this.failuresLeft = failures;
+            this.delivered = new CountDownLatch(expectedMessages);
+        }
+
+        @Override
+        public boolean supports(String channel) {
+            return true;
+        }
+
+        @Override
+        public int maxBatchSize() {
+            return maxBatchSize;
+        }
+
+        @Override
+        public synchronized List<OtpMessage> send(List<OtpMessage> messages) {
+            calls.add(messages.size());
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IllegalStateException("provider unavailable");
+            }
+            batchSizes.add(messages.size());
+            for (OtpMessage message : messages) {
+                ids.add(message.requestId());
+                delivered.countDown();
+            }
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package az.kredo.loan.repository;
+
+import az.kredo.loan.entity.OtpRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OtpRequestRepositoryTest {
+
+    private static final String TEST_PHONE = "+994501234567";
+
+    @Autowired
+    private OtpRequestRepository otpRequestRepository;
+
+    @Test
+    @DisplayName("Each attempt should be counted atomically and lock the request past max attempts")
+    void registerAttempt_shouldCountAndLock() {
+        UUID id = saveOtp(Instant.now().plus(2, ChronoUnit.MINUTES));
+
+        for (int expected = 1; expected <= 3; expected++) {
+            Instant now = Instant.now();
+            Optional<OtpAttemptState> state = otpRequestRepository.registerAttempt(
+                    id, TEST_PHONE, now, 2, now.plus(5, ChronoUnit.MINUTES));
+
+            assertThat(state).isPresent();
+            assertThat(state.get().attempts()).isEqualTo(expected);
+            assertThat(state.get().otpHash()).isEqualTo("hash");
+            assertThat(state.get().lockedUntil() != null).isEqualTo(expected > 2);
+        }
+
+        Instant now = Instant.now();
+        assertThat(otpRequestRepository.registerAttempt(id, TEST_PHONE, now, 2, now.plus(5, ChronoUnit.MINUTES)))
+                .isEmpty();
+        assertThat(otpRequestRepository.findById(id).orElseThrow().getAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Attempts against expired, verified or foreign requests should not match")
+    void registerAttempt_ineligibleRequest_shouldReturnEmpty() {
+        Instant now = Instant.now();
+        UUID expired = saveOtp(now.minus(1, ChronoUnit.MINUTES));
+        UUID live = saveOtp(now.plus(2, ChronoUnit.MINUTES));
+
+        assertThat(otpRequestRepository.registerAttempt(expired, TEST_PHONE, now, 5, now)).isEmpty();
+        assertThat(otpRequestRepository.registerAttempt(live, "+994509999999", now, 5, now)).isEmpty();
+
+        assertThat(otpRequestRepository.markVerified(live, now)).isEqualTo(1);
+        assertThat(otpRequestRepository.markVerified(live, now)).isZero();
+        assertThat(otpRequestRepository.registerAttempt(live, TEST_PHONE, now, 5, now)).isEmpty();
+    }
+
+    private UUID saveOtp(Instant expiresAt) {
+        return otpRequestRepository.save(OtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .otpHash("hash")
+                .channel("SMS")
+                .createdAt(Instant.now())
+                .expiresAt(expiresAt)
+                .build()).getId();
+    }
+}
@@ -0,0 +1,80 @@
+package az.kredo.loan.security;
+
+import az.kredo.loan.config.EncryptionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BlindIndexerTest {
+
+    private static final String KEY = "dGVzdC1vbmx5LWJsaW5kLWluZGV4LWtleS0xMjM0NTY3";
+    private static final String OTHER_KEY = "YW5vdGhlci10ZXN0LWJsaW5kLWluZGV4LWtleS0xMjM0";
+
+    private BlindIndexer indexer;
+
+    @BeforeEach
+    void setUp() {
+        indexer = indexer(KEY);
+    }
+
+    @Test
+    @DisplayName("FINs differing only in case and whitespace should share an index")
+    void finIndex_shouldIgnoreCaseAndWhitespace() {
+        // When
+        String index = indexer.finIndex("AB12CD3");
+
+        // Then
+        assertThat(index).hasSize(43);
+        assertThat(indexer.finIndex(" ab12 cd3 ")).isEqualTo(index);
+        assertThat(indexer.finIndex("AB12CD4")).isNotEqualTo(index);
+    }
+
+    @Test
+    @DisplayName("Addresses differing only in punctuation, case and spacing should share an index")
+    void addressIndex_shouldNormalize() {
+        // When
+        String index = indexer.addressIndex("Bakı, Nizami küçəsi 12");
+
+        // Then
+        assertThat(indexer.addressIndex("  Bakı NIZAMI   küçəsi, 12.")).isEqualTo(index);
+        assertThat(indexer.addressIndex("Bakı, Nizami küçəsi 14")).isNotEqualTo(index);
+    }
+
+    @Test
+    @DisplayName("The same value should get unrelated indexes per field and per key")
+    void index_shouldBeSeparatedByFieldAndKey() {
+        // When
+        String finIndex = indexer.finIndex("AB12CD3");
+
+        // Then
+        assertThat(indexer.addressIndex("AB12CD3")).isNotEqualTo(finIndex);
+        assertThat(indexer(OTHER_KEY).finIndex("AB12CD3")).isNotEqualTo(finIndex);
+    }
+
+    @Test
+    @DisplayName("Blank values should have no index")
+    void index_blank_shouldBeNull() {
+        assertThat(indexer.finIndex(null)).isNull();
+        assertThat(indexer.finIndex("  ")).isNull();
+        assertThat(indexer.addressIndex(" ,. ")).isNull();
+    }
+
+    @Test
+    @DisplayName("A key shorter than 32 bytes should be rejected at startup")
+    void init_shortKey_shouldFail() {
+        assertThatThrownBy(() -> indexer("c2hvcnQta2V5"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("at least 32 bytes");
+    }
+
+    private static BlindIndexer indexer(String keyBase64) {
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.getBlindIndex().setKeyBase64(keyBase64);
+        BlindIndexer indexer = new BlindIndexer(properties);
+        indexer.init();
+        return indexer;
+    }
+}
@@ -0,0 +1,163 @@
+package az.kredo.loan.security;
+
+import az.kredo.loan.config.EncryptionProperties;
+import az.kredo.loan.entity.DataEncryptionKey;
+import az.kredo.loan.repository.DataEncryptionKeyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FieldEncryptorTest {
+
+    private static final String KEY = "dGVzdC1vbmx5LWZpZWxkLWVuY3J5cHRpb24ta2V5ISE=";
+    private static final String MASTER_KEY = "dGVzdC1vbmx5LWZpZWxkLW1hc3Rlci1rZXktMTIzNDU=";
+
+    private final List<DataEncryptionKey> storedKeys = new ArrayList<>();
+    private FieldEncryptor encryptor;
+
+    @BeforeEach
+    void setUp() {
+        encryptor = new FieldEncryptor(keyRing(1), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Non-ASCII values should round-trip as UTF-8 with a fresh IV each time")
+    void encryptAndDecrypt_shouldRoundTripUtf8() {
+        // Given
+        String address = "Bakı şəhəri, Nizami küçəsi 12";
+
+        // When
+        String first = encryptor.encrypt(address);
+        String second = encryptor.encrypt(address);
+
+        // Then
+        assertThat(first).startsWith("v1:").isNotEqualTo(second);
+        assertThat(encryptor.decrypt(first)).isEqualTo(address);
+        assertThat(encryptor.decrypt(second)).isEqualTo(address);
+    }
+
+    @Test
+    @DisplayName("Values written by the previous implementation should still decrypt")
+    void decrypt_legacyFormat_shouldStillWork() throws Exception {
+        // Given: IV + ciphertext assembled through a ByteBuffer, as before
+        byte[] iv = new byte[12];
+        Arrays.fill(iv, (byte) 7);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(Base64.getDecoder().decode(KEY), "AES"),
+                new GCMParameterSpec(128, iv));
+        byte[] ciphertext = cipher.doFinal("AB12CD3".getBytes());
+        String legacy = Base64.getEncoder().encodeToString(
+                ByteBuffer.allocate(iv.length + ciphertext.length).put(iv).put(ciphertext).array());
+
+        // When / Then
+        assertThat(FieldEncryptor.keyVersion(legacy)).isZero();
+        assertThat(encryptor.needsReencryption(legacy)).isTrue();
+        assertThat(encryptor.decrypt(legacy)).isEqualTo("AB12CD3");
+    }
+
+    @Test
+    @DisplayName("After a rotation new values use the new version and old versions still decrypt")
+    void rotation_shouldKeepOlderVersionsReadable() {
+        // Given
+        String written = encryptor.encrypt("AB12CD3");
+
+        // When: a node starts with active-version 2 against the same key table
+        FieldEncryptor rotated = new FieldEncryptor(keyRing(2), new SimpleMeterRegistry());
+
+        // Then
+        assertThat(storedKeys).extracting(DataEncryptionKey::getVersion).containsExactly(1, 2);
+        assertThat(rotated.needsReencryption(written)).isTrue();
+        assertThat(rotated.decrypt(written)).isEqualTo("AB12CD3");
+        String rewritten = rotated.encrypt("AB12CD3");
+        assertThat(FieldEncryptor.keyVersion(rewritten)).isEqualTo(2);
+        assertThat(rotated.needsReencryption(rewritten)).isFalse();
+        // A node still on version 1 picks the new data key up from the table
+        assertThat(encryptor.decrypt(rewritten)).isEqualTo("AB12CD3");
+    }
+
+    @Test
+    @DisplayName("A node still on the old version should not rewrite values under a newer one")
+    void needsReencryption_newerVersion_shouldBeFalse() {
+        // Given: a node on version 2 has already rewritten the value
+        FieldEncryptor rotated = new FieldEncryptor(keyRing(2), new SimpleMeterRegistry());
+        String rewritten = rotated.encrypt("AB12CD3");
+
+        // When / Then: the node still on version 1 reads it but leaves it under version 2
+        assertThat(FieldEncryptor.keyVersion(rewritten)).isEqualTo(2);
+        assertThat(encryptor.needsReencryption(rewritten)).isFalse();
+        assertThat(encryptor.decrypt(rewritten)).isEqualTo("AB12CD3");
+    }
+
+    @Test
+    @DisplayName("Relabelling a value with another key version should fail authentication")
+    void decrypt_relabelledVersion_shouldFail() {
+        new FieldEncryptor(keyRing(2), new SimpleMeterRegistry());
+        String written = encryptor.encrypt("AB12CD3");
+
+        assertThatThrownBy(() -> encryptor.decrypt("v2:" + written.substring(3)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Batch operations should keep order and pass null and empty values through")
+    void encryptAllAndDecryptAll_shouldRoundTrip() {
+        List<String> values = Arrays.asList("AB12CD3", null, "", "Gəncə");
+
+        List<String> encrypted = encryptor.encryptAll(values);
+
+        assertThat(encrypted.get(1)).isNull();
+        assertThat(encrypted.get(2)).isEmpty();
+        assertThat(encryptor.decrypt(encrypted.get(0))).isEqualTo("AB12CD3");
+        assertThat(encryptor.decryptAll(encrypted)).containsExactlyElementsOf(values);
+    }
+
+    @Test
+    @DisplayName("Tampered values should be rejected and leave the encryptor usable")
+    void decrypt_tamperedValue_shouldFail() {
+        byte[] bytes = Base64.getDecoder().decode(encryptor.encrypt("AB12CD3"));
+        bytes[bytes.length - 1] ^= 1;
+        String tampered = Base64.getEncoder().encodeToString(bytes);
+
+        assertThatThrownBy(() -> encryptor.decrypt(tampered)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> encryptor.decrypt("AAAA")).isInstanceOf(IllegalStateException.class);
+        assertThat(encryptor.decrypt(encryptor.encrypt("AB12CD3"))).isEqualTo("AB12CD3");
+    }
+
+    /**
+     * A key ring for the given active version over a shared in-memory key table.
+     */
+    private FieldKeyRing keyRing(int activeVersion) {
+        DataEncryptionKeyRepository repository = mock(DataEncryptionKeyRepository.class);
+        when(repository.findAll()).thenAnswer(invocation -> new ArrayList<>(storedKeys));
+        when(repository.saveAndFlush(any())).thenAnswer(invocation -> {
+            storedKeys.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.setKeyBase64(KEY);
+        properties.setActiveVersion(activeVersion);
+        properties.setActiveMasterKey("test");
+        properties.setMasterKeys(Map.of("test", MASTER_KEY));
+        FieldKeyRing keyRing = new FieldKeyRing(properties, repository);
+        keyRing.init();
+        return keyRing;
+    }
+}
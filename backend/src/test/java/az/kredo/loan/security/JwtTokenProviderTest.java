@@ -0,0 +1,94 @@
+package az.kredo.loan.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "testSecretKeyForUnitTestingOnly123456789012345678901234567890";
+    private static final String TEST_PHONE = "+994501234567";
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtTokenProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        provider = new JwtTokenProvider(meterRegistry);
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "expirationSeconds", 900);
+        ReflectionTestUtils.setField(provider, "cacheMaxEntries", 100);
+        ReflectionTestUtils.setField(provider, "cacheTtlSeconds", 60L);
+        provider.init();
+    }
+
+    @Test
+    @DisplayName("Issued token should verify to its phone number, also from the cache")
+    void verify_shouldReturnPrincipal() {
+        String token = provider.generateToken(TEST_PHONE);
+
+        assertThat(provider.verify(token)).get().extracting(VerifiedToken::phoneNumber).isEqualTo(TEST_PHONE);
+        assertThat(provider.verify(token)).get().extracting(VerifiedToken::phoneNumber).isEqualTo(TEST_PHONE);
+    }
+
+    @Test
+    @DisplayName("Tampered token should be rejected even after the original was cached")
+    void verify_tamperedToken_shouldBeRejected() {
+        String token = provider.generateToken(TEST_PHONE);
+        provider.verify(token);
+
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThat(provider.verify(tampered)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Expired or non-access tokens should be rejected")
+    void verify_expiredOrWrongType_shouldBeRejected() {
+        var key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        long now = System.currentTimeMillis();
+        String expired = Jwts.builder()
+                .claim("type", "access")
+                .subject(TEST_PHONE)
+                .issuedAt(new Date(now - 120_000))
+                .expiration(new Date(now - 60_000))
+                .signWith(key)
+                .compact();
+        String refresh = Jwts.builder()
+                .claim("type", "refresh")
+                .subject(TEST_PHONE)
+                .expiration(new Date(now + 60_000))
+                .signWith(key)
+                .compact();
+
+        assertThat(provider.verify(expired)).isEmpty();
+        assertThat(provider.verify(refresh)).isEmpty();
+        assertThat(provider.verify("not-a-jwt")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Verification should be timed by result: parsed, cached or rejected")
+    void verify_shouldRecordTimerPerResult() {
+        String token = provider.generateToken(TEST_PHONE);
+
+        provider.verify(token);
+        provider.verify(token);
+        provider.verify("not-a-jwt");
+
+        assertThat(meterRegistry.get("kredo.jwt.issue").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("kredo.jwt.verify").tag("result", "parsed").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("kredo.jwt.verify").tag("result", "cached").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("kredo.jwt.verify").tag("result", "rejected").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,82 @@
+package az.kredo.loan.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OtpRequestTokenCodecTest {
+
+    private static final String KEY = "dGVzdC1vbmx5LW90cC1yZXF1ZXN0LXRva2VuLWtleS0xMjM0NTY3OA==";
+
+    private OtpRequestTokenCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        codec = codecWithKey(KEY);
+    }
+
+    @Test
+    @DisplayName("Sealed token should open to the same request, phone and expiry")
+    void sealAndOpen_shouldRoundTrip() {
+        // Given
+        OtpRequestToken token = new OtpRequestToken(UUID.randomUUID(), "+994501234567",
+                Instant.ofEpochSecond(1_800_000_000L));
+
+        // When
+        String sealed = codec.seal(token);
+
+        // Then
+        assertThat(sealed).doesNotContain("994501234567");
+        assertThat(codec.open(sealed)).contains(token);
+    }
+
+    @Test
+    @DisplayName("Tampered tokens and tokens sealed under another key should not open")
+    void open_tamperedOrForeignToken_shouldBeRejected() {
+        // Given
+        OtpRequestToken token = new OtpRequestToken(UUID.randomUUID(), "+994501234567", Instant.now());
+        byte[] bytes = Base64.getUrlDecoder().decode(codec.seal(token));
+        bytes[bytes.length - 20] ^= 1;
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        OtpRequestTokenCodec otherCodec = codecWithKey(
+                Base64.getEncoder().encodeToString("another-otp-request-token-key-0123456789".getBytes()));
+
+        // Then
+        assertThat(codec.open(tampered)).isEmpty();
+        assertThat(codec.open(otherCodec.seal(token))).isEmpty();
+        assertThat(codec.open("not-a-token")).isEmpty();
+        assertThat(codec.open(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Derived code should be stable, zero-padded and bound to the token")
+    void deriveCode_shouldBeDeterministicPerToken() {
+        // Given
+        OtpRequestToken token = new OtpRequestToken(UUID.randomUUID(), "+994501234567", Instant.now());
+        OtpRequestToken otherPhone = new OtpRequestToken(token.requestId(), "+994501234568", token.expiresAt());
+
+        // When
+        String code = codec.deriveCode(token, 6);
+
+        // Then
+        assertThat(code).matches("^[0-9]{6}$");
+        assertThat(codec.deriveCode(token, 6)).isEqualTo(code);
+        assertThat(codec.matches(token, code, 6)).isTrue();
+        assertThat(codec.deriveCode(otherPhone, 6)).isNotEqualTo(code);
+        assertThat(codec.matches(token, null, 6)).isFalse();
+    }
+
+    private static OtpRequestTokenCodec codecWithKey(String keyBase64) {
+        OtpRequestTokenCodec codec = new OtpRequestTokenCodec();
+        ReflectionTestUtils.setField(codec, "tokenKeyBase64", keyBase64);
+        codec.init();
+        return codec;
+    }
+}
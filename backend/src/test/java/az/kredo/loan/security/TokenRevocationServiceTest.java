@@ -0,0 +1,108 @@
+package az.kredo.loan.security;
+
+import az.kredo.loan.entity.TokenRevocation;
+import az.kredo.loan.repository.TokenRevocationRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TokenRevocationServiceTest {
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Revoking one token should not affect other tokens of the same phone")
+    void revokeToken_shouldOnlyRevokeThatToken() {
+        // Given
+        VerifiedToken revoked = issue("+994501110001");
+        VerifiedToken other = issue("+994501110001");
+
+        // When
+        tokenRevocationService.revokeToken(revoked.tokenId(), revoked.expiresAt());
+
+        // Then
+        assertThat(tokenRevocationService.isRevoked(revoked)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(other)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Revoking a phone should revoke its earlier tokens only")
+    void revokePhone_shouldRevokeTokensIssuedBefore() {
+        // Given
+        VerifiedToken before = issue("+994501110002");
+        VerifiedToken otherPhone = issue("+994501110003");
+
+        // When
+        tokenRevocationService.revokePhone("+994501110002", Instant.now());
+
+        // Then
+        assertThat(tokenRevocationService.isRevoked(before)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(otherPhone)).isFalse();
+        VerifiedToken later = new VerifiedToken("later", "+994501110002",
+                Instant.now().plusSeconds(5), Instant.now().plusSeconds(900));
+        assertThat(tokenRevocationService.isRevoked(later)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Revocations inserted directly into the table should apply after a sync")
+    void sync_shouldPickUpRowsAddedElsewhere() {
+        // Given
+        VerifiedToken token = issue("+994501110004");
+        assertThat(tokenRevocationService.isRevoked(token)).isFalse();
+
+        // When
+        tokenRevocationRepository.save(TokenRevocation.builder()
+                .tokenId(token.tokenId())
+                .createdAt(Instant.now())
+                .expiresAt(token.expiresAt())
+                .build());
+        tokenRevocationService.sync();
+
+        // Then
+        assertThat(tokenRevocationService.isRevoked(token)).isTrue();
+    }
+
+    @Test
+    @DisplayName("A revocation committed after one with a higher ID should still apply after a sync")
+    void sync_shouldPickUpLateCommittedLowerIds() {
+        // Given
+        VerifiedToken synced = issue("+994501110005");
+        tokenRevocationService.revokeToken(synced.tokenId(), synced.expiresAt());
+        tokenRevocationService.sync();
+        long syncedId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM token_revocations", Long.class);
+        VerifiedToken token = issue("+994501110006");
+
+        // When
+        jdbcTemplate.update("INSERT INTO token_revocations (id, token_id, created_at, expires_at) VALUES (?, ?, ?, ?)",
+                syncedId - 1_000_000, token.tokenId(), Timestamp.from(Instant.now()),
+                Timestamp.from(token.expiresAt()));
+        tokenRevocationService.sync();
+
+        // Then
+        assertThat(tokenRevocationService.isRevoked(token)).isTrue();
+    }
+
+    private VerifiedToken issue(String phoneNumber) {
+        return jwtTokenProvider.verify(jwtTokenProvider.generateToken(phoneNumber)).orElseThrow();
+    }
+}
@@ -0,0 +1,135 @@
+package az.kredo.loan.service;
+
+import az.kredo.loan.entity.BatchJobCheckpoint;
+import az.kredo.loan.entity.EmploymentStatus;
+import az.kredo.loan.entity.LoanApplication;
+import az.kredo.loan.repository.BatchJobCheckpointRepository;
+import az.kredo.loan.repository.LoanApplicationRepository;
+import az.kredo.loan.security.BlindIndexer;
+import az.kredo.loan.security.FieldEncryptor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BlindIndexBackfillJobTest {
+
+    @Autowired
+    private BlindIndexBackfillJob blindIndexBackfillJob;
+
+    @Autowired
+    private LoanApplicationService loanApplicationService;
+
+    @Autowired
+    private FieldEncryptor fieldEncryptor;
+
+    @Autowired
+    private LoanApplicationRepository loanApplicationRepository;
+
+    @Autowired
+    private BlindIndexer blindIndexer;
+
+    @Autowired
+    private BatchJobCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Job should index rows written before blind indexes so they can be found by FIN")
+    void runBatch_shouldBackfillIndexes() {
+        // Given: rows without indexes, as written before the migration
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(loanApplicationRepository.save(application(
+                    fieldEncryptor.encrypt("BF1" + i + "XYZ"), fieldEncryptor.encrypt("Bakı, küçə " + i))).getId());
+        }
+        assertThat(loanApplicationService.findByFin("BF10XYZ")).isEmpty();
+        checkpointFromOlderTarget();
+
+        // When
+        int batches = 0;
+        while (blindIndexBackfillJob.runBatch() && batches < 100) {
+            batches++;
+        }
+
+        // Then
+        assertThat(batches).isGreaterThan(1);
+        assertThat(blindIndexBackfillJob.runBatch()).isFalse();
+        for (int i = 0; i < ids.size(); i++) {
+            assertThat(loanApplicationService.findByFin(" bf1" + i + "xyz "))
+                    .extracting(LoanApplication::getId)
+                    .containsExactly(ids.get(i));
+        }
+        assertThat(loanApplicationService.findByAddress("bakı küçə 3"))
+                .extracting(LoanApplication::getId)
+                .contains(ids.get(3));
+    }
+
+    @Test
+    @DisplayName("A new target should rewrite indexes that no longer match and leave current ones alone")
+    void runBatch_newTarget_shouldRewriteStaleIndexes() {
+        // Given: rows indexed under an older target, one of them computed the old way
+        LoanApplication stale = indexed("NT1STAL", "Bakı, köhnə küçə 1");
+        LoanApplication current = indexed("NT2CURR", "Bakı, köhnə küçə 2");
+        jdbcTemplate.update("UPDATE loan_applications SET fin_index = 'old-normalization' WHERE id = ?", stale.getId());
+        checkpointFromOlderTarget();
+        assertThat(loanApplicationService.findByFin("NT1STAL")).isEmpty();
+
+        // When
+        int batches = 0;
+        while (blindIndexBackfillJob.runBatch() && batches < 100) {
+            batches++;
+        }
+
+        // Then
+        assertThat(loanApplicationService.findByFin("NT1STAL"))
+                .extracting(LoanApplication::getId)
+                .containsExactly(stale.getId());
+        assertThat(loanApplicationRepository.findById(current.getId()).orElseThrow().getFinIndex())
+                .isEqualTo(current.getFinIndex());
+    }
+
+    /**
+     * Make the stored checkpoint look as if it was written before TARGET was bumped.
+     */
+    private void checkpointFromOlderTarget() {
+        BatchJobCheckpoint checkpoint = checkpointRepository.findById(BlindIndexBackfillJob.JOB_NAME).orElseThrow();
+        checkpoint.setTarget("hmac-sha256-v0");
+        checkpointRepository.save(checkpoint);
+    }
+
+    private LoanApplication indexed(String fin, String address) {
+        LoanApplication application = application(null, null);
+        application.setFin(fin, fieldEncryptor, blindIndexer);
+        application.setAddress(address, fieldEncryptor, blindIndexer);
+        return loanApplicationRepository.save(application);
+    }
+
+    private static LoanApplication application(String finEncrypted, String addressEncrypted) {
+        return LoanApplication.builder()
+                .phoneNumber("+994501234567")
+                .firstName("Test")
+                .lastName("User")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .employmentStatus(EmploymentStatus.EMPLOYED)
+                .monthlyIncome(new BigDecimal("2000"))
+                .finEncrypted(finEncrypted)
+                .addressEncrypted(addressEncrypted)
+                .termsAccepted(true)
+                .privacyAccepted(true)
+                .build();
+    }
+}
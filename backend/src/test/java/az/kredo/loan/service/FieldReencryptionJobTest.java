@@ -0,0 +1,101 @@
+package az.kredo.loan.service;
+
+import az.kredo.loan.entity.EmploymentStatus;
+import az.kredo.loan.entity.LoanApplication;
+import az.kredo.loan.repository.LoanApplicationRepository;
+import az.kredo.loan.security.FieldEncryptor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class FieldReencryptionJobTest {
+
+    @Autowired
+    private FieldReencryptionJob fieldReencryptionJob;
+
+    @Autowired
+    private FieldEncryptor fieldEncryptor;
+
+    @Autowired
+    private LoanApplicationRepository loanApplicationRepository;
+
+    @Value("${kredo.security.encryption.key-base64}")
+    private String legacyKeyBase64;
+
+    @Test
+    @DisplayName("Job should move legacy rows to the active key version in batches and then go idle")
+    void runBatch_shouldReencryptLegacyRows() throws Exception {
+        // Given: rows written before key versioning, plus one already current
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(loanApplicationRepository.save(application(
+                    legacyEncrypt("FIN000" + i), legacyEncrypt("Bakı, küçə " + i))).getId());
+        }
+        ids.add(loanApplicationRepository.save(application(
+                fieldEncryptor.encrypt("FIN0005"), fieldEncryptor.encrypt("Bakı, küçə 5"))).getId());
+
+        // When
+        int batches = 0;
+        while (fieldReencryptionJob.runBatch() && batches < 100) {
+            batches++;
+        }
+
+        // Then
+        assertThat(batches).isGreaterThan(1);
+        assertThat(fieldReencryptionJob.runBatch()).isFalse();
+        for (int i = 0; i < ids.size(); i++) {
+            LoanApplication stored = loanApplicationRepository.findById(ids.get(i)).orElseThrow();
+            assertThat(FieldEncryptor.keyVersion(stored.getFinEncrypted())).isEqualTo(1);
+            assertThat(FieldEncryptor.keyVersion(stored.getAddressEncrypted())).isEqualTo(1);
+            assertThat(stored.getFin(fieldEncryptor)).isEqualTo("FIN000" + i);
+            assertThat(stored.getAddress(fieldEncryptor)).isEqualTo("Bakı, küçə " + i);
+        }
+    }
+
+    private String legacyEncrypt(String plaintext) throws Exception {
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(Base64.getDecoder().decode(legacyKeyBase64), "AES"),
+                new GCMParameterSpec(128, iv));
+        byte[] ciphertext = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+        byte[] combined = new byte[iv.length + ciphertext.length];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        System.arraycopy(ciphertext, 0, combined, iv.length, ciphertext.length);
+        return Base64.getEncoder().encodeToString(combined);
+    }
+
+    private static LoanApplication application(String finEncrypted, String addressEncrypted) {
+        return LoanApplication.builder()
+                .phoneNumber("+994501234567")
+                .firstName("Test")
+                .lastName("User")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .employmentStatus(EmploymentStatus.EMPLOYED)
+                .monthlyIncome(new BigDecimal("2000"))
+                .finEncrypted(finEncrypted)
+                .addressEncrypted(addressEncrypted)
+                .termsAccepted(true)
+                .privacyAccepted(true)
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package az.kredo.loan.service;
+
+import az.kredo.loan.entity.ApplicationStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FunnelAnalyticsTest {
+
+    private final FunnelAnalytics funnelAnalytics = new FunnelAnalytics();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Transitions should be counted per status pair and dwell time bucket")
+    void drain_shouldReturnCountsAndDwellSums() {
+        // Given
+        funnelAnalytics.transition(null, ApplicationStatus.INFO_SUBMITTED, 0);
+        funnelAnalytics.transition(ApplicationStatus.OFFER_PENDING, ApplicationStatus.OFFER_ACCEPTED, 20_000);
+        funnelAnalytics.transition(ApplicationStatus.OFFER_PENDING, ApplicationStatus.OFFER_ACCEPTED, 40_000);
+        funnelAnalytics.transition(ApplicationStatus.OFFER_PENDING, ApplicationStatus.OFFER_REJECTED, 7_200_000);
+
+        // When
+        List<FunnelAnalytics.Rollup> rollups = funnelAnalytics.drain();
+
+        // Then
+        assertThat(rollups).containsExactlyInAnyOrder(
+                new FunnelAnalytics.Rollup("NONE", "INFO_SUBMITTED", 1_000, 1, 0),
+                new FunnelAnalytics.Rollup("OFFER_PENDING", "OFFER_ACCEPTED", 60_000, 2, 60_000),
+                new FunnelAnalytics.Rollup("OFFER_PENDING", "OFFER_REJECTED", 21_600_000, 1, 7_200_000));
+        assertThat(funnelAnalytics.drain()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Dwell times should fall in the first bucket whose bound they do not exceed")
+    void bucket_shouldUseInclusiveUpperBounds() {
+        assertThat(FunnelAnalytics.bucket(0)).isZero();
+        assertThat(FunnelAnalytics.bucket(1_000)).isZero();
+        assertThat(FunnelAnalytics.bucket(1_001)).isEqualTo(1);
+        assertThat(FunnelAnalytics.bucket(Long.MAX_VALUE)).isEqualTo(FunnelAnalytics.DWELL_BUCKETS_MS.length - 1);
+    }
+
+    @Test
+    @DisplayName("Restored rollups should be drained again")
+    void restore_shouldPutCountsBack() {
+        // Given
+        funnelAnalytics.transition(ApplicationStatus.SCORING, ApplicationStatus.OFFER_PENDING, 500);
+        List<FunnelAnalytics.Rollup> drained = funnelAnalytics.drain();
+        funnelAnalytics.transition(ApplicationStatus.SCORING, ApplicationStatus.OFFER_PENDING, 300);
+
+        // When
+        funnelAnalytics.restore(drained);
+
+        // Then
+        assertThat(funnelAnalytics.drain()).containsExactly(
+                new FunnelAnalytics.Rollup("SCORING", "OFFER_PENDING", 1_000, 2, 800));
+    }
+
+    @Test
+    @DisplayName("A transition inside a transaction should only count once it commits")
+    void transition_inTransaction_shouldWaitForCommit() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        funnelAnalytics.transition(ApplicationStatus.INFO_SUBMITTED, ApplicationStatus.SCORING, 5_000);
+        funnelAnalytics.transition(ApplicationStatus.SCORING, ApplicationStatus.OFFER_PENDING, 100);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // When
+        List<FunnelAnalytics.Rollup> beforeCommit = funnelAnalytics.drain();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        // Then
+        assertThat(beforeCommit).isEmpty();
+        assertThat(funnelAnalytics.drain()).hasSize(2);
+    }
+}
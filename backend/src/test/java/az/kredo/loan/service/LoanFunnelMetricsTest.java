@@ -0,0 +1,67 @@
+package az.kredo.loan.service;
+
+import az.kredo.loan.entity.ApplicationStatus;
+import az.kredo.loan.entity.Decision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoanFunnelMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoanFunnelMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new LoanFunnelMetrics(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("CRM calls should be timed until completion and tagged with their outcome")
+    void crm_shouldRecordOutcome() {
+        // When
+        metrics.crm(LoanFunnelMetrics.CRM_FETCH_CUSTOMER_FLAGS,
+                () -> CompletableFuture.supplyAsync(() -> "flags"), result -> true).join();
+        metrics.crm(LoanFunnelMetrics.CRM_PUSH_APPLICATION,
+                () -> CompletableFuture.completedFuture("rejected"), result -> false).join();
+        CompletableFuture<String> failed = metrics.crm(LoanFunnelMetrics.CRM_FETCH_CUSTOMER_FLAGS,
+                () -> CompletableFuture.failedFuture(new IllegalStateException("CRM down")), result -> true);
+
+        // Then
+        assertThatThrownBy(failed::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(crmCalls(LoanFunnelMetrics.CRM_FETCH_CUSTOMER_FLAGS, "success")).isEqualTo(1);
+        assertThat(crmCalls(LoanFunnelMetrics.CRM_FETCH_CUSTOMER_FLAGS, "failure")).isEqualTo(1);
+        assertThat(crmCalls(LoanFunnelMetrics.CRM_PUSH_APPLICATION, "failure")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Decisions and status transitions should be counted per enum value")
+    void decisionAndTransition_shouldCount() {
+        // When
+        metrics.transition(null, ApplicationStatus.INFO_SUBMITTED);
+        metrics.transition(ApplicationStatus.INFO_SUBMITTED, ApplicationStatus.SCORING);
+        metrics.decision(Decision.APPROVED);
+        metrics.decision(Decision.APPROVED);
+        metrics.evaluate(() -> Decision.APPROVED);
+
+        // Then
+        assertThat(meterRegistry.get("kredo.loan.status.transitions")
+                .tags("from", "NONE", "to", "INFO_SUBMITTED").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("kredo.loan.status.transitions")
+                .tags("from", "INFO_SUBMITTED", "to", "SCORING").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("kredo.loan.decisions").tag("decision", "APPROVED").counter().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("kredo.decision.evaluate").timer().count()).isEqualTo(1);
+    }
+
+    private long crmCalls(String operation, String outcome) {
+        return meterRegistry.get("kredo.crm.calls").tags("operation", operation, "outcome", outcome).timer().count();
+    }
+}
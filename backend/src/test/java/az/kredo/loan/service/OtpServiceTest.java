@@ -2,12 +2,23 @@ package az.kredo.loan.service;
 
 import az.kredo.loan.dto.otp.GenerateOtpRequest;
 import az.kredo.loan.dto.otp.GenerateOtpResponse;
+import az.kredo.loan.dto.otp.PersonalDataDto;
 import az.kredo.loan.dto.otp.VerifyOtpRequest;
 import az.kredo.loan.dto.otp.VerifyOtpResponse;
 import az.kredo.loan.entity.OtpRequest;
 import az.kredo.loan.exception.OtpException;
-import az.kredo.loan.repository.OtpRequestRepository;
+import az.kredo.loan.integration.OtpDeliveryDispatcher;
+import az.kredo.loan.integration.OtpDeliveryGateway.OtpMessage;
+import az.kredo.loan.repository.OtpAttemptState;
 import az.kredo.loan.security.JwtTokenProvider;
+import az.kredo.loan.security.OtpHasher;
+import az.kredo.loan.security.OtpRequestToken;
+import az.kredo.loan.security.OtpRequestTokenCodec;
+import az.kredo.loan.service.otp.OtpSendTracker;
+import az.kredo.loan.service.otp.OtpStore;
+import az.kredo.loan.service.otp.StatelessOtpAttempts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.InstanceOfAssertFactories;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -24,31 +35,55 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class OtpServiceTest {
 
     @Mock
-    private OtpRequestRepository otpRequestRepository;
+    private OtpStore otpStore;
 
     @Mock
     private JwtTokenProvider jwtTokenProvider;
 
-    private PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Mock
+    private OtpDeliveryDispatcher otpDeliveryDispatcher;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    private PasswordEncoder legacyEncoder = new BCryptPasswordEncoder();
+
+    private OtpHasher otpHasher = new OtpHasher(legacyEncoder, new SimpleMeterRegistry());
 
     @InjectMocks
     private OtpService otpService;
 
     private static final String TEST_PHONE = "+994501234567";
 
+    private static final PersonalDataDto PREFILL = PersonalDataDto.builder()
+            .firstName("Turan")
+            .lastName("Aliyev")
+            .build();
+
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(otpService, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(otpHasher, "pepperBase64",
+                "dGVzdC1vbmx5LW90cC1wZXBwZXItZm9yLXVuaXQtdGVzdHMtMTIzNA==");
+        otpHasher.init();
+        ReflectionTestUtils.setField(otpService, "otpHasher", otpHasher);
+        ReflectionTestUtils.setField(otpService, "otpSendTracker", new OtpSendTracker(30, 5, 15, 100));
+        ReflectionTestUtils.setField(otpService, "personalDataService", new PersonalDataService(
+                phone -> CompletableFuture.completedFuture(PREFILL), 100, 10, 250));
+        lenient().when(otpDeliveryDispatcher.hasCapacity(any())).thenReturn(true);
+        lenient().when(otpDeliveryDispatcher.submit(any())).thenReturn(true);
         ReflectionTestUtils.setField(otpService, "otpTtlSeconds", 120);
         ReflectionTestUtils.setField(otpService, "maxAttempts", 5);
         ReflectionTestUtils.setField(otpService, "lockoutMinutes", 5);
@@ -64,7 +99,7 @@ class OtpServiceTest {
                 .channel("SMS")
                 .build();
 
-        when(otpRequestRepository.save(any(OtpRequest.class)))
+        when(otpStore.create(any(OtpRequest.class)))
                 .thenAnswer(inv -> {
                     OtpRequest saved = inv.getArgument(0);
                     ReflectionTestUtils.setField(saved, "id", UUID.randomUUID());
@@ -80,12 +115,12 @@ class OtpServiceTest {
         assertThat(response.getTtlSeconds()).isEqualTo(120);
 
         ArgumentCaptor<OtpRequest> captor = ArgumentCaptor.forClass(OtpRequest.class);
-        verify(otpRequestRepository).save(captor.capture());
+        verify(otpStore).create(captor.capture());
 
         OtpRequest saved = captor.getValue();
         assertThat(saved.getPhoneNumber()).isEqualTo(TEST_PHONE);
         assertThat(saved.getChannel()).isEqualTo("SMS");
-        assertThat(saved.getOtpHash()).isNotBlank();
+        assertThat(saved.getOtpHash()).startsWith("$h1$");
         assertThat(saved.getAttempts()).isEqualTo(0);
         assertThat(saved.getVerified()).isFalse();
     }
@@ -96,17 +131,7 @@ class OtpServiceTest {
         // Given
         UUID requestId = UUID.randomUUID();
         String otpCode = "123456";
-        String hashedOtp = passwordEncoder.encode(otpCode);
-
-        OtpRequest otpRequest = OtpRequest.builder()
-                .id(requestId)
-                .phoneNumber(TEST_PHONE)
-                .otpHash(hashedOtp)
-                .attempts(0)
-                .verified(false)
-                .createdAt(Instant.now())
-                .expiresAt(Instant.now().plus(2, ChronoUnit.MINUTES))
-                .build();
+        String hashedOtp = otpHasher.hash(otpCode);
 
         VerifyOtpRequest request = VerifyOtpRequest.builder()
                 .phoneNumber(TEST_PHONE)
@@ -114,10 +139,11 @@ class OtpServiceTest {
                 .otpCode(otpCode)
                 .build();
 
-        when(otpRequestRepository.findById(requestId)).thenReturn(Optional.of(otpRequest));
+        when(otpStore.registerAttempt(eq(requestId), eq(TEST_PHONE), any(), eq(5), any()))
+                .thenReturn(Optional.of(new OtpAttemptState(1, hashedOtp, null)));
+        when(otpStore.markVerified(eq(requestId), any())).thenReturn(true);
         when(jwtTokenProvider.generateToken(TEST_PHONE)).thenReturn("test.jwt.token");
         when(jwtTokenProvider.getExpirationSeconds()).thenReturn(900);
-        when(otpRequestRepository.save(any())).thenReturn(otpRequest);
 
         // When
         VerifyOtpResponse response = otpService.verifyOtp(request);
@@ -126,7 +152,34 @@ class OtpServiceTest {
         assertThat(response.isVerified()).isTrue();
         assertThat(response.getAccessToken()).isEqualTo("test.jwt.token");
         assertThat(response.getExpiresInSeconds()).isEqualTo(900);
-        assertThat(otpRequest.getVerified()).isTrue();
+        assertThat(response.getPersonalData()).isEqualTo(PREFILL);
+        verify(otpStore).markVerified(eq(requestId), any());
+        verify(otpStore, never()).find(any());
+    }
+
+    @Test
+    @DisplayName("Verify OTP should still accept a legacy BCrypt hash")
+    void verifyOtp_withLegacyBcryptHash_shouldReturnToken() {
+        // Given
+        UUID requestId = UUID.randomUUID();
+        String otpCode = "123456";
+
+        VerifyOtpRequest request = VerifyOtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .requestId(requestId)
+                .otpCode(otpCode)
+                .build();
+
+        when(otpStore.registerAttempt(eq(requestId), eq(TEST_PHONE), any(), eq(5), any()))
+                .thenReturn(Optional.of(new OtpAttemptState(1, legacyEncoder.encode(otpCode), null)));
+        when(otpStore.markVerified(eq(requestId), any())).thenReturn(true);
+        when(jwtTokenProvider.generateToken(TEST_PHONE)).thenReturn("test.jwt.token");
+
+        // When
+        VerifyOtpResponse response = otpService.verifyOtp(request);
+
+        // Then
+        assertThat(response.isVerified()).isTrue();
     }
 
     @Test
@@ -136,17 +189,7 @@ class OtpServiceTest {
         UUID requestId = UUID.randomUUID();
         String correctOtp = "123456";
         String wrongOtp = "654321";
-        String hashedOtp = passwordEncoder.encode(correctOtp);
-
-        OtpRequest otpRequest = OtpRequest.builder()
-                .id(requestId)
-                .phoneNumber(TEST_PHONE)
-                .otpHash(hashedOtp)
-                .attempts(0)
-                .verified(false)
-                .createdAt(Instant.now())
-                .expiresAt(Instant.now().plus(2, ChronoUnit.MINUTES))
-                .build();
+        String hashedOtp = otpHasher.hash(correctOtp);
 
         VerifyOtpRequest request = VerifyOtpRequest.builder()
                 .phoneNumber(TEST_PHONE)
@@ -154,13 +197,15 @@ class OtpServiceTest {
                 .otpCode(wrongOtp)
                 .build();
 
-        when(otpRequestRepository.findById(requestId)).thenReturn(Optional.of(otpRequest));
-        when(otpRequestRepository.save(any())).thenReturn(otpRequest);
+        when(otpStore.registerAttempt(eq(requestId), eq(TEST_PHONE), any(), eq(5), any()))
+                .thenReturn(Optional.of(new OtpAttemptState(1, hashedOtp, null)));
 
         // When/Then
         assertThatThrownBy(() -> otpService.verifyOtp(request))
                 .isInstanceOf(OtpException.class)
                 .hasFieldOrPropertyWithValue("errorCode", "OTP_INVALID");
+
+        verify(otpStore, never()).markVerified(any(), any());
     }
 
     @Test
@@ -169,7 +214,7 @@ class OtpServiceTest {
         // Given
         UUID requestId = UUID.randomUUID();
         String otpCode = "123456";
-        String hashedOtp = passwordEncoder.encode(otpCode);
+        String hashedOtp = otpHasher.hash(otpCode);
 
         OtpRequest otpRequest = OtpRequest.builder()
                 .id(requestId)
@@ -187,7 +232,8 @@ class OtpServiceTest {
                 .otpCode(otpCode)
                 .build();
 
-        when(otpRequestRepository.findById(requestId)).thenReturn(Optional.of(otpRequest));
+        when(otpStore.registerAttempt(any(), any(), any(), anyInt(), any())).thenReturn(Optional.empty());
+        when(otpStore.find(requestId)).thenReturn(Optional.of(otpRequest));
 
         // When/Then
         assertThatThrownBy(() -> otpService.verifyOtp(request))
@@ -201,17 +247,7 @@ class OtpServiceTest {
         // Given
         UUID requestId = UUID.randomUUID();
         String wrongOtp = "654321";
-        String hashedOtp = passwordEncoder.encode("123456");
-
-        OtpRequest otpRequest = OtpRequest.builder()
-                .id(requestId)
-                .phoneNumber(TEST_PHONE)
-                .otpHash(hashedOtp)
-                .attempts(5) // Already at max
-                .verified(false)
-                .createdAt(Instant.now())
-                .expiresAt(Instant.now().plus(2, ChronoUnit.MINUTES))
-                .build();
+        String hashedOtp = otpHasher.hash("123456");
 
         VerifyOtpRequest request = VerifyOtpRequest.builder()
                 .phoneNumber(TEST_PHONE)
@@ -219,15 +255,21 @@ class OtpServiceTest {
                 .otpCode(wrongOtp)
                 .build();
 
-        when(otpRequestRepository.findById(requestId)).thenReturn(Optional.of(otpRequest));
-        when(otpRequestRepository.save(any())).thenReturn(otpRequest);
+        // The atomic update already counted the 6th attempt and set the lock
+        when(otpStore.registerAttempt(eq(requestId), eq(TEST_PHONE), any(), eq(5), any()))
+                .thenReturn(Optional.of(new OtpAttemptState(6, hashedOtp,
+                        Instant.now().plus(5, ChronoUnit.MINUTES))));
 
         // When/Then
         assertThatThrownBy(() -> otpService.verifyOtp(request))
                 .isInstanceOf(OtpException.class)
                 .hasFieldOrPropertyWithValue("errorCode", "OTP_MAX_ATTEMPTS");
 
-        assertThat(otpRequest.getLockedUntil()).isNotNull();
+        ArgumentCaptor<Instant> now = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> lockUntil = ArgumentCaptor.forClass(Instant.class);
+        verify(otpStore).registerAttempt(eq(requestId), eq(TEST_PHONE),
+                now.capture(), eq(5), lockUntil.capture());
+        assertThat(lockUntil.getValue()).isEqualTo(now.getValue().plus(5, ChronoUnit.MINUTES));
     }
 
     @Test
@@ -236,7 +278,7 @@ class OtpServiceTest {
         // Given
         UUID requestId = UUID.randomUUID();
         String otpCode = "123456";
-        String hashedOtp = passwordEncoder.encode(otpCode);
+        String hashedOtp = otpHasher.hash(otpCode);
 
         OtpRequest otpRequest = OtpRequest.builder()
                 .id(requestId)
@@ -255,7 +297,8 @@ class OtpServiceTest {
                 .otpCode(otpCode)
                 .build();
 
-        when(otpRequestRepository.findById(requestId)).thenReturn(Optional.of(otpRequest));
+        when(otpStore.registerAttempt(any(), any(), any(), anyInt(), any())).thenReturn(Optional.empty());
+        when(otpStore.find(requestId)).thenReturn(Optional.of(otpRequest));
 
         // When/Then
         assertThatThrownBy(() -> otpService.verifyOtp(request))
@@ -263,6 +306,31 @@ class OtpServiceTest {
                 .hasFieldOrPropertyWithValue("errorCode", "OTP_LOCKED");
     }
 
+    @Test
+    @DisplayName("Verify OTP already verified by a concurrent request should throw exception")
+    void verifyOtp_concurrentlyVerified_shouldThrowException() {
+        // Given
+        UUID requestId = UUID.randomUUID();
+        String otpCode = "123456";
+
+        VerifyOtpRequest request = VerifyOtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .requestId(requestId)
+                .otpCode(otpCode)
+                .build();
+
+        when(otpStore.registerAttempt(eq(requestId), eq(TEST_PHONE), any(), eq(5), any()))
+                .thenReturn(Optional.of(new OtpAttemptState(2, otpHasher.hash(otpCode), null)));
+        when(otpStore.markVerified(eq(requestId), any())).thenReturn(false);
+
+        // When/Then
+        assertThatThrownBy(() -> otpService.verifyOtp(request))
+                .isInstanceOf(OtpException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "OTP_ALREADY_VERIFIED");
+
+        verify(jwtTokenProvider, never()).generateToken(any());
+    }
+
     @Test
     @DisplayName("Verify OTP not found should throw exception")
     void verifyOtp_notFound_shouldThrowException() {
@@ -274,11 +342,263 @@ class OtpServiceTest {
                 .otpCode("123456")
                 .build();
 
-        when(otpRequestRepository.findById(requestId)).thenReturn(Optional.empty());
+        when(otpStore.registerAttempt(any(), any(), any(), anyInt(), any())).thenReturn(Optional.empty());
+        when(otpStore.find(requestId)).thenReturn(Optional.empty());
 
         // When/Then
         assertThatThrownBy(() -> otpService.verifyOtp(request))
                 .isInstanceOf(OtpException.class)
                 .hasFieldOrPropertyWithValue("errorCode", "OTP_NOT_FOUND");
     }
+
+    @Test
+    @DisplayName("Stateless mode should issue a sealed token and verify its derived code without the store")
+    void statelessMode_shouldVerifyWithoutStore() {
+        // Given
+        OtpRequestTokenCodec codec = enableStatelessMode();
+        GenerateOtpResponse generated = otpService.generateOtp(GenerateOtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .channel("SMS")
+                .build());
+        OtpRequestToken token = codec.open(generated.getRequestToken()).orElseThrow();
+
+        VerifyOtpRequest request = VerifyOtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .requestId(generated.getRequestId())
+                .requestToken(generated.getRequestToken())
+                .otpCode(codec.deriveCode(token, 6))
+                .build();
+        when(jwtTokenProvider.generateToken(TEST_PHONE)).thenReturn("jwt-token");
+
+        // When
+        VerifyOtpResponse response = otpService.verifyOtp(request);
+
+        // Then
+        assertThat(response.isVerified()).isTrue();
+        assertThat(token.requestId()).isEqualTo(generated.getRequestId());
+        assertThatThrownBy(() -> otpService.verifyOtp(request))
+                .isInstanceOf(OtpException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "OTP_ALREADY_VERIFIED");
+        verifyNoInteractions(otpStore);
+    }
+
+    @Test
+    @DisplayName("Stateless mode should lock the request after max attempts and reject a token for another phone")
+    void statelessMode_shouldCountAttemptsAndBindPhone() {
+        // Given
+        OtpRequestTokenCodec codec = enableStatelessMode();
+        GenerateOtpResponse generated = otpService.generateOtp(GenerateOtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .channel("SMS")
+                .build());
+        String correctCode = codec.deriveCode(codec.open(generated.getRequestToken()).orElseThrow(), 6);
+        String wrongCode = correctCode.equals("000000") ? "111111" : "000000";
+
+        VerifyOtpRequest wrong = VerifyOtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .requestId(generated.getRequestId())
+                .requestToken(generated.getRequestToken())
+                .otpCode(wrongCode)
+                .build();
+        VerifyOtpRequest otherPhone = VerifyOtpRequest.builder()
+                .phoneNumber("+994509999999")
+                .requestId(generated.getRequestId())
+                .requestToken(generated.getRequestToken())
+                .otpCode(correctCode)
+                .build();
+
+        // When/Then
+        assertThatThrownBy(() -> otpService.verifyOtp(otherPhone))
+                .hasFieldOrPropertyWithValue("errorCode", "OTP_NOT_FOUND");
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> otpService.verifyOtp(wrong))
+                    .hasFieldOrPropertyWithValue("errorCode", "OTP_INVALID");
+        }
+        assertThatThrownBy(() -> otpService.verifyOtp(wrong))
+                .hasFieldOrPropertyWithValue("errorCode", "OTP_MAX_ATTEMPTS");
+        wrong.setOtpCode(correctCode);
+        assertThatThrownBy(() -> otpService.verifyOtp(wrong))
+                .hasFieldOrPropertyWithValue("errorCode", "OTP_LOCKED");
+    }
+
+    @Test
+    @DisplayName("Generate OTP within the resend cooldown should be refused without handing out the live request")
+    void generateOtp_withinCooldown_shouldBeRefusedWithRetryAfter() {
+        // Given
+        GenerateOtpRequest request = GenerateOtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .channel("SMS")
+                .build();
+        when(otpStore.create(any(OtpRequest.class))).thenAnswer(inv -> {
+            OtpRequest saved = inv.getArgument(0);
+            saved.setId(UUID.randomUUID());
+            return saved;
+        });
+        otpService.generateOtp(request);
+
+        // When/Then
+        assertThatThrownBy(() -> otpService.generateOtp(request))
+                .isInstanceOf(OtpException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "OTP_RESEND_LIMIT")
+                .extracting("retryAfterSeconds", InstanceOfAssertFactories.INTEGER)
+                .isBetween(1, 30);
+        verify(otpStore, times(1)).create(any());
+    }
+
+    @Test
+    @DisplayName("Generate OTP should honour the cooldown of a live request found in the store without returning it")
+    void generateOtp_liveRequestInStore_shouldBeRefused() {
+        // Given
+        Instant now = Instant.now();
+        OtpRequest existing = OtpRequest.builder()
+                .id(UUID.randomUUID())
+                .phoneNumber(TEST_PHONE)
+                .otpHash("$h1$x$y")
+                .createdAt(now.minusSeconds(5))
+                .expiresAt(now.plusSeconds(115))
+                .build();
+        when(otpStore.findLatestActive(eq(TEST_PHONE), any())).thenReturn(Optional.of(existing));
+
+        // When/Then
+        assertThatThrownBy(() -> otpService.generateOtp(GenerateOtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .channel("SMS")
+                .build()))
+                .isInstanceOf(OtpException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "OTP_RESEND_LIMIT");
+        verify(otpStore, never()).create(any());
+    }
+
+    @Test
+    @DisplayName("Generate OTP should send a new code once the cooldown is over, even while the old one is live")
+    void generateOtp_afterCooldown_shouldIssueNewRequest() {
+        // Given
+        ReflectionTestUtils.setField(otpService, "otpSendTracker", new OtpSendTracker(0, 5, 15, 100));
+        GenerateOtpRequest request = GenerateOtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .channel("SMS")
+                .build();
+        when(otpStore.create(any(OtpRequest.class))).thenAnswer(inv -> {
+            OtpRequest saved = inv.getArgument(0);
+            saved.setId(UUID.randomUUID());
+            return saved;
+        });
+
+        // When
+        GenerateOtpResponse first = otpService.generateOtp(request);
+        GenerateOtpResponse second = otpService.generateOtp(request);
+
+        // Then
+        assertThat(second.getRequestId()).isNotEqualTo(first.getRequestId());
+        verify(otpStore, times(2)).create(any());
+    }
+
+    @Test
+    @DisplayName("Generate OTP should be refused once the phone has used up its sends and nothing is live")
+    void generateOtp_resendLimitReached_shouldThrowException() {
+        // Given
+        ReflectionTestUtils.setField(otpService, "otpSendTracker", new OtpSendTracker(0, 2, 15, 100));
+        GenerateOtpRequest request = GenerateOtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .channel("SMS")
+                .build();
+        when(otpStore.create(any(OtpRequest.class))).thenAnswer(inv -> {
+            OtpRequest saved = inv.getArgument(0);
+            saved.setId(UUID.randomUUID());
+            saved.setExpiresAt(Instant.now().minusSeconds(1));
+            return saved;
+        });
+        otpService.generateOtp(request);
+        otpService.generateOtp(request);
+
+        // When/Then
+        assertThatThrownBy(() -> otpService.generateOtp(request))
+                .isInstanceOf(OtpException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "OTP_RESEND_LIMIT");
+        verify(otpStore, times(2)).create(any());
+    }
+
+    @Test
+    @DisplayName("Generate OTP should hand the plaintext code to the delivery pipeline and store only its hash")
+    void generateOtp_shouldSubmitCodeForDelivery() {
+        // Given
+        when(otpStore.create(any(OtpRequest.class))).thenAnswer(inv -> {
+            OtpRequest saved = inv.getArgument(0);
+            saved.setId(UUID.randomUUID());
+            return saved;
+        });
+        ArgumentCaptor<OtpRequest> saved = ArgumentCaptor.forClass(OtpRequest.class);
+        ArgumentCaptor<OtpMessage> delivered = ArgumentCaptor.forClass(OtpMessage.class);
+
+        // When
+        GenerateOtpResponse response = otpService.generateOtp(GenerateOtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .channel("SMS")
+                .build());
+
+        // Then
+        verify(otpStore).create(saved.capture());
+        verify(otpDeliveryDispatcher).submit(delivered.capture());
+        OtpMessage message = delivered.getValue();
+        assertThat(message.requestId()).isEqualTo(response.getRequestId());
+        assertThat(message.recipient()).isEqualTo(TEST_PHONE);
+        assertThat(message.channel()).isEqualTo("SMS");
+        assertThat(otpHasher.matches(message.code(), saved.getValue().getOtpHash())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Generate OTP should be rejected before anything is stored when the delivery queue is full")
+    void generateOtp_deliveryQueueFull_shouldThrowException() {
+        // Given
+        when(otpDeliveryDispatcher.hasCapacity("SMS")).thenReturn(false);
+
+        // When/Then
+        assertThatThrownBy(() -> otpService.generateOtp(GenerateOtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .channel("SMS")
+                .build()))
+                .isInstanceOf(OtpException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "OTP_DELIVERY_UNAVAILABLE");
+        verify(otpStore, never()).create(any());
+    }
+
+    @Test
+    @DisplayName("Generate OTP rejected by the delivery pipeline should not use up the phone's sends")
+    void generateOtp_deliveryRejected_shouldNotConsumeSend() {
+        // Given: one send per window
+        ReflectionTestUtils.setField(otpService, "otpSendTracker", new OtpSendTracker(30, 1, 15, 100));
+        GenerateOtpRequest request = GenerateOtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .channel("SMS")
+                .build();
+        when(otpStore.create(any(OtpRequest.class))).thenAnswer(inv -> {
+            OtpRequest saved = inv.getArgument(0);
+            saved.setId(UUID.randomUUID());
+            return saved;
+        });
+        when(otpDeliveryDispatcher.hasCapacity("SMS")).thenReturn(false, true);
+        when(otpDeliveryDispatcher.submit(any())).thenReturn(false, true);
+
+        // When: refused by the capacity check, then by the queue itself
+        assertThatThrownBy(() -> otpService.generateOtp(request))
+                .hasFieldOrPropertyWithValue("errorCode", "OTP_DELIVERY_UNAVAILABLE");
+        assertThatThrownBy(() -> otpService.generateOtp(request))
+                .hasFieldOrPropertyWithValue("errorCode", "OTP_DELIVERY_UNAVAILABLE");
+        GenerateOtpResponse response = otpService.generateOtp(request);
+
+        // Then
+        assertThat(response.getRequestId()).isNotNull();
+        verify(otpDeliveryDispatcher, times(2)).submit(any());
+    }
+
+    private OtpRequestTokenCodec enableStatelessMode() {
+        OtpRequestTokenCodec codec = new OtpRequestTokenCodec();
+        ReflectionTestUtils.setField(codec, "tokenKeyBase64",
+                "dGVzdC1vbmx5LW90cC1yZXF1ZXN0LXRva2VuLWtleS0xMjM0NTY3OA==");
+        codec.init();
+        ReflectionTestUtils.setField(otpService, "otpRequestTokenCodec", codec);
+        ReflectionTestUtils.setField(otpService, "statelessOtpAttempts", new StatelessOtpAttempts(100, 10));
+        ReflectionTestUtils.setField(otpService, "otpMode", "stateless");
+        return codec;
+    }
 }
@@ -0,0 +1,73 @@
+package az.kredo.loan.service;
+
+import az.kredo.loan.dto.otp.PersonalDataDto;
+import az.kredo.loan.integration.PersonalDataClient;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PersonalDataServiceTest {
+
+    private static final String TEST_PHONE = "+994501234567";
+
+    @Mock
+    private PersonalDataClient personalDataClient;
+
+    @Test
+    @DisplayName("Registry data should be cached per phone after the first lookup")
+    void prefetch_shouldServeRepeatLookupsFromCache() {
+        // Given
+        PersonalDataService service = new PersonalDataService(personalDataClient, 100, 10, 250);
+        PersonalDataDto data = PersonalDataDto.builder().firstName("Turan").build();
+        when(personalDataClient.fetchPersonalData(TEST_PHONE)).thenReturn(CompletableFuture.completedFuture(data));
+
+        // When
+        PersonalDataDto first = service.awaitPrefill(service.prefetch(TEST_PHONE));
+        PersonalDataDto second = service.awaitPrefill(service.prefetch(TEST_PHONE));
+
+        // Then
+        assertThat(first).isEqualTo(data);
+        assertThat(second).isEqualTo(data);
+        verify(personalDataClient, times(1)).fetchPersonalData(TEST_PHONE);
+    }
+
+    @Test
+    @DisplayName("A lookup that misses the deadline should be omitted but still warm the cache")
+    void awaitPrefill_slowRegistry_shouldOmitPrefill() {
+        // Given
+        PersonalDataService service = new PersonalDataService(personalDataClient, 100, 10, 20);
+        CompletableFuture<PersonalDataDto> pending = new CompletableFuture<>();
+        when(personalDataClient.fetchPersonalData(TEST_PHONE)).thenReturn(pending);
+
+        // When
+        PersonalDataDto prefill = service.awaitPrefill(service.prefetch(TEST_PHONE));
+        PersonalDataDto data = PersonalDataDto.builder().firstName("Turan").build();
+        pending.complete(data);
+
+        // Then
+        assertThat(prefill).isNull();
+        assertThat(service.prefetch(TEST_PHONE)).isCompletedWithValue(data);
+    }
+
+    @Test
+    @DisplayName("A failed lookup should be omitted without failing verification")
+    void awaitPrefill_failedRegistry_shouldReturnNull() {
+        // Given
+        PersonalDataService service = new PersonalDataService(personalDataClient, 100, 10, 250);
+        when(personalDataClient.fetchPersonalData(TEST_PHONE))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("registry down")));
+
+        // When/Then
+        assertThat(service.awaitPrefill(service.prefetch(TEST_PHONE))).isNull();
+    }
+}
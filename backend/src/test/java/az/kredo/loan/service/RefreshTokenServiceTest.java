@@ -0,0 +1,67 @@
+package az.kredo.loan.service;
+
+import az.kredo.loan.dto.token.RefreshTokenResponse;
+import az.kredo.loan.exception.TokenException;
+import az.kredo.loan.security.JwtTokenProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RefreshTokenServiceTest {
+
+    private static final String TEST_PHONE = "+994501234567";
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Test
+    @DisplayName("Refresh should return a valid access token and a new refresh token")
+    void refresh_shouldRotate() {
+        String first = refreshTokenService.issue(TEST_PHONE);
+
+        RefreshTokenResponse response = refreshTokenService.refresh(first);
+
+        assertThat(response.getRefreshToken()).isNotEqualTo(first);
+        assertThat(jwtTokenProvider.verify(response.getAccessToken()))
+                .hasValueSatisfying(token -> assertThat(token.phoneNumber()).isEqualTo(TEST_PHONE));
+        assertThat(refreshTokenService.refresh(response.getRefreshToken()).getRefreshToken())
+                .isNotEqualTo(response.getRefreshToken());
+    }
+
+    @Test
+    @DisplayName("Replaying a used refresh token should revoke the whole family")
+    void refresh_reusedToken_shouldRevokeFamily() {
+        String first = refreshTokenService.issue(TEST_PHONE);
+        String second = refreshTokenService.refresh(first).getRefreshToken();
+
+        assertThatThrownBy(() -> refreshTokenService.refresh(first))
+                .isInstanceOf(TokenException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "REFRESH_TOKEN_REUSED");
+        assertThatThrownBy(() -> refreshTokenService.refresh(second))
+                .isInstanceOf(TokenException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "REFRESH_TOKEN_INVALID");
+    }
+
+    @Test
+    @DisplayName("Malformed or forged refresh tokens should be rejected")
+    void refresh_forgedToken_shouldBeRejected() {
+        String issued = refreshTokenService.issue(TEST_PHONE);
+        String forged = issued.substring(0, issued.indexOf('.') + 1) + "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+
+        assertThatThrownBy(() -> refreshTokenService.refresh(forged))
+                .hasFieldOrPropertyWithValue("errorCode", "REFRESH_TOKEN_INVALID");
+        assertThatThrownBy(() -> refreshTokenService.refresh("garbage"))
+                .hasFieldOrPropertyWithValue("errorCode", "REFRESH_TOKEN_INVALID");
+        assertThat(refreshTokenService.refresh(issued).getAccessToken()).isNotBlank();
+    }
+}
@@ -0,0 +1,81 @@
+package az.kredo.loan.service.otp;
+
+import az.kredo.loan.entity.OtpRequest;
+import az.kredo.loan.exception.OtpException;
+import az.kredo.loan.repository.OtpAttemptState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryOtpStoreTest {
+
+    private static final String TEST_PHONE = "+994501234567";
+
+    private InMemoryOtpStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryOtpStore(null, 2, 10, false, 100, 100);
+    }
+
+    @Test
+    @DisplayName("Attempts should be counted and lock the request past max attempts")
+    void registerAttempt_shouldCountAndLock() {
+        UUID id = store.create(otp(Instant.now().plus(2, ChronoUnit.MINUTES))).getId();
+        Instant now = Instant.now();
+        Instant lockUntil = now.plus(5, ChronoUnit.MINUTES);
+
+        assertThat(store.registerAttempt(id, TEST_PHONE, now, 1, lockUntil))
+                .contains(new OtpAttemptState(1, "hash", null));
+        assertThat(store.registerAttempt(id, TEST_PHONE, now, 1, lockUntil))
+                .contains(new OtpAttemptState(2, "hash", lockUntil));
+        assertThat(store.registerAttempt(id, TEST_PHONE, now, 1, lockUntil)).isEmpty();
+        assertThat(store.find(id).map(OtpRequest::isLocked)).contains(true);
+    }
+
+    @Test
+    @DisplayName("Only the first verification should win and wrong phone numbers should not match")
+    void markVerified_shouldSucceedOnce() {
+        UUID id = store.create(otp(Instant.now().plus(2, ChronoUnit.MINUTES))).getId();
+        Instant now = Instant.now();
+
+        assertThat(store.registerAttempt(id, "+994509999999", now, 5, now)).isEmpty();
+        assertThat(store.markVerified(id, now)).isTrue();
+        assertThat(store.markVerified(id, now)).isFalse();
+        assertThat(store.registerAttempt(id, TEST_PHONE, now, 5, now)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Expired requests should be evicted and capacity should be bounded")
+    void expireEntries_shouldEvictAndFreeCapacity() throws InterruptedException {
+        store.create(otp(Instant.now().plusMillis(20)));
+        store.create(otp(Instant.now().plus(2, ChronoUnit.MINUTES)));
+
+        assertThatThrownBy(() -> store.create(otp(Instant.now().plus(2, ChronoUnit.MINUTES))))
+                .isInstanceOf(OtpException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "OTP_STORE_FULL");
+
+        Thread.sleep(50);
+        store.expireEntries();
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.create(otp(Instant.now().plus(2, ChronoUnit.MINUTES))).getId()).isNotNull();
+    }
+
+    private OtpRequest otp(Instant expiresAt) {
+        return OtpRequest.builder()
+                .phoneNumber(TEST_PHONE)
+                .otpHash("hash")
+                .channel("SMS")
+                .createdAt(Instant.now())
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package az.kredo.loan.service.otp;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OtpPartitionMaintenanceTest {
+
+    @Test
+    @DisplayName("Partition names should round-trip to their day")
+    void partitionName_shouldRoundTrip() {
+        // Given
+        LocalDate day = LocalDate.of(2026, 3, 9);
+
+        // When
+        String name = OtpPartitionMaintenance.partitionName(day);
+
+        // Then
+        assertThat(name).isEqualTo("otp_requests_p20260309");
+        assertThat(OtpPartitionMaintenance.partitionDay(name)).isEqualTo(day);
+    }
+
+    @Test
+    @DisplayName("Tables that are not daily OTP partitions should never be selected for dropping")
+    void partitionDay_foreignTable_shouldBeIgnored() {
+        assertThat(OtpPartitionMaintenance.partitionDay("otp_requests")).isNull();
+        assertThat(OtpPartitionMaintenance.partitionDay("otp_requests_pdefault")).isNull();
+        assertThat(OtpPartitionMaintenance.partitionDay("loan_applications")).isNull();
+    }
+}
@@ -0,0 +1,57 @@
+package az.kredo.loan.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Every added pair should be reported as possibly present")
+    void mightContain_addedPairs_shouldNeverBeMissed() {
+        // Given
+        BloomFilter filter = new BloomFilter(10_000, 0.001);
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti", "token-" + i);
+        }
+
+        // Then
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("jti", "token-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("False positive rate should stay near the configured rate at capacity")
+    void mightContain_absentPairs_shouldRarelyMatch() {
+        // Given
+        BloomFilter filter = new BloomFilter(10_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti", "token-" + i);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("jti", "other-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    @DisplayName("The same value under another namespace should not match")
+    void mightContain_shouldSeparateNamespaces() {
+        BloomFilter filter = new BloomFilter(100, 0.001);
+        filter.put("sub", "+994501234567");
+
+        assertThat(filter.mightContain("sub", "+994501234567")).isTrue();
+        assertThat(filter.mightContain("jti", "+994501234567")).isFalse();
+    }
+}
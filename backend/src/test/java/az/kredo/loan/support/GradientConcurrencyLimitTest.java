@@ -0,0 +1,83 @@
+package az.kredo.loan.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientConcurrencyLimitTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long WINDOW = 100 * MS;
+
+    @Test
+    @DisplayName("Limit should grow while latency stays at its baseline under full load")
+    void steadyLatency_fullLoad_shouldGrowLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 5, 200, 1.5, 0.2, WINDOW, 10, 0);
+
+        runWindows(limit, 0, 20, 20, 10 * MS);
+
+        assertThat(limit.getLimit()).isGreaterThan(30);
+    }
+
+    @Test
+    @DisplayName("Limit should shrink when latency climbs above its baseline")
+    void risingLatency_shouldShrinkLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(100, 5, 200, 1.5, 0.2, WINDOW, 10, 0);
+        long now = runWindows(limit, 0, 5, 100, 10 * MS);
+        int before = limit.getLimit();
+
+        runWindows(limit, now, 10, before, 80 * MS);
+
+        assertThat(limit.getLimit()).isLessThan(before * 2 / 3);
+        assertThat(limit.getLimit()).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Limit should not grow while demand stays far below it")
+    void lightLoad_shouldKeepLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(100, 5, 200, 1.5, 0.2, WINDOW, 10, 0);
+
+        runWindows(limit, 0, 20, 10, 10 * MS);
+
+        assertThat(limit.getLimit()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Lower priority shares should be refused before the full limit is reached")
+    void tryAcquire_shouldReserveHeadroomForHigherPriorities() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 5, 200, 1.5, 0.2, WINDOW, 10, 0);
+
+        for (int i = 0; i < 6; i++) {
+            assertThat(limit.tryAcquire(0.6)).isTrue();
+        }
+        assertThat(limit.tryAcquire(0.6)).isFalse();
+        for (int i = 0; i < 4; i++) {
+            assertThat(limit.tryAcquire(1.0)).isTrue();
+        }
+        assertThat(limit.tryAcquire(1.0)).isFalse();
+
+        limit.release();
+        assertThat(limit.tryAcquire(0.6)).isFalse();
+        assertThat(limit.tryAcquire(1.0)).isTrue();
+    }
+
+    /**
+     * Run windows of concurrency requests that all start together and take rtt each.
+     */
+    private static long runWindows(GradientConcurrencyLimit limit, long now, int windows, int concurrency, long rtt) {
+        for (int w = 0; w < windows; w++) {
+            int admitted = 0;
+            for (int i = 0; i < concurrency; i++) {
+                if (limit.tryAcquire(1.0)) {
+                    admitted++;
+                }
+            }
+            now += Math.max(rtt, WINDOW);
+            for (int i = 0; i < admitted; i++) {
+                limit.release(now - rtt, now);
+            }
+        }
+        return now;
+    }
+}
@@ -0,0 +1,65 @@
+package az.kredo.loan.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK_MS = 100;
+
+    @Test
+    @DisplayName("Timers should fire no earlier than their deadline and within one tick of it")
+    void advance_shouldFireTimersAtTheirDeadline() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(TICK_MS, 0);
+        // Spread across all levels: 150 ms, 12 s (level 1), 7 min (level 2), 2 h (level 3)
+        long[] deadlines = { 150, 12_000, 420_000, 7_200_000 };
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        List<long[]> fired = new ArrayList<>();
+        for (long now = 0; now <= 7_300_000; now += 50) {
+            for (Long deadline : wheel.advance(now)) {
+                fired.add(new long[] { deadline, now });
+            }
+        }
+
+        assertThat(fired).hasSize(deadlines.length);
+        for (long[] event : fired) {
+            assertThat(event[1]).isBetween(event[0], event[0] + TICK_MS);
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Cancelled timers should never fire and rescheduled timers fire at the new deadline")
+    void cancelAndReschedule_shouldUpdateTimers() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK_MS, 1_000);
+        HierarchicalTimingWheel.Timer<String> cancelled = wheel.schedule("cancelled", 2_000);
+        HierarchicalTimingWheel.Timer<String> moved = wheel.schedule("moved", 2_000);
+        wheel.schedule("kept", 2_000);
+
+        wheel.cancel(cancelled);
+        wheel.reschedule(moved, 300_000);
+
+        assertThat(wheel.advance(2_000)).containsExactly("kept");
+        assertThat(wheel.advance(299_900)).isEmpty();
+        assertThat(wheel.advance(300_000)).containsExactly("moved");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deadlines already in the past should fire on the next tick")
+    void schedule_pastDeadline_shouldFireOnNextTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK_MS, 10_000);
+        wheel.schedule("late", 5_000);
+
+        assertThat(wheel.advance(10_050)).isEmpty();
+        assertThat(wheel.advance(10_100)).containsExactly("late");
+    }
+}
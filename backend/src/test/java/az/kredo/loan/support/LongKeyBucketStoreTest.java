@@ -0,0 +1,96 @@
+package az.kredo.loan.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongKeyBucketStoreTest {
+
+    /** Counts hits per bucket in state[0]; allows every request. */
+    private static final LongKeyBucketStore.BucketUpdate COUNT = (state, offset, fresh, nowMs) -> {
+        state[offset]++;
+        return true;
+    };
+
+    @Test
+    @DisplayName("Size should never exceed capacity under unbounded key churn")
+    void tryAcquire_hostileKeyChurn_shouldStayBounded() {
+        // Given
+        LongKeyBucketStore store = new LongKeyBucketStore(1_000, 8, 2);
+
+        // When
+        for (long key = 1; key <= 200_000; key++) {
+            store.tryAcquire(LongKeyBucketStore.hash("10.0.0." + key, "/otp"), key, COUNT);
+        }
+
+        // Then
+        assertThat(store.size()).isLessThanOrEqualTo(store.capacity());
+        assertThat(store.evictions()).isGreaterThanOrEqualTo(200_000 - store.capacity());
+    }
+
+    @Test
+    @DisplayName("Bucket state should survive unrelated insertions and removals")
+    void tryAcquire_shouldKeepStatePerKeyAcrossEvictions() {
+        // Given: dense enough that probe clusters and backward shifts are common
+        LongKeyBucketStore store = new LongKeyBucketStore(4_096, 4, 1);
+        Map<Long, Long> expected = new HashMap<>();
+        Map<Long, Integer> lastTouched = new HashMap<>();
+        Random random = new Random(42);
+        long[] observed = new long[1];
+        LongKeyBucketStore.BucketUpdate countAndRead = (state, offset, fresh, nowMs) -> {
+            observed[0] = ++state[offset];
+            return true;
+        };
+
+        // When / Then
+        for (int now = 1; now <= 50_000; now++) {
+            long key = random.nextInt(2_000) + 1;
+            store.tryAcquire(key, now, countAndRead);
+            long count = expected.merge(key, 1L, Long::sum);
+            lastTouched.put(key, now);
+            assertThat(observed[0]).isEqualTo(count);
+
+            if (now % 5_000 == 0) {
+                int sweepAt = now;
+                store.evictIdle(sweepAt, 1_000);
+                // Mirror the sweep: anything not touched in the last 1000 ticks is gone
+                lastTouched.entrySet().removeIf(e -> {
+                    boolean idle = sweepAt - e.getValue() >= 1_000;
+                    if (idle) {
+                        expected.remove(e.getKey());
+                    }
+                    return idle;
+                });
+                assertThat(store.size()).isEqualTo(expected.size());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Idle buckets should be evicted while recently used ones are kept")
+    void evictIdle_shouldRemoveOnlyIdleBuckets() {
+        // Given
+        LongKeyBucketStore store = new LongKeyBucketStore(100, 4, 1);
+        for (long key = 1; key <= 50; key++) {
+            store.tryAcquire(key, 1_000, COUNT);
+        }
+        for (long key = 1; key <= 10; key++) {
+            store.tryAcquire(key, 5_000, COUNT);
+        }
+
+        // When
+        int removed = store.evictIdle(6_000, 2_000);
+
+        // Then
+        assertThat(removed).isEqualTo(40);
+        assertThat(store.size()).isEqualTo(10);
+        boolean[] fresh = new boolean[1];
+        store.tryAcquire(3, 6_000, (state, offset, isFresh, nowMs) -> fresh[0] = isFresh);
+        assertThat(fresh[0]).isFalse();
+    }
+}
@@ -0,0 +1,87 @@
+package az.kredo.loan.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServerTimingTest {
+
+    private boolean previouslyEnabled;
+
+    @BeforeEach
+    void setUp() {
+        // The flag is global and also set by RequestCorrelationFilter in Spring tests
+        previouslyEnabled = ServerTiming.isEnabled();
+        ServerTiming.setEnabled(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ServerTiming.setEnabled(previouslyEnabled);
+    }
+
+    @Test
+    @DisplayName("Spans should be summed per kind and rendered as a Server-Timing header")
+    void ledger_shouldRenderRecordedSpans() {
+        // Given
+        ServerTiming.setEnabled(true);
+        ServerTiming.Ledger ledger = ServerTiming.open();
+
+        // When
+        ServerTiming.record(ServerTiming.Span.DB, 1_500_000);
+        ServerTiming.record(ServerTiming.Span.DB, 500_000);
+        ServerTiming.stop(ServerTiming.Span.SCORING, ServerTiming.start());
+        String header = ledger.toHeader();
+        ServerTiming.close(ledger);
+
+        // Then
+        assertThat(ledger.nanos(ServerTiming.Span.DB)).isEqualTo(2_000_000);
+        assertThat(ledger.count(ServerTiming.Span.DB)).isEqualTo(2);
+        assertThat(header).startsWith("db;dur=2.00, scoring;dur=").contains("total;dur=")
+                .doesNotContain("crm").doesNotContain("desc");
+        assertThat(ledger.toLogFields(3_000_000))
+                .startsWith("total_ms=3.00 db_ms=2.00 db_calls=2 scoring_ms=")
+                .endsWith(" scoring_calls=1");
+    }
+
+    @Test
+    @DisplayName("The next request on the thread should start from an empty ledger")
+    void open_shouldResetLedger() {
+        // Given
+        ServerTiming.setEnabled(true);
+        ServerTiming.Ledger first = ServerTiming.open();
+        ServerTiming.record(ServerTiming.Span.CRM, 1_000);
+        ServerTiming.close(first);
+
+        // When
+        ServerTiming.Ledger second = ServerTiming.open();
+        ServerTiming.close(second);
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(second.count(ServerTiming.Span.CRM)).isZero();
+    }
+
+    @Test
+    @DisplayName("Nothing should be recorded when disabled or outside a request")
+    void record_shouldIgnoreInactiveThreads() throws Exception {
+        // Given: disabled
+        ServerTiming.Ledger ledger = ServerTiming.open();
+        assertThat(ServerTiming.start()).isZero();
+        ServerTiming.record(ServerTiming.Span.DB, 1_000);
+
+        // When: enabled, but recorded from a thread without a request
+        ServerTiming.setEnabled(true);
+        CompletableFuture.runAsync(() -> ServerTiming.record(ServerTiming.Span.DB, 1_000)).get();
+        ServerTiming.close(ledger);
+        ServerTiming.record(ServerTiming.Span.DB, 1_000);
+
+        // Then
+        assertThat(ledger.count(ServerTiming.Span.DB)).isZero();
+    }
+}
@@ -0,0 +1,102 @@
+package az.kredo.loan.support.jfr;
+
+import az.kredo.loan.config.RequestCorrelationFilter;
+import az.kredo.loan.entity.LoanApplication;
+import az.kredo.loan.service.DecisionEngine;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JfrEventsTest {
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    @DisplayName("Scoring should be recorded with the decision and the request ID")
+    void evaluate_shouldEmitScoringEvent() throws Exception {
+        // Given
+        MDC.put(RequestCorrelationFilter.MDC_REQUEST_ID, "req-jfr-1");
+        Path file = Files.createTempFile("kredo-", ".jfr");
+        List<RecordedEvent> events;
+
+        // When
+        try (Recording recording = new Recording()) {
+            recording.enable(ScoringEvent.NAME).withoutThreshold();
+            recording.start();
+            new DecisionEngine().evaluate(LoanApplication.builder().id(UUID.randomUUID()).build());
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        // Then
+        assertThat(events).hasSize(1);
+        RecordedEvent event = events.get(0);
+        assertThat(event.getEventType().getName()).isEqualTo(ScoringEvent.NAME);
+        assertThat(event.getString("outcome")).isEqualTo("APPROVED");
+        assertThat(event.getString("requestId")).isEqualTo("req-jfr-1");
+        assertThat(event.getDuration()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Nothing should be committed while no recording enables the event")
+    void finish_withoutRecording_shouldNotCommit() {
+        // Given
+        FieldCryptoEvent event = new FieldCryptoEvent("encrypt");
+
+        // When
+        event.begin();
+        event.finish(KredoEvent.SUCCESS);
+
+        // Then
+        assertThat(event.isEnabled()).isFalse();
+        assertThat(event.outcome).isNull();
+    }
+
+    @Test
+    @DisplayName("Streamed events should become timers tagged with event, operation and outcome")
+    void streaming_shouldRecordTimer() throws Exception {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JfrEventMetrics metrics = new JfrEventMetrics(registry);
+        metrics.start();
+
+        try {
+            // When
+            CrmCallEvent event = new CrmCallEvent("push-application");
+            event.begin();
+            event.finish(KredoEvent.SUCCESS, "req-jfr-2");
+
+            // Then
+            Timer timer = null;
+            for (int i = 0; i < 100 && timer == null; i++) {
+                Thread.sleep(100);
+                timer = registry.find("kredo.jfr.events")
+                        .tags("event", "CrmCall", "operation", "push-application", "outcome", "success")
+                        .timer();
+            }
+            assertThat(timer).isNotNull();
+            assertThat(timer.count()).isEqualTo(1);
+        } finally {
+            metrics.stop();
+        }
+    }
+}
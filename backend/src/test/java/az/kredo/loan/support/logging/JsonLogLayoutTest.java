@@ -0,0 +1,72 @@
+package az.kredo.loan.support.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonLogLayoutTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("az.kredo.loan.service.LoanApplicationService");
+
+    @Test
+    @DisplayName("An event should be one JSON line with its MDC fields")
+    void doLayout_shouldWriteMdcFields() {
+        // Given
+        JsonLogLayout layout = new JsonLogLayout();
+        layout.setApplication("kredo-loan-service");
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO,
+                "Loan application created: {}", null, new Object[]{"42"});
+        event.setThreadName("http-nio-8080-exec-1");
+        event.setTimeStamp(0);
+        event.setMDCPropertyMap(Map.of("requestId", "req-1"));
+
+        // When
+        String json = layout.doLayout(event);
+
+        // Then
+        assertThat(json).isEqualTo("{\"@timestamp\":\"1970-01-01T00:00:00Z\",\"level\":\"INFO\"," +
+                "\"application\":\"kredo-loan-service\",\"thread\":\"http-nio-8080-exec-1\"," +
+                "\"logger\":\"az.kredo.loan.service.LoanApplicationService\"," +
+                "\"message\":\"Loan application created: 42\",\"requestId\":\"req-1\"}" + System.lineSeparator());
+    }
+
+    @Test
+    @DisplayName("Quotes, backslashes and control characters should be escaped")
+    void escape_shouldProduceValidJsonStrings() {
+        // Given
+        StringBuilder json = new StringBuilder();
+
+        // When
+        JsonLogLayout.escape(json, "say \"hi\"\\\n\tnext\u0001");
+
+        // Then
+        assertThat(json).hasToString("say \\\"hi\\\"\\\\\\n\\tnext\\u0001");
+    }
+
+    @Test
+    @DisplayName("An exception should be written as a single escaped stack_trace field")
+    void doLayout_withException_shouldIncludeStackTrace() {
+        // Given
+        JsonLogLayout layout = new JsonLogLayout();
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.ERROR,
+                "Error processing decision", new IllegalStateException("CRM down"), null);
+        event.setMDCPropertyMap(Map.of());
+
+        // When
+        String json = layout.doLayout(event);
+
+        // Then
+        assertThat(json).contains("\"stack_trace\":\"java.lang.IllegalStateException: CRM down\\n\\tat ")
+                .doesNotContain("\"application\"")
+                .endsWith("}" + System.lineSeparator());
+        assertThat(json.strip()).doesNotContain("\n");
+    }
+}
@@ -0,0 +1,75 @@
+package az.kredo.loan.support.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MeteredAsyncAppenderTest {
+
+    @Test
+    @DisplayName("A stalled sink should make events drop, INFO first, without blocking the caller")
+    void append_withStalledSink_shouldDropAndCount() {
+        // Given
+        LoggerContext context = new LoggerContext();
+        Logger logger = context.getLogger("test");
+        CountDownLatch release = new CountDownLatch(1);
+        AppenderBase<ILoggingEvent> stalled = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        stalled.setContext(context);
+        stalled.start();
+
+        MeteredAsyncAppender appender = new MeteredAsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(10);
+        appender.setDiscardingThreshold(5);
+        appender.setNeverBlock(true);
+        appender.setMaxFlushTime(100);
+        appender.addAppender(stalled);
+        appender.start();
+        long infoBefore = MeteredAsyncAppender.dropped(Level.INFO);
+        long warnBefore = MeteredAsyncAppender.dropped(Level.WARN);
+
+        try {
+            // When
+            long start = System.nanoTime();
+            for (int i = 0; i < 50; i++) {
+                appender.doAppend(event(logger, Level.INFO));
+                appender.doAppend(event(logger, Level.WARN));
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            // Then
+            assertThat(elapsedMs).isLessThan(1_000);
+            // At most queue size plus the one event held by the stalled worker get through
+            assertThat(MeteredAsyncAppender.dropped(Level.INFO) - infoBefore).isGreaterThanOrEqualTo(40);
+            assertThat(MeteredAsyncAppender.dropped(Level.WARN) - warnBefore).isGreaterThanOrEqualTo(35);
+        } finally {
+            release.countDown();
+            appender.stop();
+        }
+    }
+
+    private static ILoggingEvent event(Logger logger, Level level) {
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, level, "message", null, null);
+        event.setMDCPropertyMap(Map.of());
+        return event;
+    }
+}
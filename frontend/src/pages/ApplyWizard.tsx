@@ -3,7 +3,7 @@ import { useMutation, useQuery } from '@tanstack/react-query';
 import ProgressStepper from '../components/ProgressStepper';
 import OtpInput from '../components/OtpInput';
 import { otpService, loanService } from '../services/loanService';
-import { setAccessToken, getAccessToken } from '../services/api';
+import { setAccessToken, setRefreshToken, getAccessToken } from '../services/api';
 import type {
     EmploymentStatus,
     ApiError,
@@ -20,6 +20,7 @@ function ApplyWizard() {
     const [loginFin, setLoginFin] = useState('');
     const [phoneNumber, setPhoneNumber] = useState('');
     const [requestId, setRequestId] = useState<string | null>(null);
+    const [requestToken, setRequestToken] = useState<string | undefined>(undefined);
     const [otpCode, setOtpCode] = useState('');
     const [otpSent, setOtpSent] = useState(false);
     const [countdown, setCountdown] = useState(0);
@@ -77,6 +78,7 @@ function ApplyWizard() {
         }),
         onSuccess: (data) => {
             setRequestId(data.requestId);
+            setRequestToken(data.requestToken);
             setOtpSent(true);
             setCountdown(data.ttlSeconds);
             setError(null);
@@ -91,10 +93,12 @@ function ApplyWizard() {
         mutationFn: () => otpService.verifyOtp({
             phoneNumber: `+994${phoneNumber}`,
             requestId: requestId!,
+            requestToken,
             otpCode,
         }),
         onSuccess: (data) => {
             setAccessToken(data.accessToken);
+            setRefreshToken(data.refreshToken ?? null);
             if (data.personalData) {
                 setFirstName(data.personalData.firstName);
                 setLastName(data.personalData.lastName);
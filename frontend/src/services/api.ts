@@ -1,17 +1,49 @@
 import axios, { AxiosError, InternalAxiosRequestConfig } from 'axios';
-import type { ApiError } from '../types';
+import type { ApiError, RefreshTokenResponse } from '../types';
 
 // Token storage - using memory for security (not localStorage)
 let accessToken: string | null = null;
+let refreshToken: string | null = null;
+let refreshInFlight: Promise<string | null> | null = null;
 
 export const setAccessToken = (token: string | null) => {
     accessToken = token;
 };
 
+export const setRefreshToken = (token: string | null) => {
+    refreshToken = token;
+};
+
 export const getAccessToken = () => accessToken;
 
 export const clearAccessToken = () => {
     accessToken = null;
+    refreshToken = null;
+};
+
+// Exchange the refresh token for a new pair; concurrent 401s share one refresh call,
+// since each refresh token can only be used once
+const refreshAccessToken = (): Promise<string | null> => {
+    if (!refreshToken) {
+        return Promise.resolve(null);
+    }
+    if (!refreshInFlight) {
+        refreshInFlight = axios
+            .post<RefreshTokenResponse>('/api/v1/kredo-ms/token/refresh', { refreshToken })
+            .then((response) => {
+                accessToken = response.data.accessToken;
+                refreshToken = response.data.refreshToken;
+                return accessToken;
+            })
+            .catch(() => {
+                clearAccessToken();
+                return null;
+            })
+            .finally(() => {
+                refreshInFlight = null;
+            });
+    }
+    return refreshInFlight;
 };
 
 // Create axios instance
@@ -44,9 +76,21 @@ api.interceptors.request.use(
 // Response interceptor for error handling
 api.interceptors.response.use(
     (response) => response,
-    (error: AxiosError<ApiError>) => {
+    async (error: AxiosError<ApiError>) => {
         if (error.response) {
             const apiError = error.response.data;
+            const original = error.config as (InternalAxiosRequestConfig & { _retried?: boolean }) | undefined;
+
+            // Expired access token: refresh once and replay the request instead of a new OTP
+            if (error.response.status === 401 && original && !original._retried
+                && original.url && !original.url.includes('/otp-service/')) {
+                original._retried = true;
+                const token = await refreshAccessToken();
+                if (token) {
+                    original.headers['Authorization'] = `Bearer ${token}`;
+                    return api(original);
+                }
+            }
 
             // Handle specific error codes
             if (error.response.status === 401) {
@@ -8,12 +8,15 @@ export interface GenerateOtpRequest {
 
 export interface GenerateOtpResponse {
     requestId: string;
+    requestToken?: string;
     ttlSeconds: number;
+    resendAvailableInSeconds?: number;
 }
 
 export interface VerifyOtpRequest {
     phoneNumber: string;
     requestId: string;
+    requestToken?: string;
     otpCode: string;
 }
 
@@ -21,9 +24,16 @@ export interface VerifyOtpResponse {
     verified: boolean;
     accessToken: string;
     expiresInSeconds: number;
+    refreshToken?: string;
     personalData?: PersonalDataDto;
 }
 
+export interface RefreshTokenResponse {
+    accessToken: string;
+    expiresInSeconds: number;
+    refreshToken: string;
+}
+
 export interface PersonalDataDto {
     firstName: string;
     lastName: string;